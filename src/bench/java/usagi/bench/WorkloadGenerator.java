@@ -0,0 +1,258 @@
+package usagi.bench;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic task files and command traces for replaying realistic sessions.
+ *
+ * <p>Output is fully determined by the seed, so two runs with the same settings replay exactly the
+ * same session. Descriptions are drawn from a small vocabulary, so that {@code find} has realistic
+ * hit rates, and end in a serial number, so that no two tasks are duplicates. A trace keeps track of
+ * how many tasks the list will hold at each step, so every {@code mark} and {@code delete} names a
+ * task that exists.</p>
+ */
+public class WorkloadGenerator {
+
+    /**
+     * The kinds of task in a dataset or added by a trace.
+     */
+    public enum TaskKind {
+        TODO, DEADLINE, EVENT
+    }
+
+    /**
+     * The kinds of command in a trace.
+     */
+    public enum CommandKind {
+        LIST, FIND, ADD, MARK, DELETE
+    }
+
+    private static final String[] WORDS = {
+        "pay", "rent", "call", "mum", "book", "flight", "report", "review", "draft", "email",
+        "team", "budget", "dentist", "groceries", "laundry", "gym", "read", "chapter", "fix", "bug",
+        "plan", "trip", "submit", "form", "clean", "kitchen", "water", "plants", "update", "resume",
+        "meeting", "client", "lecture", "notes", "project", "demo", "renew", "passport", "buy", "gift",
+    };
+    private static final String[] TAGS = {"#work", "#home", "#urgent", "#errand"};
+    private static final double TAG_RATE = 0.2;
+    private static final int DATE_SPREAD_DAYS = 365;
+
+    private final Random random;
+    private final LocalDate baseDate;
+    private int serial;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed Seed that determines everything generated.
+     * @param baseDate Date around which deadlines and events are spread.
+     */
+    public WorkloadGenerator(long seed, LocalDate baseDate) {
+        this.random = new Random(seed);
+        this.baseDate = baseDate;
+    }
+
+    /**
+     * Generates the lines of a task file.
+     *
+     * @param size Number of tasks.
+     * @param taskMix Relative weights of todos, deadlines and events.
+     * @param doneRatio Fraction of tasks that are marked done.
+     * @return Lines in the task file format.
+     * @throws IllegalArgumentException If the weights are not one non-negative number per kind of
+     *     task, with at least one of them positive.
+     */
+    public List<String> dataset(int size, int[] taskMix, double doneRatio) {
+        checkMix(taskMix, TaskKind.values().length, "task mix");
+        List<String> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String done = random.nextDouble() < doneRatio ? "1" : "0";
+            String description = description();
+            switch (pick(TaskKind.values(), taskMix)) {
+            case TODO:
+                lines.add("T | " + done + " | " + description);
+                break;
+            case DEADLINE:
+                lines.add("D | " + done + " | " + description + " | " + date());
+                break;
+            default:
+                LocalDateTime start = dateTime();
+                lines.add("E | " + done + " | " + description + " | " + start + " | " + start.plusHours(1));
+                break;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Generates a trace of commands to replay against a list of the given size.
+     *
+     * @param startSize Number of tasks in the list when the trace starts.
+     * @param length Number of commands.
+     * @param taskMix Relative weights of todos, deadlines and events among added tasks.
+     * @param commandMix Relative weights of list, find, add, mark and delete commands.
+     * @return Commands, as typed by a user.
+     * @throws IllegalArgumentException If either set of weights is not one non-negative number per
+     *     kind, with at least one of them positive.
+     */
+    public List<Command> trace(int startSize, int length, int[] taskMix, int[] commandMix) {
+        checkMix(taskMix, TaskKind.values().length, "task mix");
+        checkMix(commandMix, CommandKind.values().length, "command mix");
+        List<Command> commands = new ArrayList<>(length);
+        int size = startSize;
+        for (int i = 0; i < length; i++) {
+            CommandKind kind = pick(CommandKind.values(), commandMix);
+            if (size == 0 && (kind == CommandKind.MARK || kind == CommandKind.DELETE)) {
+                kind = CommandKind.ADD;
+            }
+            switch (kind) {
+            case LIST:
+                commands.add(new Command(kind, listCommand()));
+                break;
+            case FIND:
+                commands.add(new Command(kind, "find " + WORDS[random.nextInt(WORDS.length)]));
+                break;
+            case ADD:
+                commands.add(new Command(kind, addCommand(pick(TaskKind.values(), taskMix))));
+                size++;
+                break;
+            case MARK:
+                String verb = random.nextBoolean() ? "mark " : "unmark ";
+                commands.add(new Command(kind, verb + (1 + random.nextInt(size))));
+                break;
+            default:
+                commands.add(new Command(kind, "delete " + (1 + random.nextInt(size))));
+                size--;
+                break;
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Parses weights written as numbers separated by colons, such as {@code 60:25:15}.
+     *
+     * @param text Weights to parse.
+     * @param count Number of weights expected.
+     * @return The weights.
+     * @throws IllegalArgumentException If the text does not hold that many non-negative numbers,
+     *     at least one of them positive.
+     */
+    public static int[] parseMix(String text, int count) {
+        String[] parts = text.split(":");
+        if (parts.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " weights but got: " + text);
+        }
+        int[] weights = new int[count];
+        for (int i = 0; i < count; i++) {
+            weights[i] = Integer.parseInt(parts[i].trim());
+        }
+        checkMix(weights, count, text);
+        return weights;
+    }
+
+    /**
+     * Checks weights before any are drawn, so that a bad mix fails with a clear message rather than
+     * part way through generating.
+     */
+    private static void checkMix(int[] weights, int count, String name) {
+        if (weights.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " weights in " + name
+                    + " but got " + weights.length);
+        }
+        long total = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights cannot be negative: " + name);
+            }
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive: " + name);
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Weights add up to more than " + Integer.MAX_VALUE + ": " + name);
+        }
+    }
+
+    private <E> E pick(E[] values, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < values.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    private String listCommand() {
+        int roll = random.nextInt(10);
+        if (roll < 7) {
+            return "list";
+        }
+        return roll < 9 ? "list --sort due" : "list " + TAGS[random.nextInt(TAGS.length)];
+    }
+
+    private String addCommand(TaskKind kind) {
+        String description = description();
+        switch (kind) {
+        case TODO:
+            return "todo " + description;
+        case DEADLINE:
+            return "deadline " + description + " /by " + date();
+        default:
+            LocalDateTime start = dateTime();
+            return "event " + description + " /from " + start + " /to " + start.plusHours(1);
+        }
+    }
+
+    private String description() {
+        StringBuilder description = new StringBuilder();
+        int words = 2 + random.nextInt(3);
+        for (int i = 0; i < words; i++) {
+            description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        if (random.nextDouble() < TAG_RATE) {
+            description.append(TAGS[random.nextInt(TAGS.length)]).append(' ');
+        }
+        return description.append(++serial).toString();
+    }
+
+    private LocalDate date() {
+        return baseDate.plusDays(random.nextInt(2 * DATE_SPREAD_DAYS) - DATE_SPREAD_DAYS);
+    }
+
+    private LocalDateTime dateTime() {
+        return date().atTime(8 + random.nextInt(10), random.nextBoolean() ? 0 : 30);
+    }
+
+    /**
+     * One command of a trace.
+     */
+    public static class Command {
+        private final CommandKind kind;
+        private final String text;
+
+        Command(CommandKind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+
+        public CommandKind getKind() {
+            return kind;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package usagi.bench;
+
+import usagi.app.Usagi;
+import usagi.bench.WorkloadGenerator.Command;
+import usagi.bench.WorkloadGenerator.CommandKind;
+import usagi.storage.TaskStore;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Replays a generated session through {@link Usagi#getResponse(String)} and reports throughput,
+ * latency percentiles per command, the heap high-water mark and the bytes written by storage.
+ *
+ * <p>Options are given as {@code --name=value}: {@code tasks} (initial list size, default 1000),
+ * {@code commands} (measured commands, default 5000), {@code warmup} (unmeasured commands run
+ * first, default 1000), {@code task-mix} (todo:deadline:event weights, default 60:25:15),
+ * {@code command-mix} (list:find:add:mark:delete weights, default 30:25:20:15:10), {@code done}
+ * (fraction of done tasks, default 0.3) and {@code seed} (default 42). The storage engine is chosen
+ * as usual with {@code -Dusagi.storage}.</p>
+ */
+public class WorkloadReplay {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "tasks", "1000",
+            "commands", "5000",
+            "warmup", "1000",
+            "task-mix", "60:25:15",
+            "command-mix", "30:25:20:15:10",
+            "done", "0.3",
+            "seed", "42");
+    private static final double[] PERCENTILES = {50, 90, 99};
+    private static final double MIB = 1024.0 * 1024.0;
+
+    /**
+     * Runs the replay with the given options and prints the report.
+     *
+     * @param args Options in the form {@code --name=value}.
+     * @throws IOException If the working files cannot be created.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        int taskCount = Integer.parseInt(options.get("tasks"));
+        int commandCount = Integer.parseInt(options.get("commands"));
+        int warmupCount = Integer.parseInt(options.get("warmup"));
+        int[] taskMix = WorkloadGenerator.parseMix(options.get("task-mix"), WorkloadGenerator.TaskKind.values().length);
+        int[] commandMix = WorkloadGenerator.parseMix(options.get("command-mix"), CommandKind.values().length);
+
+        WorkloadGenerator generator = new WorkloadGenerator(Long.parseLong(options.get("seed")), LocalDate.now());
+        List<String> dataset = generator.dataset(taskCount, taskMix, Double.parseDouble(options.get("done")));
+        List<Command> trace = generator.trace(taskCount, warmupCount + commandCount, taskMix, commandMix);
+
+        Path dir = Files.createTempDirectory("usagi-bench");
+        try {
+            Path file = dir.resolve("tasks.txt");
+            Files.write(file, dataset, StandardCharsets.UTF_8);
+            System.out.println(replay(file, trace, warmupCount, options));
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Replays a trace against the task file and returns the report.
+     */
+    private static String replay(Path file, List<Command> trace, int warmupCount, Map<String, String> options) {
+        long loadStart = System.nanoTime();
+        Usagi usagi = new Usagi(file.toString());
+        long loadNanos = System.nanoTime() - loadStart;
+
+        for (Command command : trace.subList(0, warmupCount)) {
+            usagi.getResponse(command.getText());
+        }
+
+        List<Command> measured = trace.subList(warmupCount, trace.size());
+        Map<CommandKind, Latencies> byKind = new EnumMap<>(CommandKind.class);
+        Latencies all = new Latencies(measured.size());
+        resetHeapPeaks();
+        long bytesBefore = usagi.getBytesWritten();
+        long start = System.nanoTime();
+        for (Command command : measured) {
+            long before = System.nanoTime();
+            usagi.getResponse(command.getText());
+            long nanos = System.nanoTime() - before;
+            all.add(nanos);
+            byKind.computeIfAbsent(command.getKind(), k -> new Latencies(measured.size())).add(nanos);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytesWritten = usagi.getBytesWritten() - bytesBefore;
+
+        StringBuilder report = new StringBuilder("Usagi workload replay").append(System.lineSeparator());
+        line(report, "  storage: %s, tasks: %s, task mix: %s, command mix: %s, seed: %s",
+                System.getProperty(TaskStore.ENGINE_PROPERTY, "segments"), options.get("tasks"),
+                options.get("task-mix"), options.get("command-mix"), options.get("seed"));
+        line(report, "  load: %.1f ms", loadNanos / 1e6);
+        line(report, "  commands: %d in %.2f s, %.0f commands/s", measured.size(), elapsed / 1e9,
+                measured.size() / (elapsed / 1e9));
+        line(report, "  %-8s %8s %10s %10s %10s %10s", "latency", "count", "p50 us", "p90 us", "p99 us", "max us");
+        appendLatencies(report, "all", all);
+        for (Map.Entry<CommandKind, Latencies> entry : byKind.entrySet()) {
+            appendLatencies(report, entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue());
+        }
+        line(report, "  response cache: %d hits, %d misses", usagi.getResponseCache().getHits(),
+                usagi.getResponseCache().getMisses());
+        line(report, "  audit records dropped: %d", usagi.getAuditLog().getDropped());
+        line(report, "  heap high-water: %.1f MiB", heapPeak() / MIB);
+        line(report, "  bytes written: %.2f MiB (%.0f bytes per command)", bytesWritten / MIB,
+                (double) bytesWritten / measured.size());
+        return report.toString().stripTrailing();
+    }
+
+    private static void appendLatencies(StringBuilder report, String name, Latencies latencies) {
+        double[] values = new double[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            values[i] = latencies.percentile(PERCENTILES[i]) / 1e3;
+        }
+        line(report, "  %-8s %8d %10.1f %10.1f %10.1f %10.1f", name, latencies.count, values[0], values[1],
+                values[2], latencies.percentile(100) / 1e3);
+    }
+
+    private static void line(StringBuilder report, String format, Object... values) {
+        report.append(String.format(Locale.ROOT, format, values)).append(System.lineSeparator());
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Options must look like --name=value: " + arg);
+            }
+            String name = arg.substring(2, equals);
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option: " + name);
+            }
+            options.put(name, arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static void resetHeapPeaks() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the peak usage of the heap pools, an upper bound on the heap high-water mark.
+     */
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Latency samples of one kind of command, in nanoseconds.
+     */
+    private static class Latencies {
+        private final long[] samples;
+        private int count;
+        private boolean isSorted;
+
+        Latencies(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        void add(long nanos) {
+            samples[count++] = nanos;
+            isSorted = false;
+        }
+
+        /**
+         * Returns the sample at the given percentile, using the nearest-rank method.
+         */
+        long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            if (!isSorted) {
+                Arrays.sort(samples, 0, count);
+                isSorted = true;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * count);
+            return samples[Math.max(rank, 1) - 1];
+        }
+    }
+}
@@ -4,6 +4,8 @@ import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.util.Duration;
+import usagi.task.Task;
+import usagi.ui.TaskTable;
 import usagi.ui.Ui;
 
 import javafx.fxml.FXML;
@@ -40,6 +42,19 @@ public class MainWindow extends AnchorPane {
     /** Injects the Duke instance */
     public void setUsagi(Usagi u) {
         usagi = u;
+        usagi.setReminderListener(task -> Platform.runLater(() -> showReminder(task)));
+    }
+
+    /**
+     * Displays a reminder from Usagi for a task that has fallen due.
+     */
+    private void showReminder(Task task) {
+        Ui tempUi = new Ui();
+        tempUi.displayReminder(task);
+
+        dialogContainer.getChildren().add(
+                DialogBox.getUsagiDialog(tempUi.returnOutput(), usagiImage)
+        );
     }
 
     /**
@@ -57,19 +72,27 @@ public class MainWindow extends AnchorPane {
 
     /**
      * Creates two dialog boxes, one echoing user input and the other containing Duke's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * the dialog container. Tasks listed by the reply are shown in a table below it. Clears the user input after
+     * processing.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
         String response = usagi.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getUsagiDialog(response, usagiImage)
-        );
+        TaskTable table = usagi.getLastTaskTable();
+        dialogContainer.getChildren().add(DialogBox.getUserDialog(input, userImage));
+        if (table == null) {
+            dialogContainer.getChildren().add(DialogBox.getUsagiDialog(response, usagiImage));
+        } else {
+            // Listed tasks go in a table rather than one long label, which is slow to lay out.
+            dialogContainer.getChildren().addAll(
+                    DialogBox.getUsagiDialog(table.getHeading(), usagiImage),
+                    new TaskTableView(table)
+            );
+        }
         userInput.clear();
 
-        if (input.trim().equalsIgnoreCase("bye")) {
+        if (usagi.isExiting()) {
             closeAppWithDelay();
         }
     }
@@ -0,0 +1,79 @@
+package usagi.app;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import usagi.ui.TaskRow;
+import usagi.ui.TaskTable;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Shows listed tasks in a table with columns for number, type, status, description and dates.
+ *
+ * <p>The table is virtualized: only the rows on screen have cells, and every cell has the same
+ * fixed height, so tens of thousands of rows scroll smoothly. Clicking a column header sorts the
+ * rows already held by the table; nothing is asked of Usagi again.</p>
+ */
+public class TaskTableView extends TableView<TaskRow> {
+
+    private static final double ROW_HEIGHT = 24;
+    private static final double HEADER_HEIGHT = 28;
+    private static final double MAX_HEIGHT = 360;
+
+    /**
+     * Creates a table showing the rows of a task table.
+     *
+     * @param table Rows to show.
+     */
+    public TaskTableView(TaskTable table) {
+        super(FXCollections.observableArrayList(table.getRows()));
+        setFixedCellSize(ROW_HEIGHT);
+        setPrefHeight(Math.min(HEADER_HEIGHT + ROW_HEIGHT * table.getRows().size() + 2, MAX_HEIGHT));
+        setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<TaskRow, Integer> number = column("#", TaskRow::getNumber);
+        number.setMaxWidth(50);
+        TableColumn<TaskRow, String> type = column("Type", TaskRow::getType);
+        type.setMaxWidth(70);
+        TableColumn<TaskRow, Boolean> done = column("Done", TaskRow::isDone);
+        done.setMaxWidth(50);
+        done.setCellFactory(c -> new TextCell<Boolean>(isDone -> isDone ? "X" : ""));
+        TableColumn<TaskRow, String> description = column("Description", TaskRow::getDescription);
+
+        // Dates sort by value, todos last, and are formatted only for the cells on screen.
+        TableColumn<TaskRow, TaskRow> dates = column("Date", row -> row);
+        dates.setComparator(Comparator.comparing(TaskRow::getDate,
+                Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder())));
+        dates.setCellFactory(c -> new TextCell<TaskRow>(TaskRow::getDateText));
+
+        getColumns().setAll(number, type, done, description, dates);
+    }
+
+    private static <T> TableColumn<TaskRow, T> column(String title, Function<TaskRow, T> value) {
+        TableColumn<TaskRow, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+        return column;
+    }
+
+    /**
+     * A cell showing its value as text produced by the given function.
+     */
+    private static class TextCell<T> extends TableCell<TaskRow, T> {
+        private final Function<T, String> text;
+
+        TextCell(Function<T, String> text) {
+            this.text = text;
+        }
+
+        @Override
+        protected void updateItem(T item, boolean isEmpty) {
+            super.updateItem(item, isEmpty);
+            setText(isEmpty || item == null ? null : text.apply(item));
+        }
+    }
+}
@@ -1,12 +1,28 @@
 package usagi.app;
 
+import usagi.archive.Archiver;
+import usagi.audit.AuditLog;
+import usagi.audit.AuditRecord;
+import usagi.audit.ChangeTracker;
 import usagi.exception.*;
 import usagi.parser.Parser;
-import usagi.storage.Storage;
+import usagi.reminder.ReminderService;
+import usagi.replication.Replicator;
+import usagi.storage.TaskStore;
+import usagi.task.Task;
 import usagi.task.TaskList;
+import usagi.task.Transaction;
+import usagi.ui.ResponseCache;
+import usagi.ui.TaskTable;
 import usagi.ui.Ui;
+import usagi.workspace.Workspace;
+import usagi.workspace.WorkspaceManager;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Main application class for the Usagi chatbot
@@ -16,15 +32,37 @@ public class Usagi {
     private static final String BYE_COMMAND = "bye";
     private static final String ERROR_PREFIX = "Error saving tasks: ";
     private static final String GENERIC_ERROR_PREFIX = "Oops! ";
+    private static final String RELOAD_ERROR_PREFIX = "Error reloading tasks: ";
+    private static final String ARCHIVE_ERROR_PREFIX = "Error archiving tasks: ";
+    private static final String REPLICATION_ERROR_PREFIX = "Error starting replication: ";
+    private static final String AUDIT_ERROR_PREFIX = "Error writing audit log: ";
+    private static final String INDEX_ERROR_PREFIX = "Error saving search index: ";
+    private static final String WATCH_ERROR_PREFIX = "Error watching tasks for edits by other programs: ";
+    private static final String SWITCH_ERROR_FORMAT = "Could not load the %s list: %s";
+    private static final String BATCH_ERROR_FORMAT = "Nothing was changed, because command %d (%s) failed. ";
 
-    private final Storage storage;
+    private final WorkspaceManager workspaces;
+    private Workspace workspace;
+    private TaskStore storage;
     private TaskList tasks;
     private final Ui ui;
+    private final ReminderService reminders;
+    private final Archiver archiver;
+    private final Replicator replicator;
+    private final ResponseCache responses = new ResponseCache();
+    private final AuditLog audit;
+    private final ChangeTracker changes = new ChangeTracker();
+    private final String user = System.getProperty("user.name");
+    // Messages from background work, shown before the next response.
+    private final List<String> notices = new ArrayList<>();
+    private List<String> openBlock;
+    private boolean isExiting;
 
     /**
      * Creates a new Usagi application instance with the specified file path for data storage.
      * Initializes the UI, storage, and attempts to load existing tasks from the file.
-     * If loading fails, starts with an empty task list.
+     * If loading fails, starts with an empty task list. Other task lists switched to later are
+     * kept next to this file.
      *
      * @param filePath Path to the file where tasks will be stored and loaded from.
      */
@@ -32,8 +70,24 @@ public class Usagi {
         validateFilePath(filePath);
 
         ui = createUi();
-        storage = createStorage(filePath);
-        tasks = initializeTasks();
+        workspaces = new WorkspaceManager(filePath, this::reloadExternalChanges);
+        useWorkspace(workspaces.openDefault(e -> ui.printErrorMessage(e.getMessage())));
+        reminders = createReminderService();
+        archiver = new Archiver(workspace.getArchive());
+        replicator = startReplicator();
+        audit = AuditLog.forTaskFile(filePath);
+        tasks.addChangeListener(changes);
+        archiver.start(this::archiveCompletedTasks);
+        audit.start();
+    }
+
+    /**
+     * Sets the callback that is notified, from a background thread, when a deadline or event is due.
+     *
+     * @param listener Callback receiving the task that is due.
+     */
+    public void setReminderListener(Consumer<Task> listener) {
+        reminders.setListener(listener);
     }
 
     /**
@@ -43,26 +97,189 @@ public class Usagi {
      * @param input User input command string
      * @return Response message to display to user
      */
-    public String getResponse(String input) {
+    public synchronized String getResponse(String input) {
         validateInputAndState(input);
+        ui.clearTaskTable();
+        Instant received = Instant.now();
+        long start = System.nanoTime();
+        String response;
+        boolean isSuccess = false;
+
+        try {
+            // Pick up edits made by other programs first, so the save below cannot overwrite them.
+            applyExternalChanges();
+            changes.reset();
+            response = processInput(input);
+            isSuccess = true;
+        } catch (BatchException e) {
+            response = String.format(BATCH_ERROR_FORMAT, e.getPosition(), e.getCommand()) + describeError(e.getCause());
+        } catch (UsagiException | IOException e) {
+            response = describeError(e);
+        }
+
+        long latency = System.nanoTime() - start;
+        // A failed command or batch leaves the list as it was, even if it was changed and rolled back.
+        audit.record(isSuccess
+                ? new AuditRecord(received, user, input, true, null, latency, changes.getChanges(),
+                        changes.getFirstTask())
+                : new AuditRecord(received, user, input, false, response, latency, 0, null));
+        if (isSuccess && input.trim().equalsIgnoreCase(BYE_COMMAND)) {
+            isExiting = true;
+            prepareForExit();
+        }
+        return withNotices(response);
+    }
+
+    /**
+     * Returns whether the last response said goodbye, so that the interface should close.
+     * A {@code bye} typed while a block is open is refused and does not end the application.
+     *
+     * @return True if the application is exiting.
+     */
+    public synchronized boolean isExiting() {
+        return isExiting;
+    }
+
+    /**
+     * Puts the messages queued by background work since the last response in front of a response.
+     */
+    private String withNotices(String response) {
+        if (notices.isEmpty()) {
+            return response;
+        }
+        notices.add(response);
+        String combined = String.join(System.lineSeparator(), notices);
+        notices.clear();
+        return combined;
+    }
+
+    private String processInput(String input) throws UsagiException, IOException {
+        List<String> commands = Parser.splitBatch(input);
+        if (commands.size() == 1 && Parser.isSwitchCommand(commands.get(0))) {
+            return switchList(commands.get(0));
+        }
+        if (openBlock != null && commands.size() == 1 && commands.get(0).equalsIgnoreCase(BYE_COMMAND)) {
+            // Exiting would silently drop the commands collected so far.
+            throw new UsagiException("Please type commit or rollback before exiting.");
+        }
+        if (openBlock != null || commands.size() > 1
+                || commands.size() == 1 && isBlockCommand(commands.get(0))) {
+            return processBatchInput(commands);
+        }
+        return processCommand(input);
+    }
+
+    /**
+     * Writes the queued audit records, and the indexes of the saved tasks so that the next start
+     * can skip rebuilding them, before the application exits.
+     */
+    private void prepareForExit() {
+        try {
+            audit.flush();
+        } catch (IOException e) {
+            ui.printErrorMessage(AUDIT_ERROR_PREFIX + e.getMessage());
+        }
+        for (Workspace loaded : workspaces.getLoaded()) {
+            try {
+                loaded.getStorage().saveIndexes(loaded.getTasks());
+            } catch (IOException e) {
+                ui.printErrorMessage(INDEX_ERROR_PREFIX + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Makes the named task list the one commands apply to, loading it if needed, and drops idle
+     * lists from memory if the loaded lists hold more tasks than allowed.
+     */
+    private String switchList(String command) throws UsagiException {
+        if (openBlock != null) {
+            throw new UsagiException("Please type commit or rollback before switching lists.");
+        }
+        String name = Parser.parseListName(command);
+        Workspace next;
+        try {
+            next = workspaces.open(name, e -> notices.add(createErrorResponse(WATCH_ERROR_PREFIX, e)));
+        } catch (IOException e) {
+            throw new UsagiException(String.format(SWITCH_ERROR_FORMAT, name, e.getMessage()));
+        }
 
+        if (next != workspace) {
+            reminders.unwatch(tasks);
+            tasks.removeChangeListener(changes);
+            useWorkspace(next);
+            reminders.watch(tasks);
+            tasks.addChangeListener(changes);
+            // Cached responses are keyed by list version, which says nothing about which list it is.
+            responses.clear();
+        }
         try {
-            return processCommand(input);
-        } catch (EmptyDescriptionException e) {
+            workspaces.evictIdle(workspace);
+        } catch (IOException e) {
+            ui.printErrorMessage(ERROR_PREFIX + e.getMessage());
+        }
+        ui.displayListSwitched(name, tasks.size());
+        return ui.returnOutput();
+    }
+
+    private void useWorkspace(Workspace next) {
+        workspace = next;
+        storage = next.getStorage();
+        tasks = next.getTasks();
+    }
+
+    private String describeError(Exception e) {
+        if (e instanceof EmptyDescriptionException) {
             return createErrorResponse("Empty description error: ", e);
-        } catch (InvalidFormatException e) {
+        } else if (e instanceof InvalidFormatException) {
             return createErrorResponse("Format error: ", e);
-        } catch (InvalidTaskNumberException e) {
+        } else if (e instanceof InvalidTaskNumberException) {
             return createErrorResponse("Invalid task number: ", e);
-        } catch (InvalidCommandException e) {
+        } else if (e instanceof InvalidCommandException) {
             return createErrorResponse("Invalid command: ", e);
-        } catch (DuplicateException e) {
+        } else if (e instanceof DuplicateException) {
             return createErrorResponse("Duplicate task: ", e);
-        } catch (UsagiException e) {
-            return createErrorResponse(GENERIC_ERROR_PREFIX, e);
-        } catch (IOException e) {
+        } else if (e instanceof IOException) {
             return createErrorResponse(ERROR_PREFIX, e);
         }
+        return createErrorResponse(GENERIC_ERROR_PREFIX, e);
+    }
+
+    /**
+     * Returns the tasks listed by the last response as table rows, for interfaces that show a table.
+     *
+     * @return The table, or null if the last response did not list any tasks.
+     */
+    public synchronized TaskTable getLastTaskTable() {
+        return ui.getTaskTable();
+    }
+
+    /**
+     * Returns the cache of responses to read-only commands, whose hit and miss counts show how
+     * often a response was served without rendering it again.
+     *
+     * @return Response cache of this application.
+     */
+    public ResponseCache getResponseCache() {
+        return responses;
+    }
+
+    /**
+     * Returns the log to which every command is recorded.
+     *
+     * @return Audit log of this application.
+     */
+    public AuditLog getAuditLog() {
+        return audit;
+    }
+
+    /**
+     * Returns the number of bytes written by the task storage since the application started.
+     *
+     * @return Bytes written to disk when saving tasks.
+     */
+    public long getBytesWritten() {
+        return storage.getBytesWritten();
     }
 
     private void validateFilePath(String filePath) {
@@ -77,22 +294,74 @@ public class Usagi {
         return newUi;
     }
 
-    private Storage createStorage(String filePath) {
-        Storage newStorage = new Storage(filePath);
-        assert newStorage != null : "Storage object must be created successfully";
-        return newStorage;
+    private ReminderService createReminderService() {
+        ReminderService service = new ReminderService();
+        service.watch(tasks);
+        return service;
     }
 
-    private TaskList initializeTasks() {
+    /**
+     * Starts shipping changes to the follower directory given by {@value Replicator#FOLLOWER_PROPERTY},
+     * if one is configured.
+     */
+    private Replicator startReplicator() {
+        Replicator newReplicator = Replicator.fromProperty();
+        if (newReplicator == null) {
+            return null;
+        }
         try {
-            TaskList loadedTasks = storage.load();
-            assert loadedTasks != null : "Loaded TaskList cannot be null";
-            return loadedTasks;
+            newReplicator.start(tasks);
+            return newReplicator;
         } catch (IOException e) {
-            ui.printErrorMessage(e.getMessage());
-            TaskList fallbackTasks = new TaskList();
-            assert fallbackTasks != null : "Fallback TaskList cannot be null";
-            return fallbackTasks;
+            ui.printErrorMessage(REPLICATION_ERROR_PREFIX + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Merges edits made by other programs into a loaded list as soon as they happen, rather than
+     * letting the next save overwrite them.
+     */
+    private synchronized void reloadExternalChanges(Workspace changed) {
+        if (!changed.isLoaded()) {
+            return;
+        }
+        try {
+            applyExternalChanges(changed);
+        } catch (IOException e) {
+            notices.add(createErrorResponse(RELOAD_ERROR_PREFIX, e));
+        }
+    }
+
+    /**
+     * Moves long-completed tasks of every loaded list into its archive and saves the smaller lists.
+     * As this changes task numbers behind the user's back, the next response says so.
+     */
+    private synchronized void archiveCompletedTasks() {
+        for (Workspace loaded : workspaces.getLoaded()) {
+            try {
+                int archived = archiver.archive(loaded.getTasks(), loaded.getArchive());
+                if (archived > 0) {
+                    // Recorded positions no longer line up once tasks have left the list.
+                    loaded.getTasks().getHistory().clear();
+                    persist(loaded);
+                    ui.displayArchivedInBackground(loaded.getName(), archived);
+                    notices.add(ui.returnOutput());
+                }
+            } catch (IOException e) {
+                notices.add(createErrorResponse(ARCHIVE_ERROR_PREFIX, e));
+            }
+        }
+    }
+
+    private void applyExternalChanges() throws IOException {
+        applyExternalChanges(workspace);
+    }
+
+    private void applyExternalChanges(Workspace changed) throws IOException {
+        if (changed.getStorage().reload(changed.getTasks()) > 0) {
+            // Recorded positions no longer line up with the list once other programs have edited it.
+            changed.getTasks().getHistory().clear();
         }
     }
 
@@ -104,7 +373,17 @@ public class Usagi {
     }
 
     private String processCommand(String input) throws UsagiException, IOException {
-        Parser.interpretCommand(input, ui, tasks);
+        String cacheKey = Parser.getResponseCacheKey(input);
+        if (cacheKey != null) {
+            // Nothing to save on a hit: the list has not changed since the response was rendered.
+            ResponseCache.Response cached = responses.get(cacheKey, tasks.getVersion());
+            if (cached != null) {
+                ui.showCachedResponse(cached);
+                return cached.getOutput();
+            }
+        }
+
+        Parser.interpretCommand(input, ui, tasks, workspace.getArchive());
         assert tasks != null : "TaskList should not become null after processing";
 
         saveTasksIfNeeded(input);
@@ -112,13 +391,116 @@ public class Usagi {
         String output = ui.returnOutput();
         assert output != null : "UI output cannot be null";
 
+        if (cacheKey != null) {
+            responses.put(cacheKey, tasks.getVersion(), output, ui.getTaskTable());
+        }
         return output;
     }
 
+    private static boolean isBlockCommand(String command) {
+        return Parser.isBeginCommand(command) || Parser.isCommitCommand(command)
+                || Parser.isRollbackCommand(command);
+    }
+
+    /**
+     * Handles input holding several commands, or commands of a begin ... commit block.
+     * Outside a block, the commands run at once as one batch. A block collects commands,
+     * possibly over several inputs, until commit runs them as one batch or rollback discards them.
+     */
+    private String processBatchInput(List<String> commands) throws UsagiException, IOException {
+        int start = 0;
+        List<String> block = openBlock == null ? null : new ArrayList<>(openBlock);
+        if (block == null && Parser.isBeginCommand(commands.get(0))) {
+            block = new ArrayList<>();
+            start = 1;
+        }
+
+        for (int i = start; i < commands.size(); i++) {
+            String command = commands.get(i);
+            boolean isLast = i == commands.size() - 1;
+            if (Parser.isBeginCommand(command)) {
+                if (block == null) {
+                    throw new InvalidFormatException("begin, <command>, ..., commit");
+                }
+                throw new UsagiException("A block is already open. Type commit or rollback first.");
+            } else if (Parser.isCommitCommand(command) || Parser.isRollbackCommand(command)) {
+                if (block == null) {
+                    throw new UsagiException("There is no open block. Type begin to start one.");
+                }
+                if (!isLast) {
+                    throw new InvalidFormatException("begin, <command>, ..., commit");
+                }
+                openBlock = null;
+                if (Parser.isRollbackCommand(command)) {
+                    ui.displayBlockDiscarded(block.size());
+                    return ui.returnOutput();
+                }
+                return runBatch(block);
+            } else if (block != null) {
+                block.add(command);
+            }
+        }
+
+        if (block == null) {
+            return runBatch(commands);
+        }
+        openBlock = block;
+        ui.displayBlockQueued(block.size());
+        return ui.returnOutput();
+    }
+
+    /**
+     * Runs commands as one transaction on the task list, saving once at the end.
+     * If any command fails, the changes made by the earlier ones are rolled back.
+     */
+    private String runBatch(List<String> commands) throws UsagiException, IOException {
+        List<String> outputs = new ArrayList<>();
+        Transaction transaction = tasks.beginTransaction();
+        int position = 0;
+        boolean hasChanges;
+        try {
+            for (; position < commands.size(); position++) {
+                Parser.interpretCommand(commands.get(position), ui, tasks, workspace.getArchive());
+                outputs.add(ui.returnOutput());
+            }
+            hasChanges = transaction.getChangeCount() > 0;
+            transaction.commit();
+        } catch (UsagiException e) {
+            transaction.rollback();
+            throw new BatchException(position + 1, commands.get(position), e);
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        }
+
+        if (hasChanges) {
+            persist();
+        }
+        ui.displayBatchResults(outputs);
+        return ui.returnOutput();
+    }
+
     private void saveTasksIfNeeded(String input) throws IOException {
         boolean isByeCommand = input.trim().equalsIgnoreCase(BYE_COMMAND);
         if (!isByeCommand) {
-            storage.save(tasks);
+            persist();
+        }
+    }
+
+    /**
+     * Saves the task list in use and ships changes to the follower, if there is one.
+     */
+    private void persist() throws IOException {
+        persist(workspace);
+    }
+
+    /**
+     * Saves a task list and ships the default list's changes to the follower, if there is one.
+     */
+    private void persist(Workspace changed) throws IOException {
+        changed.getStorage().save(changed.getTasks());
+        if (replicator != null) {
+            replicator.ship();
         }
     }
 
@@ -0,0 +1,127 @@
+package usagi.archive;
+
+import usagi.storage.TaskArchive;
+import usagi.task.TagIndex;
+import usagi.task.Task;
+import usagi.task.TaskList;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves tasks that were completed long ago out of the task list and into a {@link TaskArchive}.
+ *
+ * <p>Candidates are found from the done tasks kept by the list's {@link TagIndex}, so a pass that
+ * has nothing to archive costs time proportional to the done tasks only. Tasks are written to the
+ * archive before they are removed from the list, so a failure never loses a task. Passes run on a
+ * background thread: once at start-up and then every hour.</p>
+ */
+public class Archiver {
+
+    /** System property holding the number of days a task stays in the list after it is done. */
+    public static final String DAYS_PROPERTY = "usagi.archive.days";
+
+    private static final int DEFAULT_DAYS = 30;
+    private static final long PERIOD_MINUTES = 60;
+
+    private final TaskArchive archive;
+    private final int days;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates an archiver that keeps done tasks for the number of days given by {@value #DAYS_PROPERTY}.
+     *
+     * @param archive Archive to move tasks into.
+     */
+    public Archiver(TaskArchive archive) {
+        this(archive, Integer.getInteger(DAYS_PROPERTY, DEFAULT_DAYS), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates an archiver that keeps done tasks for the given number of days.
+     *
+     * @param archive Archive to move tasks into.
+     * @param days Days a task stays in the list after it is done.
+     * @param clock Clock providing today's date.
+     */
+    public Archiver(TaskArchive archive, int days, Clock clock) {
+        assert days >= 0 : "Days to keep done tasks cannot be negative";
+        this.archive = archive;
+        this.days = days;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "usagi-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the archive tasks are moved into.
+     */
+    public TaskArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Moves the tasks that were done more than the configured number of days ago into the archive.
+     *
+     * @param tasks Task list to archive from.
+     * @return Number of tasks archived.
+     * @throws IOException If the archive cannot be written; the list is then left unchanged.
+     */
+    public int archive(TaskList tasks) throws IOException {
+        return archive(tasks, archive);
+    }
+
+    /**
+     * Moves the tasks that were done more than the configured number of days ago into the given
+     * archive, for task lists other than the one this archiver was created for.
+     *
+     * @param tasks Task list to archive from.
+     * @param into Archive of that task list.
+     * @return Number of tasks archived.
+     * @throws IOException If the archive cannot be written; the list is then left unchanged.
+     */
+    public int archive(TaskList tasks, TaskArchive into) throws IOException {
+        LocalDate cutoff = LocalDate.now(clock).minusDays(days);
+        TagIndex index = tasks.getTagIndex();
+        List<Task> expired = new ArrayList<>();
+        for (Task task : index.tasksOf(index.withTag(TagIndex.DONE_TAG))) {
+            LocalDate doneOn = task.getDoneOn();
+            if (doneOn != null && doneOn.isBefore(cutoff)) {
+                expired.add(task);
+            }
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        tasks.sortByPosition(expired);
+        into.append(expired);
+        return tasks.removeAll(expired);
+    }
+
+    /**
+     * Runs the given pass now and then every hour on a background thread.
+     *
+     * @param pass Pass to run, normally one that calls {@link #archive(TaskList)} and saves the list.
+     */
+    public void start(Runnable pass) {
+        scheduler.scheduleAtFixedRate(pass, 0, PERIOD_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops running passes.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,221 @@
+package usagi.audit;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A log of every command handled, written as one JSON object per line.
+ *
+ * <p>Recording a command only puts its {@link AuditRecord} into a lock-free {@link AuditRing}; a
+ * background thread drains the ring, formats the records and appends them to the file, so the
+ * command path never waits for the disk. When the file would grow past its size limit it is
+ * rotated: {@code tasks-audit.log} becomes {@code tasks-audit.log.1}, and so on, and the oldest
+ * file is deleted. If records arrive faster than they can be written, the ring fills up and new
+ * records are dropped and counted instead of slowing commands down. A write that fails in the
+ * background is reported by the next {@link #flush()}.</p>
+ */
+public class AuditLog implements Closeable {
+
+    private static final String AUDIT_SUFFIX = "-audit.log";
+    private static final int RING_CAPACITY = 8192;
+    private static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+    private static final int DEFAULT_KEPT_FILES = 5;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Path path;
+    private final long maxBytes;
+    private final int keptFiles;
+    private final AuditRing<AuditRecord> ring = new AuditRing<>(RING_CAPACITY);
+    private final Thread writerThread;
+    private volatile boolean isRunning;
+    private BufferedWriter writer;
+    private long size;
+    // First failure of the background writer since the last flush.
+    private IOException writerFailure;
+
+    /**
+     * Creates an audit log at the given path.
+     *
+     * @param path Path of the current log file.
+     * @param maxBytes Size above which the file is rotated.
+     * @param keptFiles Number of rotated files kept besides the current one.
+     */
+    public AuditLog(Path path, long maxBytes, int keptFiles) {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.keptFiles = keptFiles;
+        this.writerThread = new Thread(this::runWriter, "usagi-audit");
+        writerThread.setDaemon(true);
+    }
+
+    /**
+     * Returns the audit log kept next to a task file, e.g. {@code data/tasks-audit.log} for
+     * {@code data/tasks.txt}, rotated at 1 MiB with 5 older files kept.
+     *
+     * @param filePath Path of the task file.
+     * @return The audit log for that task file.
+     */
+    public static AuditLog forTaskFile(String filePath) {
+        Path taskFile = Paths.get(filePath);
+        String name = taskFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new AuditLog(taskFile.resolveSibling(base + AUDIT_SUFFIX), DEFAULT_MAX_BYTES, DEFAULT_KEPT_FILES);
+    }
+
+    /**
+     * Starts the background writer.
+     */
+    public void start() {
+        isRunning = true;
+        writerThread.start();
+    }
+
+    /**
+     * Queues a record for writing, without blocking.
+     *
+     * @param record Record to write.
+     * @return False if the record was dropped because too many are waiting to be written.
+     */
+    public boolean record(AuditRecord record) {
+        return ring.offer(record);
+    }
+
+    /**
+     * Returns the number of records dropped because too many were waiting to be written.
+     */
+    public long getDropped() {
+        return ring.getDropped();
+    }
+
+    /**
+     * Writes every queued record to the file now.
+     *
+     * @throws IOException If the file cannot be written now, or could not be written by the
+     *     background writer since the last flush.
+     */
+    public synchronized void flush() throws IOException {
+        IOException failure = writerFailure;
+        writerFailure = null;
+        try {
+            writeQueued();
+        } catch (IOException e) {
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private synchronized void writeQueued() throws IOException {
+        IOException[] failure = new IOException[1];
+        ring.drain(record -> {
+            try {
+                if (failure[0] == null) {
+                    write(record.toJson());
+                }
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (writer != null) {
+            writer.flush();
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Stops the background writer, writing the records still queued.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        isRunning = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                flush();
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                    writer = null;
+                }
+            }
+        }
+    }
+
+    private void runWriter() {
+        while (isRunning) {
+            try {
+                writeQueued();
+            } catch (IOException e) {
+                synchronized (this) {
+                    if (writerFailure == null) {
+                        writerFailure = e;
+                    }
+                }
+            }
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+    private void write(String line) throws IOException {
+        long bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (writer == null) {
+            open();
+        }
+        if (size > 0 && size + bytes > maxBytes) {
+            rotate();
+        }
+        writer.write(line);
+        writer.write('\n');
+        size += bytes;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        size = Files.size(path);
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        Files.deleteIfExists(rotated(keptFiles));
+        for (int i = keptFiles - 1; i >= 1; i--) {
+            if (Files.exists(rotated(i))) {
+                Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (keptFiles > 0) {
+            Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(path);
+        }
+        open();
+    }
+
+    private Path rotated(int n) {
+        return path.resolveSibling(path.getFileName() + "." + n);
+    }
+}
@@ -0,0 +1,103 @@
+package usagi.audit;
+
+import java.time.Instant;
+
+/**
+ * What happened when one command was handled: when, by whom, how it ended, how long it took and
+ * which task it changed. Records are created on the command path and only turned into text by the
+ * background writer.
+ */
+public class AuditRecord {
+
+    private final Instant time;
+    private final String user;
+    private final String command;
+    private final boolean isSuccess;
+    private final String error;
+    private final long latencyNanos;
+    private final int changes;
+    private final String task;
+
+    /**
+     * Creates a record.
+     *
+     * @param time When the command was received.
+     * @param user Name of the user running Usagi, or null if it is not known.
+     * @param command Command as typed.
+     * @param isSuccess Whether the command succeeded.
+     * @param error Error shown to the user, or null if the command succeeded.
+     * @param latencyNanos Time taken to handle the command, in nanoseconds.
+     * @param changes Number of changes made to the task list.
+     * @param task First task the command changed, or null if it changed none.
+     */
+    public AuditRecord(Instant time, String user, String command, boolean isSuccess, String error,
+            long latencyNanos, int changes, String task) {
+        this.time = time;
+        this.user = user;
+        this.command = command;
+        this.isSuccess = isSuccess;
+        this.error = error;
+        this.latencyNanos = latencyNanos;
+        this.changes = changes;
+        this.task = task;
+    }
+
+    /**
+     * Returns the record as one line of JSON, without a line break.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"time\":\"").append(time).append('"');
+        json.append(",\"user\":");
+        appendString(json, user);
+        json.append(",\"command\":");
+        appendString(json, command);
+        json.append(",\"outcome\":\"").append(isSuccess ? "ok" : "error").append('"');
+        if (error != null) {
+            json.append(",\"error\":");
+            appendString(json, error);
+        }
+        json.append(",\"latencyMicros\":").append(latencyNanos / 1000);
+        json.append(",\"changes\":").append(changes);
+        if (task != null) {
+            json.append(",\"task\":");
+            appendString(json, task);
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                json.append("\\\"");
+                break;
+            case '\\':
+                json.append("\\\\");
+                break;
+            case '\n':
+                json.append("\\n");
+                break;
+            case '\r':
+                json.append("\\r");
+                break;
+            case '\t':
+                json.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,88 @@
+package usagi.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue of audit records with many producers and one consumer.
+ *
+ * <p>A producer claims a slot by advancing the tail with a compare-and-set and then publishes its
+ * record into the slot; the consumer takes records in order from the head, stopping at a slot that
+ * has been claimed but not yet published. Producers never wait: when the ring is full the record
+ * is dropped and counted, so a stalled disk can never slow down commands.</p>
+ *
+ * @param <T> Type of record held.
+ */
+class AuditRing<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates a ring with room for {@code capacity} records.
+     *
+     * @param capacity Number of slots; must be a power of two.
+     */
+    AuditRing(int capacity) {
+        assert Integer.bitCount(capacity) == 1 : "Capacity must be a power of two";
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a record without blocking.
+     *
+     * @param record Record to add.
+     * @return False if the ring was full and the record was dropped.
+     */
+    boolean offer(T record) {
+        while (true) {
+            long position = tail.get();
+            if (position - head.get() >= slots.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (tail.compareAndSet(position, position + 1)) {
+                slots.set((int) (position & mask), record);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the published records in order and passes them to the consumer.
+     * Must only be called by one thread at a time.
+     *
+     * @param consumer Receiver of the records.
+     * @return Number of records removed.
+     */
+    int drain(Consumer<T> consumer) {
+        int count = 0;
+        long position = head.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            T record = slots.get(slot);
+            if (record == null) {
+                break;
+            }
+            slots.set(slot, null);
+            position++;
+            // Publish the freed slot before handing the record on, so producers can reuse it.
+            head.set(position);
+            consumer.accept(record);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of records dropped because the ring was full.
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,47 @@
+package usagi.audit;
+
+import usagi.task.Task;
+import usagi.task.TaskChange;
+import usagi.task.TaskChangeListener;
+
+import java.util.List;
+
+/**
+ * Notes the changes a command makes to the task list, for its audit record. Changes rolled back by
+ * a failed batch are never delivered, so they are not counted.
+ */
+public class ChangeTracker implements TaskChangeListener {
+
+    private int changes;
+    private Task firstTask;
+
+    /**
+     * Forgets the changes noted so far, before the next command runs.
+     */
+    public void reset() {
+        changes = 0;
+        firstTask = null;
+    }
+
+    /**
+     * Returns the number of changes noted since the last reset.
+     */
+    public int getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns the first task changed since the last reset, as displayed, or null if none was.
+     */
+    public String getFirstTask() {
+        return firstTask == null ? null : firstTask.toString();
+    }
+
+    @Override
+    public void onTasksChanged(List<TaskChange> batch) {
+        if (firstTask == null) {
+            firstTask = batch.get(0).getTask();
+        }
+        changes += batch.size();
+    }
+}
@@ -0,0 +1,37 @@
+package usagi.exception;
+
+/**
+ * Thrown when a command in a batch fails, after the changes made by the earlier commands of the
+ * batch have been rolled back.
+ */
+public class BatchException extends UsagiException {
+    private final int position;
+    private final String command;
+
+    /**
+     * Creates an exception for a failed command of a batch.
+     *
+     * @param position Position of the failed command in the batch, starting at 1.
+     * @param command Text of the failed command.
+     * @param cause Error the command failed with.
+     */
+    public BatchException(int position, String command, UsagiException cause) {
+        super(cause.getMessage());
+        initCause(cause);
+        this.position = position;
+        this.command = command;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    @Override
+    public synchronized UsagiException getCause() {
+        return (UsagiException) super.getCause();
+    }
+}
@@ -0,0 +1,187 @@
+package usagi.parser;
+
+/**
+ * Scans a command once and records the offsets of its parts, so the parser can validate a command
+ * and read numbers without creating intermediate strings or arrays. Strings are only created, via
+ * {@link #text(int, int)}, for values that end up stored in a task.
+ *
+ * <p>A lexer holds no per-command objects and can be reused for any number of commands.</p>
+ */
+public class CommandLexer {
+
+    /** Offset reported for a part that does not occur in the command. */
+    public static final int NOT_FOUND = -1;
+
+    private static final String MARKER_BY = "/by";
+    private static final String MARKER_FROM = "/from";
+    private static final String MARKER_TO = "/to";
+    private static final String MARKER_EVERY = "/every";
+
+    private CharSequence input;
+    private int firstSpace;
+    private int byIndex;
+    private int fromIndex;
+    private int toIndex;
+    private int everyIndex;
+
+    /**
+     * Scans the given command, replacing the results of any previous scan.
+     *
+     * @param input Command to scan.
+     * @return This lexer, for chaining.
+     */
+    public CommandLexer scan(CharSequence input) {
+        this.input = input;
+        this.firstSpace = NOT_FOUND;
+        this.byIndex = NOT_FOUND;
+        this.fromIndex = NOT_FOUND;
+        this.toIndex = NOT_FOUND;
+        this.everyIndex = NOT_FOUND;
+
+        int length = input.length();
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (c == ' ' && firstSpace == NOT_FOUND) {
+                firstSpace = i;
+            } else if (c == '/') {
+                recordMarker(i);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the length of the scanned command.
+     */
+    public int length() {
+        return input.length();
+    }
+
+    /**
+     * Returns the offset of the first space, which ends the command word, or {@link #NOT_FOUND}.
+     */
+    public int firstSpace() {
+        return firstSpace;
+    }
+
+    /**
+     * Returns the offset of the first {@code /by}, or {@link #NOT_FOUND}.
+     */
+    public int byIndex() {
+        return byIndex;
+    }
+
+    /**
+     * Returns the offset of the first {@code /from}, or {@link #NOT_FOUND}.
+     */
+    public int fromIndex() {
+        return fromIndex;
+    }
+
+    /**
+     * Returns the offset of the first {@code /to} after the first {@code /from}, or {@link #NOT_FOUND}.
+     */
+    public int toIndex() {
+        return toIndex;
+    }
+
+    /**
+     * Returns the offset of the last {@code /every}, or {@link #NOT_FOUND}.
+     */
+    public int everyIndex() {
+        return everyIndex;
+    }
+
+    /**
+     * Returns the first offset in {@code [from, to)} that is not whitespace, as {@link String#trim()} defines it.
+     *
+     * @param from Inclusive start of the range.
+     * @param to Exclusive end of the range.
+     * @return Offset of the first non-whitespace character, or {@code to} if there is none.
+     */
+    public int trimStart(int from, int to) {
+        while (from < to && input.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Returns the offset just past the last character in {@code [from, to)} that is not whitespace.
+     *
+     * @param from Inclusive start of the range.
+     * @param to Exclusive end of the range.
+     * @return Offset after the last non-whitespace character, or {@code from} if there is none.
+     */
+    public int trimEnd(int from, int to) {
+        while (to > from && input.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Returns whether {@code [from, to)} holds only whitespace.
+     *
+     * @param from Inclusive start of the range.
+     * @param to Exclusive end of the range.
+     * @return True if the range is empty after trimming.
+     */
+    public boolean isBlank(int from, int to) {
+        return trimStart(from, to) >= to;
+    }
+
+    /**
+     * Returns the trimmed text of {@code [from, to)} as a new string.
+     *
+     * @param from Inclusive start of the range.
+     * @param to Exclusive end of the range.
+     * @return Trimmed text of the range.
+     */
+    public String text(int from, int to) {
+        int start = trimStart(from, to);
+        int end = trimEnd(start, to);
+        return input.subSequence(start, end).toString();
+    }
+
+    /**
+     * Parses {@code [from, to)} as a decimal integer without creating a substring.
+     * Accepts exactly what {@link Integer#parseInt(String)} accepts.
+     *
+     * @param from Inclusive start of the range.
+     * @param to Exclusive end of the range.
+     * @return The parsed integer.
+     * @throws NumberFormatException If the range is not a valid integer.
+     */
+    public int parseInt(int from, int to) throws NumberFormatException {
+        return Integer.parseInt(input, from, to, 10);
+    }
+
+    private void recordMarker(int i) {
+        if (startsWith(i, MARKER_EVERY)) {
+            everyIndex = i;
+        }
+        if (byIndex == NOT_FOUND && startsWith(i, MARKER_BY)) {
+            byIndex = i;
+        }
+        if (fromIndex == NOT_FOUND) {
+            if (startsWith(i, MARKER_FROM)) {
+                fromIndex = i;
+            }
+        } else if (toIndex == NOT_FOUND && i >= fromIndex + MARKER_FROM.length() && startsWith(i, MARKER_TO)) {
+            toIndex = i;
+        }
+    }
+
+    private boolean startsWith(int offset, String marker) {
+        if (offset + marker.length() > input.length()) {
+            return false;
+        }
+        for (int k = 0; k < marker.length(); k++) {
+            if (input.charAt(offset + k) != marker.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,13 +1,37 @@
 package usagi.parser;
 
 import usagi.exception.*;
+import usagi.query.Query;
+import usagi.query.TagFilter;
+import usagi.storage.TaskArchive;
+import usagi.storage.TaskExchange;
 import usagi.task.Deadline;
 import usagi.task.Event;
+import usagi.task.KeywordSearch;
+import usagi.task.Priority;
+import usagi.task.Recurrence;
 import usagi.task.Task;
 import usagi.task.TaskList;
 import usagi.task.Todo;
+import usagi.task.UndoHistory;
 import usagi.ui.Ui;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * Parses user input commands and executes corresponding operations on tasks.
  * Handles various command types including task creation, marking, deletion, listing, and searching.
@@ -18,6 +42,7 @@ public class Parser {
     private static final String CMD_HI = "hi";
     private static final String CMD_BYE = "bye";
     private static final String CMD_LIST = "list";
+    private static final String CMD_LIST_WITH_OPTIONS = "list ";
     private static final String CMD_MARK = "mark ";
     private static final String CMD_UNMARK = "unmark ";
     private static final String CMD_TODO = "todo ";
@@ -25,24 +50,46 @@ public class Parser {
     private static final String CMD_EVENT = "event ";
     private static final String CMD_DELETE = "delete ";
     private static final String CMD_FIND = "find ";
+    private static final String CMD_IMPORT = "import ";
+    private static final String CMD_EXPORT = "export ";
+    private static final String CMD_UNDO = "undo";
+    private static final String CMD_REDO = "redo";
+    private static final String CMD_ARCHIVE = "archive ";
+    private static final String ARCHIVE_LIST = "list";
+    private static final String ARCHIVE_FIND = "find ";
+    private static final String CMD_PRIORITY = "priority ";
+    private static final String CMD_NEXT = "next";
+    private static final String CMD_NEXT_WITH_COUNT = "next ";
+    private static final String PRIORITY_NONE = "none";
+    private static final int DEFAULT_NEXT_COUNT = 5;
+    private static final String CMD_SUMMARY = "summary";
+    private static final String CMD_BEGIN = "begin";
+    private static final String CMD_COMMIT = "commit";
+    private static final String CMD_ROLLBACK = "rollback";
+    private static final String BATCH_SEPARATORS = ";|\\R";
+    private static final String CMD_SWITCH = "switch";
+    private static final Pattern LIST_NAME = Pattern.compile("[a-z0-9_-]{1,64}");
 
     // Magic number constants
     private static final int TODO_PREFIX_LENGTH = 5;
     private static final int FIND_PREFIX_LENGTH = 5;
     private static final int EVENT_PREFIX_LENGTH = 6;
     private static final int DEADLINE_PREFIX_LENGTH = 9;
-    private static final int SPLIT_LIMIT = 2;
     private static final int TASK_INDEX_OFFSET = 1;
-    private static final int MIN_PARTS_REQUIRED = 2;
 
     // Format constants
     private static final String DELIMITER_BY = "/by";
     private static final String DELIMITER_FROM = "/from";
     private static final String DELIMITER_TO = "/to";
+    private static final String DELIMITER_EVERY = "/every";
+    private static final String OPTION_SORT_DUE = "--sort due";
+    private static final String OPTION_BEFORE = "--before";
+
+    // Reused per thread so that scanning a command allocates nothing
+    private static final ThreadLocal<CommandLexer> LEXER = ThreadLocal.withInitial(CommandLexer::new);
 
     /**
-     * Interprets and executes the given user command.
-     * Supports commands: hi, bye, list, mark, unmark, todo, deadline, event, delete, find.
+     * Interprets and executes the given user command, without access to archived tasks.
      *
      * @param input User input command string.
      * @param ui User interface for displaying messages.
@@ -50,11 +97,29 @@ public class Parser {
      * @throws UsagiException If the command is invalid or malformed.
      */
     public static void interpretCommand(String input, Ui ui, TaskList tasks) throws UsagiException {
+        interpretCommand(input, ui, tasks, null);
+    }
+
+    /**
+     * Interprets and executes the given user command.
+     * Supports commands: hi, bye, list, mark, unmark, todo, deadline, event, delete, find, undo, redo,
+     * import, export, archive, priority, next, summary. Switch is handled by the application, as it
+     * changes the task list itself.
+     *
+     * @param input User input command string.
+     * @param ui User interface for displaying messages.
+     * @param tasks Task list to operate on.
+     * @param archive Archive of completed tasks read by the archive commands. Can be null.
+     * @throws UsagiException If the command is invalid or malformed.
+     */
+    public static void interpretCommand(String input, Ui ui, TaskList tasks, TaskArchive archive)
+            throws UsagiException {
         assert input != null : "Input cannot be null";
         assert ui != null : "UI cannot be null";
         assert tasks != null : "TaskList cannot be null";
 
-        if (input.trim().isEmpty()) {
+        CommandLexer lexer = LEXER.get().scan(input);
+        if (lexer.isBlank(0, lexer.length())) {
             return; // Guard clause for empty input
         }
 
@@ -64,21 +129,125 @@ public class Parser {
             ui.endConvo();
         } else if (input.equalsIgnoreCase(CMD_LIST)) {
             ui.displayTaskList(tasks);
+        } else if (input.startsWith(CMD_LIST_WITH_OPTIONS)) {
+            handleListOptions(ui, tasks, input);
         } else if (input.startsWith(CMD_MARK)) {
-            handleMarkCommand(ui, tasks, input, true);
+            handleMarkCommand(ui, tasks, lexer, true);
         } else if (input.startsWith(CMD_UNMARK)) {
-            handleMarkCommand(ui, tasks, input, false);
+            handleMarkCommand(ui, tasks, lexer, false);
         } else if (isTaskCreationCommand(input)) {
-            handleTaskCreation(input, ui, tasks);
+            handleTaskCreation(input, lexer, ui, tasks);
         } else if (input.startsWith(CMD_DELETE)) {
-            deleteTask(ui, tasks, input);
+            deleteTask(ui, tasks, lexer);
         } else if (input.startsWith(CMD_FIND)) {
-            findTasks(ui, tasks, input);
+            findTasks(ui, tasks, lexer);
+        } else if (input.startsWith(CMD_IMPORT)) {
+            importTasks(ui, tasks, input);
+        } else if (input.startsWith(CMD_EXPORT)) {
+            exportTasks(ui, tasks, input);
+        } else if (input.equalsIgnoreCase(CMD_UNDO)) {
+            undoLastCommand(ui, tasks);
+        } else if (input.equalsIgnoreCase(CMD_REDO)) {
+            redoLastCommand(ui, tasks);
+        } else if (input.startsWith(CMD_ARCHIVE)) {
+            handleArchiveCommand(ui, archive, input);
+        } else if (input.startsWith(CMD_PRIORITY)) {
+            setTaskPriority(ui, tasks, input);
+        } else if (input.equalsIgnoreCase(CMD_NEXT) || input.startsWith(CMD_NEXT_WITH_COUNT)) {
+            showNextTasks(ui, tasks, input);
+        } else if (input.equalsIgnoreCase(CMD_SUMMARY)) {
+            showSummary(ui, tasks);
+        } else if (isSwitchCommand(input)) {
+            throw new UsagiException("Please type switch on its own, outside a batch or block.");
         } else {
             throw new InvalidCommandException();
         }
     }
 
+    /**
+     * Splits input into the commands of a batch, which are separated by semicolons or line breaks.
+     *
+     * @param input User input, holding one or more commands.
+     * @return The commands in order, trimmed, without empty ones.
+     */
+    public static List<String> splitBatch(String input) {
+        List<String> commands = new ArrayList<>();
+        for (String command : input.split(BATCH_SEPARATORS)) {
+            if (!command.isBlank()) {
+                commands.add(command.trim());
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Returns whether the command opens a block of commands that run together on {@code commit}.
+     */
+    public static boolean isBeginCommand(String command) {
+        return command.equalsIgnoreCase(CMD_BEGIN);
+    }
+
+    /**
+     * Returns whether the command runs the commands of the open block.
+     */
+    public static boolean isCommitCommand(String command) {
+        return command.equalsIgnoreCase(CMD_COMMIT);
+    }
+
+    /**
+     * Returns whether the command discards the commands of the open block.
+     */
+    public static boolean isRollbackCommand(String command) {
+        return command.equalsIgnoreCase(CMD_ROLLBACK);
+    }
+
+    /**
+     * Returns whether the command switches to another task list.
+     */
+    public static boolean isSwitchCommand(String command) {
+        return command.equalsIgnoreCase(CMD_SWITCH) || command.regionMatches(true, 0, CMD_SWITCH + " ", 0,
+                CMD_SWITCH.length() + 1);
+    }
+
+    /**
+     * Returns the name of the task list a switch command selects.
+     *
+     * @param command Command in format "switch <name>".
+     * @return Name of the list, in lower case.
+     * @throws UsagiException If the name is missing or holds characters other than letters, digits,
+     *     '-' and '_'.
+     */
+    public static String parseListName(String command) throws UsagiException {
+        String name = command.substring(CMD_SWITCH.length()).trim().toLowerCase(Locale.ROOT);
+        if (!LIST_NAME.matcher(name).matches()) {
+            throw new InvalidFormatException("switch <name>, where the name has only letters, digits, - and _");
+        }
+        return name;
+    }
+
+    /**
+     * Returns the key under which the response to a command may be cached, or null if the command
+     * may change the list or its response depends on more than the list, such as today's date.
+     * Cacheable commands are {@code list}, {@code list #tag} filters and {@code find}; inputs that
+     * produce the same response map to the same key.
+     *
+     * @param input User input command string.
+     * @return Normalized command text, or null if the response must not be cached.
+     */
+    public static String getResponseCacheKey(String input) {
+        if (input.equalsIgnoreCase(CMD_LIST)) {
+            return CMD_LIST;
+        }
+        if (input.startsWith(CMD_LIST_WITH_OPTIONS)) {
+            String options = input.substring(CMD_LIST_WITH_OPTIONS.length()).trim();
+            return TagFilter.isTagFilter(options) ? CMD_LIST_WITH_OPTIONS + options : null;
+        }
+        if (input.startsWith(CMD_FIND)) {
+            return input.stripTrailing();
+        }
+        return null;
+    }
+
     /**
      * Checks if the input is a task creation command (todo, deadline, event).
      *
@@ -95,47 +264,69 @@ public class Parser {
      * Routes task creation to the appropriate handler based on command type.
      *
      * @param input User input command string
+     * @param lexer Lexer that has scanned the input
      * @param ui User interface for displaying messages
      * @param tasks Task list to add the task to
      * @throws UsagiException If task creation fails
      */
-    private static void handleTaskCreation(String input, Ui ui, TaskList tasks) throws UsagiException {
+    private static void handleTaskCreation(String input, CommandLexer lexer, Ui ui, TaskList tasks)
+            throws UsagiException {
         if (input.equals(CMD_TODO.trim()) || input.startsWith(CMD_TODO)) {
-            addTodoTask(ui, tasks, input);
+            addTodoTask(ui, tasks, lexer);
         } else if (input.equals(CMD_DEADLINE.trim()) || input.startsWith(CMD_DEADLINE)) {
-            addDeadlineTask(ui, tasks, input);
+            addDeadlineTask(ui, tasks, lexer);
         } else if (input.equals(CMD_EVENT.trim()) || input.startsWith(CMD_EVENT)) {
-            addEventTask(ui, tasks, input);
+            addEventTask(ui, tasks, lexer);
         }
     }
 
     /**
-     * Searches for tasks containing the specified keyword in their description.
+     * Displays deadlines and events in date order, optionally limited to those before a given date,
+     * or the tasks matching a tag filter such as {@code #work AND NOT #done}.
+     * Date views are answered from the list's date index and tag filters from its tag bitmaps,
+     * instead of scanning the whole list.
      *
      * @param ui User interface for displaying messages.
-     * @param tasks Task list to search through.
-     * @param input Command string in format "find <keyword>".
-     * @throws UsagiException If the keyword is empty.
+     * @param tasks Task list to display.
+     * @param input Command string in format "list --sort due", "list --before yyyy-MM-dd" or "list #tag".
+     * @throws UsagiException If the option is not recognised, or the date or filter is invalid.
      */
-    private static void findTasks(Ui ui, TaskList tasks, String input) throws UsagiException {
-        String keyword = extractKeyword(input);
-        TaskList matchingTasks = searchTasksForKeyword(tasks, keyword);
-        ui.displaySearchResults(matchingTasks, keyword);
+    private static void handleListOptions(Ui ui, TaskList tasks, String input) throws UsagiException {
+        String options = input.substring(CMD_LIST_WITH_OPTIONS.length()).trim();
+
+        if (TagFilter.isTagFilter(options)) {
+            ui.displayTasksTagged(tasks, TagFilter.parse(options).execute(tasks), options);
+        } else if (options.equalsIgnoreCase(OPTION_SORT_DUE)) {
+            ui.displayTasksByDate(tasks, tasks.getDateIndex().ordered(LocalDate.now()));
+        } else if (options.startsWith(OPTION_BEFORE)) {
+            String dateText = options.substring(OPTION_BEFORE.length()).trim();
+            try {
+                LocalDate date = LocalDate.parse(dateText);
+                ui.displayTasksBefore(tasks, tasks.getDateIndex().before(date, LocalDate.now()), date);
+            } catch (DateTimeParseException e) {
+                throw new InvalidFormatException("list --before <yyyy-MM-dd>");
+            }
+        } else {
+            throw new InvalidFormatException("list, list --sort due, list --before <yyyy-MM-dd> or list #tag");
+        }
     }
 
     /**
-     * Extracts the search keyword from the find command input.
+     * Searches for tasks containing the specified keyword in their description.
+     * Input using query syntax, e.g. {@code find type:D done:false "book" OR meeting}, is run as a
+     * structured query answered from the task list's indexes.
      *
-     * @param input Command string in format "find <keyword>"
-     * @return The extracted keyword for searching
-     * @throws UsagiException If the keyword is empty
+     * @param ui User interface for displaying messages.
+     * @param tasks Task list to search through.
+     * @param lexer Lexer that has scanned a command in format "find <keyword>" or "find <query>".
+     * @throws UsagiException If the keyword is empty or the query is malformed.
      */
-    private static String extractKeyword(String input) throws UsagiException {
-        String keyword = input.substring(FIND_PREFIX_LENGTH).trim();
-        if (keyword.isEmpty()) {
-            throw new EmptyDescriptionException("find");
-        }
-        return keyword;
+    private static void findTasks(Ui ui, TaskList tasks, CommandLexer lexer) throws UsagiException {
+        String keyword = extractDescription(lexer, FIND_PREFIX_LENGTH, "find");
+        List<Task> matchingTasks = Query.isQuery(keyword)
+                ? Query.parse(keyword).execute(tasks)
+                : searchTasksForKeyword(tasks, keyword);
+        ui.displaySearchResults(tasks, matchingTasks, keyword);
     }
 
     /**
@@ -143,22 +334,46 @@ public class Parser {
      *
      * @param tasks Task list to search through
      * @param keyword Keyword to search for (case-insensitive)
-     * @return TaskList containing all matching tasks
+     * @return All matching tasks, in list order
      */
-    private static TaskList searchTasksForKeyword(TaskList tasks, String keyword) {
-        TaskList matchingTasks = new TaskList();
-        String lowerKeyword = keyword.toLowerCase();
-
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            String taskDescription = task.getFullDescription().toLowerCase();
+    private static List<Task> searchTasksForKeyword(TaskList tasks, String keyword) {
+        return new KeywordSearch(keyword).search(tasks);
+    }
 
-            if (taskDescription.contains(lowerKeyword)) {
-                matchingTasks.add(task);
-            }
+    /**
+     * Lists or searches the archived tasks, reading the archive as a stream.
+     *
+     * @param ui User interface for displaying messages
+     * @param archive Archive to read, or null if there is none
+     * @param input Command in format "archive list" or "archive find <keyword>"
+     * @throws UsagiException If the command is malformed or the archive cannot be read
+     */
+    private static void handleArchiveCommand(Ui ui, TaskArchive archive, String input) throws UsagiException {
+        String options = input.substring(CMD_ARCHIVE.length()).trim();
+        String keyword;
+        if (options.equals(ARCHIVE_LIST)) {
+            keyword = null;
+        } else if (options.startsWith(ARCHIVE_FIND)) {
+            keyword = options.substring(ARCHIVE_FIND.length()).trim();
+        } else {
+            throw new InvalidFormatException("archive list or archive find <keyword>");
+        }
+        if (keyword != null && keyword.isEmpty()) {
+            throw new EmptyDescriptionException("archive find");
+        }
+        if (archive == null) {
+            throw new UsagiException("There is no archive of completed tasks.");
         }
 
-        return matchingTasks;
+        KeywordSearch search = new KeywordSearch(keyword == null ? "" : keyword);
+        try (Stream<Task> archived = archive.stream()) {
+            List<Task> matchingTasks = archived
+                    .filter(search::matches)
+                    .collect(Collectors.toList());
+            ui.displayArchivedTasks(matchingTasks, keyword);
+        } catch (IOException | UncheckedIOException e) {
+            throw new UsagiException("Could not read the archive: " + e.getMessage());
+        }
     }
 
     /**
@@ -166,11 +381,11 @@ public class Parser {
      *
      * @param ui User interface for displaying messages.
      * @param tasks Task list to add the task to.
-     * @param input Command string in format "todo <description>".
+     * @param lexer Lexer that has scanned a command in format "todo <description>".
      * @throws UsagiException If the description is empty.
      */
-    private static void addTodoTask(Ui ui, TaskList tasks, String input) throws UsagiException {
-        String description = extractDescription(input, TODO_PREFIX_LENGTH, "todo");
+    private static void addTodoTask(Ui ui, TaskList tasks, CommandLexer lexer) throws UsagiException {
+        String description = extractDescription(lexer, TODO_PREFIX_LENGTH, "todo");
         Task task = new Todo(description);
 
         if (checkDuplicate(task, tasks)) {
@@ -186,21 +401,25 @@ public class Parser {
      *
      * @param ui User interface for displaying messages.
      * @param tasks Task list to add the task to.
-     * @param input Command string in format "deadline <description> /by <time>".
+     * @param lexer Lexer that has scanned a command in format "deadline <description> /by <time>",
+     *     optionally followed by "/every <day|week|month>".
      * @throws UsagiException If the format is invalid or description/time is empty.
      */
-    private static void addDeadlineTask(Ui ui, TaskList tasks, String input) throws UsagiException {
-        String withoutPrefix = extractDescription(input, DEADLINE_PREFIX_LENGTH, "deadline");
-        String[] parts = withoutPrefix.split(DELIMITER_BY, SPLIT_LIMIT);
+    private static void addDeadlineTask(Ui ui, TaskList tasks, CommandLexer lexer) throws UsagiException {
+        int end = requireDescription(lexer, DEADLINE_PREFIX_LENGTH, "deadline");
+        int by = lexer.byIndex();
 
-        validateDeadlineFormat(parts);
+        validateDeadlineFormat(by);
 
-        String description = parts[0].trim();
-        String dueDate = parts[1].trim();
+        int every = lexer.everyIndex() > by ? lexer.everyIndex() : CommandLexer.NOT_FOUND;
+        String description = lexer.text(DEADLINE_PREFIX_LENGTH, by);
+        String dueDate = lexer.text(by + DELIMITER_BY.length(), every == CommandLexer.NOT_FOUND ? end : every);
 
         validateDeadlineContent(description, dueDate);
 
-        Task task = new Deadline(description, dueDate);
+        Recurrence recurrence = parseRecurrence(lexer, every, end,
+                "deadline <description> /by <time> /every <day|week|month>");
+        Task task = new Deadline(description, dueDate, recurrence);
 
         if (checkDuplicate(task, tasks)) {
             throw new DuplicateException("You already have this task in your task list!");
@@ -211,13 +430,13 @@ public class Parser {
     }
 
     /**
-     * Validates the format of deadline command parts.
+     * Validates the format of a deadline command.
      *
-     * @param parts Array of command parts after splitting by "/by"
+     * @param byIndex Offset of the "/by" delimiter, or {@link CommandLexer#NOT_FOUND}
      * @throws InvalidFormatException If the format is invalid
      */
-    private static void validateDeadlineFormat(String[] parts) throws InvalidFormatException {
-        if (parts.length < MIN_PARTS_REQUIRED) {
+    private static void validateDeadlineFormat(int byIndex) throws InvalidFormatException {
+        if (byIndex == CommandLexer.NOT_FOUND) {
             throw new InvalidFormatException("deadline <description> /by <time>");
         }
     }
@@ -243,26 +462,30 @@ public class Parser {
      *
      * @param ui User interface for displaying messages.
      * @param tasks Task list to add the task to.
-     * @param input Command string in format "event <description> /from <start> /to <end>".
+     * @param lexer Lexer that has scanned a command in format "event <description> /from <start> /to <end>",
+     *     optionally followed by "/every <day|week|month>".
      * @throws UsagiException If the format is invalid or any field is empty.
      */
-    private static void addEventTask(Ui ui, TaskList tasks, String input) throws UsagiException {
-        String withoutPrefix = extractDescription(input, EVENT_PREFIX_LENGTH, "event");
-        String[] parts = withoutPrefix.split(DELIMITER_FROM, SPLIT_LIMIT);
+    private static void addEventTask(Ui ui, TaskList tasks, CommandLexer lexer) throws UsagiException {
+        int end = requireDescription(lexer, EVENT_PREFIX_LENGTH, "event");
+        int fromIndex = lexer.fromIndex();
 
-        validateEventFormatStep1(parts);
+        validateEventFormatStep1(fromIndex);
 
-        String description = parts[0].trim();
-        String[] timeParts = parts[1].split(DELIMITER_TO, SPLIT_LIMIT);
+        String description = lexer.text(EVENT_PREFIX_LENGTH, fromIndex);
+        int toIndex = lexer.toIndex();
 
-        validateEventFormatStep2(timeParts);
+        validateEventFormatStep2(toIndex);
 
-        String from = timeParts[0].trim();
-        String to = timeParts[1].trim();
+        int every = lexer.everyIndex() > toIndex ? lexer.everyIndex() : CommandLexer.NOT_FOUND;
+        String from = lexer.text(fromIndex + DELIMITER_FROM.length(), toIndex);
+        String to = lexer.text(toIndex + DELIMITER_TO.length(), every == CommandLexer.NOT_FOUND ? end : every);
 
         validateEventContent(description, from, to);
 
-        Task task = new Event(description, from, to);
+        Recurrence recurrence = parseRecurrence(lexer, every, end,
+                "event <description> /from <start> /to <end> /every <day|week|month>");
+        Task task = new Event(description, from, to, recurrence);
 
         if (checkDuplicate(task, tasks)) {
             throw new DuplicateException("You already have this task in your task list!");
@@ -275,11 +498,11 @@ public class Parser {
     /**
      * Validates the first step of event command format (checking /from delimiter).
      *
-     * @param parts Array of command parts after splitting by "/from"
+     * @param fromIndex Offset of the "/from" delimiter, or {@link CommandLexer#NOT_FOUND}
      * @throws InvalidFormatException If the format is invalid
      */
-    private static void validateEventFormatStep1(String[] parts) throws InvalidFormatException {
-        if (parts.length < MIN_PARTS_REQUIRED) {
+    private static void validateEventFormatStep1(int fromIndex) throws InvalidFormatException {
+        if (fromIndex == CommandLexer.NOT_FOUND) {
             throw new InvalidFormatException("event <description> /from <start> /to <end>");
         }
     }
@@ -287,11 +510,11 @@ public class Parser {
     /**
      * Validates the second step of event command format (checking /to delimiter).
      *
-     * @param timeParts Array of time parts after splitting by "/to"
+     * @param toIndex Offset of the "/to" delimiter after "/from", or {@link CommandLexer#NOT_FOUND}
      * @throws InvalidFormatException If the format is invalid
      */
-    private static void validateEventFormatStep2(String[] timeParts) throws InvalidFormatException {
-        if (timeParts.length < MIN_PARTS_REQUIRED) {
+    private static void validateEventFormatStep2(int toIndex) throws InvalidFormatException {
+        if (toIndex == CommandLexer.NOT_FOUND) {
             throw new InvalidFormatException("event <description> /from <start> /to <end>");
         }
     }
@@ -313,31 +536,60 @@ public class Parser {
         }
     }
 
+    /**
+     * Parses the repeat rule that follows "/every", if the command has one.
+     *
+     * @param lexer Lexer that has scanned the full command input
+     * @param every Offset of the "/every" delimiter, or {@link CommandLexer#NOT_FOUND}
+     * @param end Offset just past the last non-blank character of the command
+     * @param usage Expected format, for the error message
+     * @return The repeat rule, or null if the command does not repeat
+     * @throws InvalidFormatException If the rule is missing or unknown
+     */
+    private static Recurrence parseRecurrence(CommandLexer lexer, int every, int end, String usage)
+            throws InvalidFormatException {
+        if (every == CommandLexer.NOT_FOUND) {
+            return null;
+        }
+        Recurrence recurrence = Recurrence.of(lexer.text(every + DELIMITER_EVERY.length(), end));
+        if (recurrence == null) {
+            throw new InvalidFormatException(usage);
+        }
+        return recurrence;
+    }
+
     /**
      * Extracts description from command input after removing the command prefix.
      * Handles cases where user types just the command without space or description.
      *
-     * @param input Full command input string
+     * @param lexer Lexer that has scanned the full command input
      * @param prefixLength Length of the command prefix to remove
      * @param commandType Type of command for error messages
      * @return Extracted description string
      * @throws UsagiException If description is empty
      */
-    private static String extractDescription(String input, int prefixLength, String commandType) throws UsagiException {
-        String description;
+    private static String extractDescription(CommandLexer lexer, int prefixLength, String commandType)
+            throws UsagiException {
+        int end = requireDescription(lexer, prefixLength, commandType);
+        return lexer.text(prefixLength, end);
+    }
 
+    /**
+     * Checks that the command has text after its prefix, without creating a string for it.
+     *
+     * @param lexer Lexer that has scanned the full command input
+     * @param prefixLength Length of the command prefix
+     * @param commandType Type of command for error messages
+     * @return Offset just past the last non-blank character of the command
+     * @throws UsagiException If there is no text after the prefix
+     */
+    private static int requireDescription(CommandLexer lexer, int prefixLength, String commandType)
+            throws UsagiException {
         // Handle case where input is exactly the command (e.g., "todo", "deadline", "event")
-        if (input.length() <= prefixLength) {
-            description = "";
-        } else {
-            description = input.substring(prefixLength).trim();
-        }
-
-        if (description.isEmpty()) {
+        if (lexer.length() <= prefixLength || lexer.isBlank(prefixLength, lexer.length())) {
             throw new EmptyDescriptionException(commandType);
         }
-
-        return description;
+        return lexer.trimEnd(prefixLength, lexer.length());
     }
 
     /**
@@ -346,9 +598,15 @@ public class Parser {
      * @param ui User interface for displaying messages
      * @param tasks Task list to add the task to
      * @param task Task object to add
+     * @throws UsagiException If the task's description is too long to be saved.
      */
-    private static void addTaskToList(Ui ui, TaskList tasks, Task task) {
+    private static void addTaskToList(Ui ui, TaskList tasks, Task task) throws UsagiException {
+        if (task.getDescription().length() > Task.MAX_DESCRIPTION_LENGTH) {
+            throw new UsagiException("A task description can be at most " + Task.MAX_DESCRIPTION_LENGTH
+                    + " characters long.");
+        }
         tasks.add(task);
+        tasks.getHistory().recordAdd(tasks.size() - 1, task);
         ui.displayTaskAdded(tasks, task);
     }
 
@@ -357,16 +615,16 @@ public class Parser {
      *
      * @param ui User interface for displaying messages.
      * @param tasks Task list containing the task to mark/unmark.
-     * @param input Command string in format "mark/unmark <task-number>".
+     * @param lexer Lexer that has scanned a command in format "mark/unmark <task-number>".
      * @param markAsDone True to mark as done, false to mark as not done.
      * @throws UsagiException If the format is invalid or task number is out of range.
      */
-    private static void handleMarkCommand(Ui ui, TaskList tasks, String input, boolean markAsDone)
+    private static void handleMarkCommand(Ui ui, TaskList tasks, CommandLexer lexer, boolean markAsDone)
             throws UsagiException {
         try {
-            int taskNumber = parseTaskNumber(input, getCommandName(markAsDone));
-            Task task = getTaskByNumber(tasks, taskNumber);
-            updateTaskStatus(ui, task, markAsDone);
+            int taskNumber = parseTaskNumber(lexer, getCommandName(markAsDone));
+            getTaskByNumber(tasks, taskNumber);
+            updateTaskStatus(ui, tasks, taskNumber, markAsDone);
         } catch (NumberFormatException e) {
             String commandName = getCommandName(markAsDone);
             throw new InvalidFormatException(commandName + " <task-number> (must be a number)");
@@ -378,13 +636,15 @@ public class Parser {
      *
      * @param ui User interface for displaying messages.
      * @param tasks Task list to remove the task from.
-     * @param input Command string in format "delete <task-number>".
+     * @param lexer Lexer that has scanned a command in format "delete <task-number>".
      * @throws UsagiException If the format is invalid or task number is out of range.
      */
-    private static void deleteTask(Ui ui, TaskList tasks, String input) throws UsagiException {
+    private static void deleteTask(Ui ui, TaskList tasks, CommandLexer lexer) throws UsagiException {
         try {
-            int taskNumber = parseTaskNumber(input, "delete");
+            int taskNumber = parseTaskNumber(lexer, "delete");
+            getTaskByNumber(tasks, taskNumber);
             Task task = tasks.remove(taskNumber);
+            tasks.getHistory().recordDelete(taskNumber, task);
             ui.displayTaskDeleted(tasks, task);
         } catch (NumberFormatException e) {
             throw new InvalidFormatException("delete <task-number> (must be a number)");
@@ -392,21 +652,95 @@ public class Parser {
     }
 
     /**
-     * Parses and validates the task number from command input.
+     * Sets or removes the priority of a task.
      *
-     * @param input Full command input string
+     * @param ui User interface for displaying messages.
+     * @param tasks Task list holding the task.
+     * @param input Command in format "priority <task-number> <high|medium|low|none>".
+     * @throws UsagiException If the format is invalid or task number is out of range.
+     */
+    private static void setTaskPriority(Ui ui, TaskList tasks, String input) throws UsagiException {
+        String usage = "priority <task-number> <high|medium|low|none>";
+        String[] parts = input.substring(CMD_PRIORITY.length()).trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new InvalidFormatException(usage);
+        }
+        Priority priority = Priority.of(parts[1]);
+        if (priority == null && !parts[1].equalsIgnoreCase(PRIORITY_NONE)) {
+            throw new InvalidFormatException(usage);
+        }
+
+        int taskNumber;
+        try {
+            taskNumber = Integer.parseInt(parts[0]) - TASK_INDEX_OFFSET;
+        } catch (NumberFormatException e) {
+            throw new InvalidFormatException(usage);
+        }
+        Priority before = getTaskByNumber(tasks, taskNumber).getPriority();
+        Task task = tasks.setPriority(taskNumber, priority);
+        tasks.getHistory().recordPriorityChange(taskNumber, task, before);
+        ui.displayPriority(task);
+    }
+
+    /**
+     * Displays the most urgent open tasks, answered from the list's urgency index.
+     *
+     * @param ui User interface for displaying messages.
+     * @param tasks Task list to rank.
+     * @param input Command in format "next" or "next <count>".
+     * @throws UsagiException If the count is not a positive number.
+     */
+    private static void showNextTasks(Ui ui, TaskList tasks, String input) throws UsagiException {
+        int count = DEFAULT_NEXT_COUNT;
+        if (input.length() > CMD_NEXT.length()) {
+            try {
+                count = Integer.parseInt(input.substring(CMD_NEXT_WITH_COUNT.length()).trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidFormatException("next [count]");
+            }
+            if (count <= 0) {
+                throw new InvalidFormatException("next [count] (count must be positive)");
+            }
+        }
+        ui.displayNextTasks(tasks, tasks.getUrgencyIndex().next(count, LocalDate.now()));
+    }
+
+    /**
+     * Displays how many tasks there are of each type and status, how many deadlines are overdue and
+     * how many events happen this week. Counts come from the list's running counters, and events
+     * from the date index for this week only.
+     *
+     * @param ui User interface for displaying messages.
+     * @param tasks Task list to summarise.
+     */
+    private static void showSummary(Ui ui, TaskList tasks) {
+        LocalDate today = LocalDate.now();
+        LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        int eventsThisWeek = 0;
+        for (Task task : tasks.getDateIndex().between(monday.atStartOfDay(), monday.plusWeeks(1).atStartOfDay())) {
+            if (task instanceof Event && !task.isDone()) {
+                eventsThisWeek++;
+            }
+        }
+        ui.displaySummary(tasks.getCounters(), tasks.getCounters().getOverdue(today), eventsThisWeek);
+    }
+
+    /**
+     * Parses and validates the task number, everything after the first space, from command input.
+     *
+     * @param lexer Lexer that has scanned the full command input
      * @param commandName Name of the command for error messages
      * @return Zero-based task index
      * @throws UsagiException If format is invalid or parsing fails
      */
-    private static int parseTaskNumber(String input, String commandName) throws UsagiException {
-        String[] parts = input.split(" ", SPLIT_LIMIT);
+    private static int parseTaskNumber(CommandLexer lexer, String commandName) throws UsagiException {
+        int space = lexer.firstSpace();
 
-        if (parts.length < MIN_PARTS_REQUIRED) {
+        if (space == CommandLexer.NOT_FOUND) {
             throw new InvalidFormatException(commandName + " <task-number>");
         }
 
-        int taskNumber = Integer.parseInt(parts[1]) - TASK_INDEX_OFFSET;
+        int taskNumber = lexer.parseInt(space + 1, lexer.length()) - TASK_INDEX_OFFSET;
         return taskNumber;
     }
 
@@ -429,19 +763,113 @@ public class Parser {
      * Updates the completion status of a task and displays appropriate message.
      *
      * @param ui User interface for displaying messages
-     * @param task Task to update
+     * @param tasks Task list containing the task to update
+     * @param taskNumber Zero-based index of the task to update
      * @param markAsDone true to mark as done, false to mark as not done
      */
-    private static void updateTaskStatus(Ui ui, Task task, boolean markAsDone) {
+    private static void updateTaskStatus(Ui ui, TaskList tasks, int taskNumber, boolean markAsDone) {
+        boolean wasDone = tasks.get(taskNumber).isDone();
+        Task task = tasks.setDone(taskNumber, markAsDone);
+        tasks.getHistory().recordStatusChange(taskNumber, task, wasDone);
         if (markAsDone) {
-            task.markAsDone();
             ui.displayMarked(task);
         } else {
-            task.markAsNotDone();
             ui.displayUnmarked(task);
         }
     }
 
+    /**
+     * Imports tasks from a CSV or JSON file, skipping duplicates and invalid records.
+     *
+     * @param ui User interface for displaying messages
+     * @param tasks Task list to add the imported tasks to
+     * @param input Command string in format "import <file.csv|file.json>"
+     * @throws UsagiException If the file type is unsupported or the file cannot be read
+     */
+    private static void importTasks(Ui ui, TaskList tasks, String input) throws UsagiException {
+        Path file = extractExchangeFile(input, CMD_IMPORT, "import");
+        try {
+            TaskExchange.ImportResult result = TaskExchange.importTasks(tasks, file);
+            ui.displayImported(tasks, result.getAdded(), result.getDuplicates(), result.getInvalid());
+        } catch (IOException e) {
+            throw new UsagiException("Could not import from " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exports all tasks to a CSV or JSON file.
+     *
+     * @param ui User interface for displaying messages
+     * @param tasks Task list to export
+     * @param input Command string in format "export <file.csv|file.json>"
+     * @throws UsagiException If the file type is unsupported or the file cannot be written
+     */
+    private static void exportTasks(Ui ui, TaskList tasks, String input) throws UsagiException {
+        Path file = extractExchangeFile(input, CMD_EXPORT, "export");
+        try {
+            int count = TaskExchange.exportTasks(tasks, file);
+            ui.displayExported(count, file.toString());
+        } catch (IOException e) {
+            throw new UsagiException("Could not export to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Extracts the file of an import or export command and checks that its type is supported.
+     *
+     * @param input Full command input string
+     * @param prefix Command prefix to remove
+     * @param commandName Name of the command for error messages
+     * @return Path of the file to import from or export to
+     * @throws UsagiException If the file is missing or not a CSV or JSON file
+     */
+    private static Path extractExchangeFile(String input, String prefix, String commandName)
+            throws UsagiException {
+        String fileName = input.substring(prefix.length()).trim();
+        if (fileName.isEmpty()) {
+            throw new EmptyDescriptionException(commandName);
+        }
+        try {
+            Path file = Paths.get(fileName);
+            if (TaskExchange.Format.of(file) == null) {
+                throw new InvalidFormatException(commandName + " <file.csv> or " + commandName + " <file.json>");
+            }
+            return file;
+        } catch (InvalidPathException e) {
+            throw new InvalidFormatException(commandName + " <file.csv> or " + commandName + " <file.json>");
+        }
+    }
+
+    /**
+     * Reverts the most recent add, delete, mark or unmark command.
+     *
+     * @param ui User interface for displaying messages
+     * @param tasks Task list to revert the command on
+     * @throws UsagiException If there is nothing to undo
+     */
+    private static void undoLastCommand(Ui ui, TaskList tasks) throws UsagiException {
+        UndoHistory history = tasks.getHistory();
+        if (!history.canUndo()) {
+            throw new UsagiException("There is nothing to undo!");
+        }
+        ui.displayUndone(history.undo(tasks));
+    }
+
+    /**
+     * Re-applies the most recently undone command.
+     *
+     * @param ui User interface for displaying messages
+     * @param tasks Task list to re-apply the command on
+     * @throws UsagiException If there is nothing to redo
+     */
+    private static void redoLastCommand(Ui ui, TaskList tasks) throws UsagiException {
+        UndoHistory history = tasks.getHistory();
+        if (!history.canRedo()) {
+            throw new UsagiException("There is nothing to redo!");
+        }
+        ui.displayRedone(history.redo(tasks));
+    }
+
     /**
      * Gets the appropriate command name string based on marking operation.
      *
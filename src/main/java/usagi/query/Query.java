@@ -0,0 +1,303 @@
+package usagi.query;
+
+import usagi.exception.InvalidFormatException;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A structured find query such as {@code type:D done:false due<2025-10-01 "book" OR meeting}.
+ *
+ * <p>Terms next to each other must all match, {@code OR} separates alternatives, and {@code NOT} or a
+ * leading {@code -} negates a term. Parentheses group terms. Supported terms are {@code type:T|D|E},
+ * {@code done:true|false}, {@code due} compared with {@code : < <= > >=} against a {@code yyyy-MM-dd}
+ * date (the due date of deadlines and the start of events), and a quoted phrase or bare word matched
+ * anywhere in the task, as a plain find does. Only the upper-case operators and these field names
+ * make text a query, so a plain find for {@code rock and roll} or {@code 10:30} stays a plain
+ * find.</p>
+ *
+ * <p>Execution picks the most selective term that an index can answer (type, status or date) and
+ * only checks the remaining terms against those candidates. A full scan happens only when no term
+ * is indexable, e.g. a query made of words and phrases.</p>
+ */
+public class Query {
+
+    private static final String USAGE = "find type:<T|D|E> done:<true|false> due<yyyy-MM-dd> \"phrase\" word OR word";
+    private static final Pattern FIELD = Pattern.compile("(type|done|due)(:|<=|>=|<|>)(.*)");
+    private static final Pattern OPERATOR = Pattern.compile("AND|OR|NOT");
+
+    private final QueryNode root;
+
+    private Query(QueryNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns whether the text uses query syntax rather than being a plain keyword.
+     *
+     * @param text Text after the find command.
+     * @return True if a word of the text is {@code AND}, {@code OR}, {@code NOT} or starts with a
+     *     field such as {@code type:}, possibly after an opening parenthesis or a minus sign.
+     */
+    public static boolean isQuery(String text) {
+        for (String word : text.trim().split("\\s+")) {
+            int start = 0;
+            while (start < word.length() && (word.charAt(start) == '(' || word.charAt(start) == '-')) {
+                start++;
+            }
+            String term = word.substring(start);
+            if (OPERATOR.matcher(term).matches() || FIELD.matcher(term).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses query text into a query.
+     *
+     * @param text Query text.
+     * @return The parsed query.
+     * @throws InvalidFormatException If the text is not a valid query.
+     */
+    public static Query parse(String text) throws InvalidFormatException {
+        Parser parser = new Parser(tokenize(text));
+        QueryNode root = parser.parseOr();
+        if (parser.hasNext()) {
+            throw new InvalidFormatException(USAGE);
+        }
+        return new Query(root);
+    }
+
+    /**
+     * Returns the tasks matching this query, in list order.
+     *
+     * @param tasks Task list to search.
+     * @return Matching tasks.
+     */
+    public List<Task> execute(TaskList tasks) {
+        Collection<Task> candidates = root.candidates(tasks);
+        if (candidates != null) {
+            List<Task> matches = new ArrayList<>(candidates);
+            tasks.sortByPosition(matches);
+            return matches;
+        }
+
+        List<Task> matches = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (root.matches(tasks.get(i))) {
+                matches.add(tasks.get(i));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Splits query text into words, quoted phrases (kept with their leading quote) and parentheses.
+     */
+    private static List<String> tokenize(String text) throws InvalidFormatException {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) {
+                    throw new InvalidFormatException(USAGE + " (unclosed quote)");
+                }
+                tokens.add(text.substring(i, end));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && text.charAt(i) != '(' && text.charAt(i) != ')' && text.charAt(i) != '"') {
+                    i++;
+                }
+                tokens.add(text.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Recursive-descent parser over query tokens.
+     */
+    private static class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        QueryNode parseOr() throws InvalidFormatException {
+            List<QueryNode> alternatives = new ArrayList<>();
+            alternatives.add(parseAnd());
+            while (hasNext() && tokens.get(position).equals("OR")) {
+                position++;
+                alternatives.add(parseAnd());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new QueryNode.Or(alternatives);
+        }
+
+        QueryNode parseAnd() throws InvalidFormatException {
+            List<QueryNode> terms = new ArrayList<>();
+            while (hasNext() && !tokens.get(position).equals(")") && !tokens.get(position).equals("OR")) {
+                if (tokens.get(position).equals("AND")) {
+                    position++;
+                    continue;
+                }
+                terms.add(parseUnary());
+            }
+            if (terms.isEmpty()) {
+                throw new InvalidFormatException(USAGE);
+            }
+            mergeDateRanges(terms);
+            return terms.size() == 1 ? terms.get(0) : new QueryNode.And(terms);
+        }
+
+        /**
+         * Replaces the date ranges among the terms of a conjunction by their intersection, so that a
+         * recurring task only matches if a single occurrence satisfies all of them.
+         */
+        private static void mergeDateRanges(List<QueryNode> terms) {
+            int first = -1;
+            for (int i = 0; i < terms.size(); i++) {
+                if (!(terms.get(i) instanceof QueryNode.DateRange)) {
+                    continue;
+                }
+                if (first < 0) {
+                    first = i;
+                } else {
+                    QueryNode.DateRange merged = ((QueryNode.DateRange) terms.get(first))
+                            .intersect((QueryNode.DateRange) terms.get(i));
+                    terms.set(first, merged);
+                    terms.remove(i--);
+                }
+            }
+        }
+
+        QueryNode parseUnary() throws InvalidFormatException {
+            String token = tokens.get(position);
+            if (token.equals("NOT")) {
+                position++;
+                if (!hasNext()) {
+                    throw new InvalidFormatException(USAGE);
+                }
+                return new QueryNode.Not(parseUnary());
+            }
+            if (token.length() > 1 && token.startsWith("-")) {
+                tokens.set(position, token.substring(1));
+                return new QueryNode.Not(parseUnary());
+            }
+            return parsePrimary();
+        }
+
+        QueryNode parsePrimary() throws InvalidFormatException {
+            String token = tokens.get(position++);
+            if (token.equals("(")) {
+                QueryNode inner = parseOr();
+                if (!hasNext() || !tokens.get(position).equals(")")) {
+                    throw new InvalidFormatException(USAGE + " (unbalanced parentheses)");
+                }
+                position++;
+                return inner;
+            }
+            if (token.startsWith("\"")) {
+                return new QueryNode.Phrase(token.substring(1));
+            }
+
+            Matcher field = FIELD.matcher(token);
+            if (field.matches()) {
+                return parseField(field.group(1), field.group(2), field.group(3));
+            }
+            return new QueryNode.Phrase(token);
+        }
+
+        private QueryNode parseField(String name, String operator, String value) throws InvalidFormatException {
+            String lowerValue = value.toLowerCase(Locale.ROOT);
+            switch (name) {
+            case "type":
+                requireEquality(operator);
+                return new QueryNode.Type(parseType(lowerValue));
+            case "done":
+                requireEquality(operator);
+                if (lowerValue.equals("true") || lowerValue.equals("yes")) {
+                    return new QueryNode.Status(true);
+                }
+                if (lowerValue.equals("false") || lowerValue.equals("no")) {
+                    return new QueryNode.Status(false);
+                }
+                throw new InvalidFormatException(USAGE + " (done must be true or false)");
+            default:
+                return parseDue(operator, value);
+            }
+        }
+
+        private QueryNode parseDue(String operator, String value) throws InvalidFormatException {
+            LocalDate date;
+            try {
+                date = LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new InvalidFormatException(USAGE + " (dates must be yyyy-MM-dd)");
+            }
+            LocalDateTime startOfDay = date.atStartOfDay();
+            LocalDateTime startOfNextDay = date.plusDays(1).atStartOfDay();
+            switch (operator) {
+            case "<":
+                return new QueryNode.DateRange(null, startOfDay);
+            case "<=":
+                return new QueryNode.DateRange(null, startOfNextDay);
+            case ">":
+                return new QueryNode.DateRange(startOfNextDay, null);
+            case ">=":
+                return new QueryNode.DateRange(startOfDay, null);
+            default:
+                return new QueryNode.DateRange(startOfDay, startOfNextDay);
+            }
+        }
+
+        private static Class<? extends Task> parseType(String value) throws InvalidFormatException {
+            switch (value) {
+            case "t":
+            case "todo":
+                return Todo.class;
+            case "d":
+            case "deadline":
+                return Deadline.class;
+            case "e":
+            case "event":
+                return Event.class;
+            default:
+                throw new InvalidFormatException(USAGE + " (type must be T, D or E)");
+            }
+        }
+
+        private static void requireEquality(String operator) throws InvalidFormatException {
+            if (!operator.equals(":")) {
+                throw new InvalidFormatException(USAGE + " (only due can be compared with < or >)");
+            }
+        }
+    }
+}
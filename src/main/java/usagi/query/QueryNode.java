@@ -0,0 +1,326 @@
+package usagi.query;
+
+import usagi.task.DateIndex;
+import usagi.task.KeywordSearch;
+import usagi.task.Task;
+import usagi.task.TaskList;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A node of a parsed find query. Every node can test a single task, and nodes backed by one of the
+ * task list's indexes can also produce their matches directly from that index, together with an
+ * estimate of how many there are so that the planner can pick the most selective one. Nodes that
+ * no index can answer estimate {@link #UNINDEXED} and have no candidates.
+ */
+public abstract class QueryNode {
+
+    /** Estimate returned by nodes that cannot be answered from an index. */
+    static final int UNINDEXED = Integer.MAX_VALUE;
+
+    /**
+     * Returns whether the task satisfies this node.
+     *
+     * @param task Task to test.
+     * @return True if the task matches.
+     */
+    public abstract boolean matches(Task task);
+
+    /**
+     * Returns an upper bound on the number of matches available from an index, or {@link #UNINDEXED}.
+     */
+    abstract int estimate(TaskList tasks);
+
+    /**
+     * Returns exactly the matching tasks, in no particular order, using the task list's indexes.
+     *
+     * @return Matching tasks, or null if no index can answer this node.
+     */
+    abstract Collection<Task> candidates(TaskList tasks);
+
+    /**
+     * Matches tasks whose displayed text contains a word or phrase, ignoring case, just as a plain
+     * find does. Indexable when the word index can name a few candidates, which are then checked
+     * with the same substring match.
+     */
+    static class Phrase extends QueryNode {
+        private final String phrase;
+        private final KeywordSearch search;
+        private boolean isLookedUp;
+        private List<Task> matches;
+
+        Phrase(String phrase) {
+            this.phrase = phrase;
+            this.search = new KeywordSearch(phrase);
+        }
+
+        @Override
+        public boolean matches(Task task) {
+            return search.matches(task);
+        }
+
+        @Override
+        int estimate(TaskList tasks) {
+            Collection<Task> candidates = candidates(tasks);
+            return candidates == null ? UNINDEXED : candidates.size();
+        }
+
+        @Override
+        Collection<Task> candidates(TaskList tasks) {
+            if (!isLookedUp) {
+                isLookedUp = true;
+                Set<Task> found = tasks.getSearchIndex().containing(phrase);
+                if (found != null) {
+                    matches = new ArrayList<>();
+                    for (Task task : found) {
+                        if (search.matches(task)) {
+                            matches.add(task);
+                        }
+                    }
+                }
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Matches tasks of one type, using the type index.
+     */
+    static class Type extends QueryNode {
+        private final Class<? extends Task> type;
+
+        Type(Class<? extends Task> type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean matches(Task task) {
+            return type.isInstance(task);
+        }
+
+        @Override
+        int estimate(TaskList tasks) {
+            return tasks.getSearchIndex().ofType(type).size();
+        }
+
+        @Override
+        Collection<Task> candidates(TaskList tasks) {
+            return tasks.getSearchIndex().ofType(type);
+        }
+    }
+
+    /**
+     * Matches tasks by completion status, using the status index.
+     */
+    static class Status extends QueryNode {
+        private final boolean isDone;
+
+        Status(boolean isDone) {
+            this.isDone = isDone;
+        }
+
+        @Override
+        public boolean matches(Task task) {
+            return task.isDone() == isDone;
+        }
+
+        @Override
+        int estimate(TaskList tasks) {
+            return tasks.getSearchIndex().withStatus(isDone).size();
+        }
+
+        @Override
+        Collection<Task> candidates(TaskList tasks) {
+            return tasks.getSearchIndex().withStatus(isDone);
+        }
+    }
+
+    /**
+     * Matches deadlines due and events starting within a time range, using the date index.
+     */
+    static class DateRange extends QueryNode {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private List<Task> matches;
+
+        /**
+         * Creates a range node.
+         *
+         * @param from Inclusive lower bound, or null.
+         * @param to Exclusive upper bound, or null.
+         */
+        DateRange(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns a range covering only the times within both this range and the other.
+         */
+        DateRange intersect(DateRange other) {
+            LocalDateTime lower = from == null || (other.from != null && other.from.isAfter(from)) ? other.from : from;
+            LocalDateTime upper = to == null || (other.to != null && other.to.isBefore(to)) ? other.to : to;
+            return new DateRange(lower, upper);
+        }
+
+        @Override
+        public boolean matches(Task task) {
+            return DateIndex.occursWithin(task, from, to);
+        }
+
+        @Override
+        int estimate(TaskList tasks) {
+            return candidates(tasks).size();
+        }
+
+        @Override
+        Collection<Task> candidates(TaskList tasks) {
+            if (matches == null) {
+                matches = tasks.getDateIndex().range(from, to);
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Matches tasks that do not satisfy the inner node. Not indexable on its own.
+     */
+    static class Not extends QueryNode {
+        private final QueryNode inner;
+
+        Not(QueryNode inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public boolean matches(Task task) {
+            return !inner.matches(task);
+        }
+
+        @Override
+        int estimate(TaskList tasks) {
+            return UNINDEXED;
+        }
+
+        @Override
+        Collection<Task> candidates(TaskList tasks) {
+            return null;
+        }
+    }
+
+    /**
+     * Matches tasks satisfying every child. Answered from the most selective indexed child,
+     * with the remaining children applied as filters.
+     */
+    static class And extends QueryNode {
+        private final List<QueryNode> children;
+
+        And(List<QueryNode> children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean matches(Task task) {
+            for (QueryNode child : children) {
+                if (!child.matches(task)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int estimate(TaskList tasks) {
+            int best = UNINDEXED;
+            for (QueryNode child : children) {
+                best = Math.min(best, child.estimate(tasks));
+            }
+            return best;
+        }
+
+        @Override
+        Collection<Task> candidates(TaskList tasks) {
+            QueryNode driver = null;
+            int best = UNINDEXED;
+            for (QueryNode child : children) {
+                int estimate = child.estimate(tasks);
+                if (estimate < best) {
+                    best = estimate;
+                    driver = child;
+                }
+            }
+            if (driver == null) {
+                return null;
+            }
+
+            List<Task> result = new ArrayList<>();
+            for (Task task : driver.candidates(tasks)) {
+                if (matchesAllExcept(driver, task)) {
+                    result.add(task);
+                }
+            }
+            return result;
+        }
+
+        private boolean matchesAllExcept(QueryNode skipped, Task task) {
+            for (QueryNode child : children) {
+                if (child != skipped && !child.matches(task)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Matches tasks satisfying any child. Indexable only when every child is.
+     */
+    static class Or extends QueryNode {
+        private final List<QueryNode> children;
+
+        Or(List<QueryNode> children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean matches(Task task) {
+            for (QueryNode child : children) {
+                if (child.matches(task)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int estimate(TaskList tasks) {
+            long total = 0;
+            for (QueryNode child : children) {
+                int estimate = child.estimate(tasks);
+                if (estimate == UNINDEXED) {
+                    return UNINDEXED;
+                }
+                total += estimate;
+            }
+            return (int) Math.min(total, UNINDEXED - 1);
+        }
+
+        @Override
+        Collection<Task> candidates(TaskList tasks) {
+            if (estimate(tasks) == UNINDEXED) {
+                return null;
+            }
+            Set<Task> union = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (QueryNode child : children) {
+                union.addAll(child.candidates(tasks));
+            }
+            return union;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package usagi.query;
+
+import usagi.exception.InvalidFormatException;
+import usagi.task.SparseBitmap;
+import usagi.task.TagIndex;
+import usagi.task.Task;
+import usagi.task.TaskList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A filter over task tags such as {@code #work AND NOT #done} or {@code (#home OR #errand) #urgent}.
+ *
+ * <p>Tags next to each other or joined by {@code AND} must all be present, {@code OR} separates
+ * alternatives, {@code NOT} negates a term and parentheses group terms. {@code #done} matches the
+ * tasks marked done. The filter is evaluated entirely on the bitmaps of the list's
+ * {@link TagIndex}: no task description is looked at.</p>
+ */
+public class TagFilter {
+
+    private static final String USAGE = "list #tag, e.g. list #work AND NOT #done";
+
+    private final Term root;
+
+    private TagFilter(Term root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns whether the text is a tag filter rather than another list option.
+     *
+     * @param text Text after the list command.
+     * @return True if the text starts with a tag, {@code NOT} or a parenthesis.
+     */
+    public static boolean isTagFilter(String text) {
+        return text.startsWith("#") || text.startsWith("(") || text.toUpperCase(Locale.ROOT).startsWith("NOT ");
+    }
+
+    /**
+     * Parses filter text into a tag filter.
+     *
+     * @param text Filter text.
+     * @return The parsed filter.
+     * @throws InvalidFormatException If the text is not a valid filter.
+     */
+    public static TagFilter parse(String text) throws InvalidFormatException {
+        Parser parser = new Parser(tokenize(text));
+        Term root = parser.parseOr();
+        if (parser.hasNext()) {
+            throw new InvalidFormatException(USAGE);
+        }
+        return new TagFilter(root);
+    }
+
+    /**
+     * Returns the tasks matching this filter, in list order.
+     *
+     * @param tasks Task list to filter.
+     * @return Matching tasks.
+     */
+    public List<Task> execute(TaskList tasks) {
+        TagIndex index = tasks.getTagIndex();
+        List<Task> matches = index.tasksOf(root.evaluate(index));
+        tasks.sortByPosition(matches);
+        return matches;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+                if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * A node of a parsed filter, evaluated to the bitmap of the task slots it matches.
+     */
+    private abstract static class Term {
+        abstract SparseBitmap evaluate(TagIndex index);
+    }
+
+    private static class Tag extends Term {
+        private final String name;
+
+        Tag(String name) {
+            this.name = name;
+        }
+
+        @Override
+        SparseBitmap evaluate(TagIndex index) {
+            return index.withTag(name);
+        }
+    }
+
+    private static class Not extends Term {
+        private final Term inner;
+
+        Not(Term inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        SparseBitmap evaluate(TagIndex index) {
+            return index.all().andNot(inner.evaluate(index));
+        }
+    }
+
+    /**
+     * Intersects the positive terms, then removes the negated ones with AND NOT, so a negation
+     * inside a conjunction never has to be complemented against all tasks.
+     */
+    private static class And extends Term {
+        private final List<Term> children;
+
+        And(List<Term> children) {
+            this.children = children;
+        }
+
+        @Override
+        SparseBitmap evaluate(TagIndex index) {
+            SparseBitmap result = null;
+            for (Term child : children) {
+                if (!(child instanceof Not)) {
+                    SparseBitmap bitmap = child.evaluate(index);
+                    result = result == null ? bitmap : result.and(bitmap);
+                }
+            }
+            if (result == null) {
+                result = index.all();
+            }
+            for (Term child : children) {
+                if (child instanceof Not) {
+                    result = result.andNot(((Not) child).inner.evaluate(index));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class Or extends Term {
+        private final List<Term> alternatives;
+
+        Or(List<Term> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        SparseBitmap evaluate(TagIndex index) {
+            SparseBitmap result = new SparseBitmap();
+            for (Term alternative : alternatives) {
+                result = result.or(alternative.evaluate(index));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Recursive-descent parser over the filter tokens.
+     */
+    private static class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        Term parseOr() throws InvalidFormatException {
+            List<Term> alternatives = new ArrayList<>();
+            alternatives.add(parseAnd());
+            while (hasNext() && tokens.get(position).equalsIgnoreCase("OR")) {
+                position++;
+                alternatives.add(parseAnd());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new Or(alternatives);
+        }
+
+        Term parseAnd() throws InvalidFormatException {
+            List<Term> terms = new ArrayList<>();
+            while (hasNext() && !tokens.get(position).equals(")") && !tokens.get(position).equalsIgnoreCase("OR")) {
+                boolean isJoined = tokens.get(position).equalsIgnoreCase("AND");
+                if (isJoined) {
+                    position++;
+                }
+                if (isJoined && (terms.isEmpty() || !hasNext())) {
+                    throw new InvalidFormatException(USAGE);
+                }
+                terms.add(parseUnary());
+            }
+            if (terms.isEmpty()) {
+                throw new InvalidFormatException(USAGE);
+            }
+            return terms.size() == 1 ? terms.get(0) : new And(terms);
+        }
+
+        Term parseUnary() throws InvalidFormatException {
+            String token = tokens.get(position++);
+            if (token.equalsIgnoreCase("NOT")) {
+                if (!hasNext()) {
+                    throw new InvalidFormatException(USAGE);
+                }
+                return new Not(parseUnary());
+            }
+            if (token.equals("(")) {
+                Term inner = parseOr();
+                if (!hasNext() || !tokens.get(position).equals(")")) {
+                    throw new InvalidFormatException(USAGE);
+                }
+                position++;
+                return inner;
+            }
+            if (token.length() > 1 && token.startsWith("#")) {
+                return new Tag(token.substring(1));
+            }
+            throw new InvalidFormatException(USAGE);
+        }
+    }
+}
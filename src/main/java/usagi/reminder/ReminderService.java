@@ -0,0 +1,233 @@
+package usagi.reminder;
+
+import usagi.task.DateIndex;
+import usagi.task.Deadline;
+import usagi.task.Task;
+import usagi.task.TaskChange;
+import usagi.task.TaskChangeListener;
+import usagi.task.TaskList;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fires reminders when deadlines fall due and events start.
+ *
+ * <p>Upcoming reminders are kept in a min-heap ordered by time and updated incrementally as tasks are
+ * added, marked or deleted, so the list is never rescanned. A single background thread sleeps until
+ * the earliest reminder is due. Deadlines are reminded at the start of their due date and events at
+ * their start time. A deadline is due all day, so one due today is reminded straight away even if
+ * Usagi starts after midnight. Each occurrence is reminded once. Removed or completed tasks are
+ * cancelled lazily and skipped when they reach the top of the heap. A recurring task has one
+ * reminder at a time, for its next occurrence, which is replaced by the following occurrence when
+ * it fires.</p>
+ */
+public class ReminderService implements TaskChangeListener {
+
+    private final Clock clock;
+    private final PriorityQueue<Reminder> queue = new PriorityQueue<>();
+    private final Map<Task, Reminder> pending = new IdentityHashMap<>();
+    // Time of the occurrence each task was last reminded of.
+    private final Map<Task, LocalDateTime> reminded = new IdentityHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private Consumer<Task> listener = task -> { };
+    private ScheduledFuture<?> wakeup;
+    private LocalDateTime wakeupTime;
+
+    /**
+     * Creates a reminder service using the system clock.
+     */
+    public ReminderService() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a reminder service using the given clock to decide when reminders are due.
+     *
+     * @param clock Clock providing the current time.
+     */
+    public ReminderService(Clock clock) {
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "usagi-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the callback invoked, on the reminder thread, for every task whose reminder is due.
+     *
+     * @param listener Callback receiving the due task.
+     */
+    public synchronized void setListener(Consumer<Task> listener) {
+        this.listener = listener != null ? listener : task -> { };
+    }
+
+    /**
+     * Schedules reminders for the upcoming tasks in the list and follows its future changes.
+     * Events that have already started and deadlines due before today are not reminded.
+     *
+     * @param tasks Task list to watch.
+     */
+    public synchronized void watch(TaskList tasks) {
+        for (int i = 0; i < tasks.size(); i++) {
+            schedule(tasks.get(i));
+        }
+        tasks.addChangeListener(this);
+        rescheduleWakeup();
+    }
+
+    /**
+     * Stops following the given task list and drops all of its pending reminders.
+     *
+     * @param tasks Task list to stop watching.
+     */
+    public synchronized void unwatch(TaskList tasks) {
+        tasks.removeChangeListener(this);
+        queue.clear();
+        pending.clear();
+        rescheduleWakeup();
+    }
+
+    /**
+     * Stops the background thread. No further reminders are fired.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public synchronized void onTasksChanged(List<TaskChange> changes) {
+        for (TaskChange change : changes) {
+            Task task = change.getTask();
+            switch (change.getKind()) {
+            case ADDED:
+                schedule(task);
+                break;
+            case REMOVED:
+                cancel(task);
+                reminded.remove(task);
+                break;
+            case STATUS_CHANGED:
+                if (task.isDone()) {
+                    cancel(task);
+                } else if (!pending.containsKey(task)) {
+                    schedule(task);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        rescheduleWakeup();
+    }
+
+    private void schedule(Task task) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        scheduleFrom(task, task instanceof Deadline ? now.toLocalDate().atStartOfDay() : now);
+    }
+
+    private void scheduleFrom(Task task, LocalDateTime from) {
+        LocalDateTime time = DateIndex.nextOccurrence(task, from);
+        if (time != null && time.equals(reminded.get(task))) {
+            time = DateIndex.nextOccurrence(task, time.plusNanos(1));
+        }
+        if (task.isDone() || time == null) {
+            return;
+        }
+        Reminder reminder = new Reminder(time, task);
+        pending.put(task, reminder);
+        queue.add(reminder);
+    }
+
+    private void cancel(Task task) {
+        Reminder reminder = pending.remove(task);
+        if (reminder != null) {
+            reminder.isCancelled = true;
+        }
+    }
+
+    /**
+     * Makes sure the background thread wakes up when the earliest live reminder is due.
+     */
+    private void rescheduleWakeup() {
+        while (!queue.isEmpty() && queue.peek().isCancelled) {
+            queue.poll();
+        }
+
+        LocalDateTime next = queue.isEmpty() ? null : queue.peek().time;
+        if (next == null ? wakeupTime == null : next.equals(wakeupTime)) {
+            return;
+        }
+
+        if (wakeup != null) {
+            wakeup.cancel(false);
+            wakeup = null;
+        }
+        wakeupTime = next;
+        if (next != null && !scheduler.isShutdown()) {
+            long delay = Math.max(0, Duration.between(LocalDateTime.now(clock), next).toMillis());
+            wakeup = scheduler.schedule(this::fireDueReminders, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void fireDueReminders() {
+        List<Task> due = new ArrayList<>();
+        Consumer<Task> callback;
+        synchronized (this) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            while (!queue.isEmpty() && !queue.peek().time.isAfter(now)) {
+                Reminder reminder = queue.poll();
+                if (!reminder.isCancelled) {
+                    pending.remove(reminder.task);
+                    reminded.put(reminder.task, reminder.time);
+                    due.add(reminder.task.occurrenceAt(reminder.time));
+                    if (reminder.task.getRecurrence() != null) {
+                        // Occurrences missed while the machine was asleep are not replayed.
+                        scheduleFrom(reminder.task, now.plusNanos(1));
+                    }
+                }
+            }
+            wakeup = null;
+            wakeupTime = null;
+            rescheduleWakeup();
+            callback = listener;
+        }
+
+        for (Task task : due) {
+            callback.accept(task);
+        }
+    }
+
+    /**
+     * A scheduled reminder for a single task.
+     */
+    private static class Reminder implements Comparable<Reminder> {
+        private final LocalDateTime time;
+        private final Task task;
+        private boolean isCancelled;
+
+        Reminder(LocalDateTime time, Task task) {
+            this.time = time;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Reminder other) {
+            return time.compareTo(other.time);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package usagi.replication;
+
+import usagi.storage.ReplicationLog;
+import usagi.storage.ReplicationLog.Checkpoint;
+import usagi.storage.ReplicationLog.Chunk;
+import usagi.storage.ReplicationLog.Position;
+import usagi.storage.ReplicationLog.Record;
+import usagi.storage.TaskStore;
+import usagi.task.Task;
+import usagi.task.TaskList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a standby copy of the primary's task list by applying the records shipped to a follower
+ * data directory, and can be promoted to take over as primary.
+ *
+ * <p>The follower reads only the records added since its last poll. Its own state is a checkpoint
+ * of the list and the log position it matches, saved every {@value #CHECKPOINT_INTERVAL} records
+ * and when it stops; after a restart it resumes from the checkpoint. Every record carries the size
+ * of the primary's list after the change, so a follower that has fallen out of step stops with an
+ * error rather than applying changes to the wrong tasks.</p>
+ */
+public class Follower implements Closeable {
+
+    /** Name of the task file written in the follower directory on promotion. */
+    public static final String TASK_FILE_NAME = "tasks.txt";
+
+    private static final int CHECKPOINT_INTERVAL = 1000;
+    private static final long POLL_MILLIS = 200;
+
+    private final Path directory;
+    private final ReplicationLog log;
+    private final ScheduledExecutorService scheduler;
+    private TaskList tasks;
+    private Position position;
+    private int sinceCheckpoint;
+    private IOException outOfStep;
+
+    /**
+     * Creates a follower for the given directory, resuming from its checkpoint if it has one.
+     *
+     * @param directory Follower data directory the primary ships to.
+     * @throws IOException If the checkpoint cannot be read.
+     */
+    public Follower(Path directory) throws IOException {
+        this.directory = directory;
+        this.log = new ReplicationLog(directory);
+        Checkpoint checkpoint = log.loadCheckpoint();
+        this.tasks = checkpoint == null ? new TaskList() : new TaskList(checkpoint.getTasks());
+        this.position = checkpoint == null ? null : checkpoint.getPosition();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "usagi-follower");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Applies the records shipped since the last poll.
+     *
+     * @return Number of records applied.
+     * @throws IOException If the log cannot be read, or the follower is out of step with it.
+     */
+    public synchronized int poll() throws IOException {
+        if (outOfStep != null) {
+            throw outOfStep;
+        }
+        Chunk chunk = log.read(position);
+        for (Record record : chunk.getRecords()) {
+            apply(record);
+        }
+        position = chunk.getNext();
+        sinceCheckpoint += chunk.getRecords().size();
+        if (sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+            checkpoint();
+        }
+        return chunk.getRecords().size();
+    }
+
+    /**
+     * Polls the log in the background until the follower is closed or promoted.
+     *
+     * @param onError Callback receiving errors from background polls.
+     */
+    public void start(Consumer<IOException> onError) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (IOException e) {
+                onError.accept(e);
+            }
+        }, 0, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the follower's copy of the task list.
+     */
+    public synchronized TaskList getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Stops following, applies every record shipped so far and writes the list as a task file,
+     * from which Usagi can be started as the new primary.
+     *
+     * @return Path of the task file to start the new primary with.
+     * @throws IOException If the log cannot be read or the task file cannot be written.
+     */
+    public synchronized Path promote() throws IOException {
+        scheduler.shutdownNow();
+        poll();
+        checkpoint();
+        Path taskFile = directory.resolve(TASK_FILE_NAME);
+        try (TaskStore store = TaskStore.open(taskFile.toString())) {
+            store.save(tasks);
+        }
+        return taskFile;
+    }
+
+    /**
+     * Stops following and saves a checkpoint to resume from.
+     *
+     * @throws IOException If the checkpoint cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        scheduler.shutdownNow();
+        checkpoint();
+    }
+
+    private void apply(Record record) throws IOException {
+        try {
+            switch (record.getKind()) {
+            case ADD:
+                tasks.add(record.getIndex(), requireTask(record));
+                break;
+            case REMOVE:
+                tasks.remove(record.getIndex());
+                break;
+            case UPDATE:
+                tasks.remove(record.getIndex());
+                tasks.add(record.getIndex(), requireTask(record));
+                break;
+            case CLEAR:
+                tasks = new TaskList();
+                break;
+            default:
+                break;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw outOfStep(e);
+        }
+        if (tasks.size() != record.getSize()) {
+            throw outOfStep(null);
+        }
+    }
+
+    /**
+     * Remembers that the list no longer matches the log, so that no further records are applied to it.
+     */
+    private IOException outOfStep(Exception cause) {
+        outOfStep = new IOException("Follower is out of step with the primary; delete " + directory
+                + " and restart the primary to copy it again", cause);
+        return outOfStep;
+    }
+
+    private static Task requireTask(Record record) throws IOException {
+        Task task = record.getTask();
+        if (task == null) {
+            throw new IOException("Replication record holds an unreadable task");
+        }
+        return task;
+    }
+
+    private void checkpoint() throws IOException {
+        if (position != null && outOfStep == null) {
+            log.saveCheckpoint(position, tasks.displayTasks());
+        }
+        sinceCheckpoint = 0;
+    }
+
+    /**
+     * Runs a follower process for a directory, or promotes it with {@code --promote}.
+     *
+     * @param args The follower directory, optionally followed by {@code --promote}.
+     * @throws Exception If the follower cannot be started or promoted.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args.length > 2 || args.length == 2 && !args[1].equals("--promote")) {
+            System.err.println("Usage: Follower <follower-directory> [--promote]");
+            System.exit(2);
+        }
+        Follower follower = new Follower(Paths.get(args[0]));
+        if (args.length == 2) {
+            System.out.println("Promoted; start Usagi with " + follower.promote());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                follower.close();
+            } catch (IOException e) {
+                System.err.println("Error saving checkpoint: " + e.getMessage());
+            }
+        }));
+        follower.start(e -> System.err.println("Error following: " + e.getMessage()));
+        System.out.println("Following " + args[0] + "; press Ctrl+C to stop.");
+        Thread.currentThread().join();
+    }
+}
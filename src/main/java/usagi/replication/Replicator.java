@@ -0,0 +1,105 @@
+package usagi.replication;
+
+import usagi.storage.ReplicationLog;
+import usagi.storage.ReplicationLog.Record;
+import usagi.task.TaskChange;
+import usagi.task.TaskChangeListener;
+import usagi.task.TaskList;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ships the changes made to the primary's task list to a follower data directory.
+ *
+ * <p>Every add, removal and update kept in the list is turned into a {@link Record} as it is
+ * delivered, so changes rolled back by a failed batch are never shipped. The pending records are
+ * appended to the follower's {@link ReplicationLog} each time the primary saves. On start, one
+ * snapshot of the whole list is shipped, so the follower never depends on changes that a crashed
+ * primary saved but did not ship.</p>
+ */
+public class Replicator implements TaskChangeListener {
+
+    /** System property holding the follower data directory; replication is off when it is not set. */
+    public static final String FOLLOWER_PROPERTY = "usagi.replica";
+
+    private final ReplicationLog log;
+    private final List<Record> pending = new ArrayList<>();
+    private TaskList tasks;
+
+    /**
+     * Creates a replicator shipping to the log in the given follower directory.
+     *
+     * @param log Log in the follower directory.
+     */
+    public Replicator(ReplicationLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Creates a replicator for the follower directory given by {@value #FOLLOWER_PROPERTY}.
+     *
+     * @return The replicator, or null if no follower directory is configured.
+     */
+    public static Replicator fromProperty() {
+        String directory = System.getProperty(FOLLOWER_PROPERTY);
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        Path path = Paths.get(directory);
+        return new Replicator(new ReplicationLog(path));
+    }
+
+    /**
+     * Ships a snapshot of the list and starts recording its changes.
+     *
+     * @param tasks Primary task list.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public void start(TaskList tasks) throws IOException {
+        if (this.tasks != null) {
+            this.tasks.removeChangeListener(this);
+        }
+        pending.clear();
+        log.reset(tasks.displayTasks());
+        this.tasks = tasks;
+        tasks.addChangeListener(this);
+    }
+
+    /**
+     * Appends the changes recorded since the last call to the follower's log.
+     *
+     * @throws IOException If the log cannot be written; the changes are kept and shipped next time.
+     */
+    public void ship() throws IOException {
+        log.append(pending);
+        pending.clear();
+    }
+
+    /**
+     * Returns the number of bytes shipped to the follower since the replicator was created.
+     */
+    public long getBytesShipped() {
+        return log.getBytesWritten();
+    }
+
+    @Override
+    public void onTasksChanged(List<TaskChange> changes) {
+        for (TaskChange change : changes) {
+            switch (change.getKind()) {
+            case ADDED:
+                pending.add(Record.added(change.getIndex(), change.getSize(), change.getTask()));
+                break;
+            case REMOVED:
+                pending.add(Record.removed(change.getIndex(), change.getSize()));
+                break;
+            default:
+                pending.add(Record.updated(change.getIndex(), change.getSize(), change.getTask()));
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package usagi.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A B+tree mapping long keys to small byte records, stored one node per page of a {@link PageFile}.
+ *
+ * <p>Leaves hold the records and split by size, so a node always fits its page whatever the mix of
+ * short and long records. Internal nodes hold separator keys: the subtree left of a separator has
+ * keys below it, the subtree right of it keys at or above it. Leaves that become empty are freed
+ * and dropped from their parent rather than merged, which keeps deletion simple; a root left with
+ * a single child is replaced by that child, so the height shrinks again as the tree empties.</p>
+ */
+class BPlusTree {
+
+    /** Largest record accepted, so that a leaf split always yields two halves that fit a page. */
+    static final int MAX_RECORD = (PageFile.PAGE_SIZE - Node.HEADER) / 2 - Node.LEAF_ENTRY;
+
+    private final PageFile file;
+
+    /**
+     * Opens the tree stored in a page file, creating an empty one if the file has no tree yet.
+     *
+     * @param file Page file holding the tree.
+     * @throws IOException If the root cannot be allocated.
+     */
+    BPlusTree(PageFile file) throws IOException {
+        this.file = file;
+        if (file.getRoot() == 0) {
+            int root = file.allocate();
+            write(root, Node.leaf());
+            file.setRoot(root);
+        }
+    }
+
+    /**
+     * Returns the record stored under a key.
+     *
+     * @param key Key to look up.
+     * @return The record, or null if there is none.
+     * @throws IOException If a page cannot be read.
+     */
+    byte[] get(long key) throws IOException {
+        Node node = read(file.getRoot());
+        while (!node.isLeaf) {
+            node = read(node.children.get(node.childIndex(key)));
+        }
+        int i = node.find(key);
+        return i >= 0 ? node.values.get(i) : null;
+    }
+
+    /**
+     * Stores a record under a key, replacing any record already there.
+     *
+     * @param key Key to store under.
+     * @param value Record of at most {@link #MAX_RECORD} bytes.
+     * @throws IOException If the record is too long or a page cannot be read.
+     */
+    void put(long key, byte[] value) throws IOException {
+        if (value.length > MAX_RECORD) {
+            throw new IOException("Record of " + value.length + " bytes is longer than the limit of "
+                    + MAX_RECORD);
+        }
+        int root = file.getRoot();
+        Split split = put(root, key, value);
+        if (split != null) {
+            Node newRoot = Node.internal();
+            newRoot.children.add(root);
+            newRoot.keys.add(split.key);
+            newRoot.children.add(split.page);
+            int page = file.allocate();
+            write(page, newRoot);
+            file.setRoot(page);
+        }
+    }
+
+    /**
+     * Removes the record stored under a key.
+     *
+     * @param key Key to remove.
+     * @return True if there was a record to remove.
+     * @throws IOException If a page cannot be read.
+     */
+    boolean delete(long key) throws IOException {
+        int root = file.getRoot();
+        Removal removal = delete(root, key);
+        if (!removal.isFound) {
+            return false;
+        }
+
+        Node node = read(root);
+        if (removal.isEmpty && !node.isLeaf) {
+            write(root, Node.leaf());
+        } else if (!node.isLeaf && node.children.size() == 1) {
+            file.setRoot(node.children.get(0));
+            file.free(root);
+        }
+        return true;
+    }
+
+    private Split put(int page, long key, byte[] value) throws IOException {
+        Node node = read(page);
+        if (node.isLeaf) {
+            int i = node.find(key);
+            if (i >= 0) {
+                node.values.set(i, value);
+            } else {
+                node.keys.add(-i - 1, key);
+                node.values.add(-i - 1, value);
+            }
+        } else {
+            int i = node.childIndex(key);
+            Split split = put(node.children.get(i), key, value);
+            if (split == null) {
+                return null;
+            }
+            node.keys.add(i, split.key);
+            node.children.add(i + 1, split.page);
+        }
+
+        if (node.size() <= PageFile.PAGE_SIZE) {
+            write(page, node);
+            return null;
+        }
+        return split(page, node);
+    }
+
+    /**
+     * Moves the upper part of an overflowing node to a new page and returns the separator for the parent.
+     */
+    private Split split(int page, Node node) throws IOException {
+        Node right;
+        long separator;
+        if (node.isLeaf) {
+            int half = node.size() / 2;
+            int size = Node.HEADER;
+            int at = 0;
+            while (at < node.keys.size() - 1 && size + Node.LEAF_ENTRY + node.values.get(at).length <= half) {
+                size += Node.LEAF_ENTRY + node.values.get(at).length;
+                at++;
+            }
+            if (at == 0 || node.size() - size + Node.HEADER > PageFile.PAGE_SIZE) {
+                // The entry straddling the middle is large: it goes left so the right half fits.
+                at++;
+            }
+            right = Node.leaf();
+            right.keys.addAll(node.keys.subList(at, node.keys.size()));
+            right.values.addAll(node.values.subList(at, node.values.size()));
+            node.keys.subList(at, node.keys.size()).clear();
+            node.values.subList(at, node.values.size()).clear();
+            separator = right.keys.get(0);
+        } else {
+            int middle = node.keys.size() / 2;
+            separator = node.keys.get(middle);
+            right = Node.internal();
+            right.keys.addAll(node.keys.subList(middle + 1, node.keys.size()));
+            right.children.addAll(node.children.subList(middle + 1, node.children.size()));
+            node.keys.subList(middle, node.keys.size()).clear();
+            node.children.subList(middle + 1, node.children.size()).clear();
+        }
+
+        int rightPage = file.allocate();
+        write(page, node);
+        write(rightPage, right);
+        return new Split(separator, rightPage);
+    }
+
+    private Removal delete(int page, long key) throws IOException {
+        Node node = read(page);
+        if (node.isLeaf) {
+            int i = node.find(key);
+            if (i < 0) {
+                return Removal.NOT_FOUND;
+            }
+            node.keys.remove(i);
+            node.values.remove(i);
+            write(page, node);
+            return node.keys.isEmpty() ? Removal.NOW_EMPTY : Removal.REMOVED;
+        }
+
+        int i = node.childIndex(key);
+        int child = node.children.get(i);
+        Removal removal = delete(child, key);
+        if (!removal.isEmpty) {
+            return removal;
+        }
+
+        file.free(child);
+        node.children.remove(i);
+        if (!node.keys.isEmpty()) {
+            node.keys.remove(i > 0 ? i - 1 : 0);
+        }
+        if (node.children.isEmpty()) {
+            return Removal.NOW_EMPTY;
+        }
+        write(page, node);
+        return Removal.REMOVED;
+    }
+
+    private Node read(int page) throws IOException {
+        return Node.decode(file.read(page));
+    }
+
+    private void write(int page, Node node) {
+        file.write(page, node.encode());
+    }
+
+    /**
+     * The separator key and new page produced by splitting a node.
+     */
+    private static class Split {
+        private final long key;
+        private final int page;
+
+        Split(long key, int page) {
+            this.key = key;
+            this.page = page;
+        }
+    }
+
+    /**
+     * Outcome of removing a key from a subtree.
+     */
+    private enum Removal {
+        NOT_FOUND(false, false), REMOVED(true, false), NOW_EMPTY(true, true);
+
+        private final boolean isFound;
+        private final boolean isEmpty;
+
+        Removal(boolean isFound, boolean isEmpty) {
+            this.isFound = isFound;
+            this.isEmpty = isEmpty;
+        }
+    }
+
+    /**
+     * A decoded tree node. A leaf page holds its type, entry count and then the key, record length
+     * and record of each entry; an internal page holds its type, key count, first child and then
+     * each key followed by the child to its right.
+     */
+    private static class Node {
+        static final int HEADER = 3;
+        static final int LEAF_ENTRY = Long.BYTES + Short.BYTES;
+        static final int INTERNAL_ENTRY = Long.BYTES + Integer.BYTES;
+
+        private static final byte LEAF = 1;
+        private static final byte INTERNAL = 2;
+
+        private final boolean isLeaf;
+        private final List<Long> keys = new ArrayList<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private final List<Integer> children = new ArrayList<>();
+
+        private Node(boolean isLeaf) {
+            this.isLeaf = isLeaf;
+        }
+
+        static Node leaf() {
+            return new Node(true);
+        }
+
+        static Node internal() {
+            return new Node(false);
+        }
+
+        /**
+         * Returns the position of a key in a leaf, or {@code -(insertion point) - 1} if absent.
+         */
+        int find(long key) {
+            int low = 0;
+            int high = keys.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midKey = keys.get(mid);
+                if (midKey < key) {
+                    low = mid + 1;
+                } else if (midKey > key) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        /**
+         * Returns the child of an internal node whose subtree covers the key.
+         */
+        int childIndex(long key) {
+            int i = find(key);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+
+        int size() {
+            if (!isLeaf) {
+                return HEADER + Integer.BYTES + keys.size() * INTERNAL_ENTRY;
+            }
+            int size = HEADER;
+            for (byte[] value : values) {
+                size += LEAF_ENTRY + value.length;
+            }
+            return size;
+        }
+
+        byte[] encode() {
+            ByteBuffer buffer = ByteBuffer.allocate(PageFile.PAGE_SIZE);
+            buffer.put(isLeaf ? LEAF : INTERNAL).putShort((short) keys.size());
+            if (isLeaf) {
+                for (int i = 0; i < keys.size(); i++) {
+                    byte[] value = values.get(i);
+                    buffer.putLong(keys.get(i)).putShort((short) value.length).put(value);
+                }
+            } else {
+                buffer.putInt(children.get(0));
+                for (int i = 0; i < keys.size(); i++) {
+                    buffer.putLong(keys.get(i)).putInt(children.get(i + 1));
+                }
+            }
+            return buffer.array();
+        }
+
+        static Node decode(byte[] page) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(page);
+            byte type = buffer.get();
+            if (type != LEAF && type != INTERNAL) {
+                throw new IOException("Page is not a tree node");
+            }
+            Node node = new Node(type == LEAF);
+            int count = Short.toUnsignedInt(buffer.getShort());
+            if (node.isLeaf) {
+                for (int i = 0; i < count; i++) {
+                    node.keys.add(buffer.getLong());
+                    byte[] value = new byte[Short.toUnsignedInt(buffer.getShort())];
+                    buffer.get(value);
+                    node.values.add(value);
+                }
+            } else {
+                node.children.add(buffer.getInt());
+                for (int i = 0; i < count; i++) {
+                    node.keys.add(buffer.getLong());
+                    node.children.add(buffer.getInt());
+                }
+            }
+            return node;
+        }
+    }
+}
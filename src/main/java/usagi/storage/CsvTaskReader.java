@@ -0,0 +1,102 @@
+package usagi.storage;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams task records from a CSV file with the header {@code type,done,description,due,start,end,every}.
+ * Quoted fields may contain commas, doubled quotes and line breaks. Only the current record is held in memory.
+ */
+class CsvTaskReader implements TaskRecordReader {
+
+    static final String[] COLUMNS = {"type", "done", "description", "due", "start", "end", "every"};
+
+    private final PushbackReader in;
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> values = new ArrayList<>(COLUMNS.length);
+    private boolean isHeaderChecked;
+
+    CsvTaskReader(Reader in) {
+        this.in = new PushbackReader(in, 1);
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        if (!readRecord()) {
+            return null;
+        }
+        if (!isHeaderChecked) {
+            isHeaderChecked = true;
+            if (!values.isEmpty() && values.get(0).trim().equalsIgnoreCase(COLUMNS[0])) {
+                return next();
+            }
+        }
+
+        Map<String, String> record = new HashMap<>();
+        for (int i = 0; i < COLUMNS.length && i < values.size(); i++) {
+            record.put(COLUMNS[i], values.get(i));
+        }
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the fields of the next non-blank record into {@code values}.
+     *
+     * @return False if the end of the file was reached before any field.
+     */
+    private boolean readRecord() throws IOException {
+        values.clear();
+        field.setLength(0);
+        boolean isInQuotes = false;
+        boolean hasContent = false;
+
+        int c;
+        while ((c = in.read()) != -1) {
+            if (isInQuotes) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                int nextChar = in.read();
+                if (nextChar == '"') {
+                    field.append('"');
+                } else {
+                    isInQuotes = false;
+                    if (nextChar != -1) {
+                        in.unread(nextChar);
+                    }
+                }
+            } else if (c == '"') {
+                isInQuotes = true;
+                hasContent = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+                hasContent = true;
+            } else if (c == '\n') {
+                if (hasContent || field.length() > 0) {
+                    break;
+                }
+            } else if (c != '\r') {
+                field.append((char) c);
+                hasContent = true;
+            }
+        }
+
+        if (!hasContent && field.length() == 0) {
+            return false;
+        }
+        values.add(field.toString());
+        return true;
+    }
+}
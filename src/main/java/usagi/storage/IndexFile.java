@@ -0,0 +1,205 @@
+package usagi.storage;
+
+import usagi.task.SearchIndex;
+import usagi.task.StoredPostings;
+import usagi.task.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * The word postings of the search index, saved next to the task file so that loading a large
+ * list does not tokenize every task again.
+ *
+ * <p>The file starts with a header holding a format version, the checksum of the task data it
+ * was built from, the number of tasks and a checksum of the rest of the file. Next comes a
+ * directory of the words in sorted order, then the words themselves and their postings, which
+ * are task positions. The file is read into memory in one go, and words are found by binary search
+ * over the directory, so only the postings actually used are decoded. It is not memory-mapped, as
+ * a mapped file cannot be replaced on some platforms, such as Windows, while the mapping is alive.
+ * A file whose version or data checksum does not match, or whose contents are damaged, is
+ * ignored.</p>
+ */
+public class IndexFile implements StoredPostings {
+
+    private static final int MAGIC = 0x55534958;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 16;
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final ByteBuffer buffer;
+    private final int taskCount;
+    private final int tokenCount;
+
+    private IndexFile(ByteBuffer buffer, int taskCount, int tokenCount) {
+        this.buffer = buffer;
+        this.taskCount = taskCount;
+        this.tokenCount = tokenCount;
+    }
+
+    /**
+     * Reads an index file, if it exists and was built from the given task data.
+     *
+     * @param path Path of the index file.
+     * @param dataChecksum Checksum of the task data the index must have been built from.
+     * @param taskCount Number of tasks in that data.
+     * @return The index, or null if the file is missing, stale or damaged.
+     * @throws IOException If the file exists but cannot be read.
+     */
+    public static IndexFile open(Path path, long dataChecksum, int taskCount) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != dataChecksum
+                || buffer.getInt(16) != taskCount) {
+            return null;
+        }
+        int tokenCount = buffer.getInt(20);
+        if (tokenCount < 0 || (long) tokenCount * ENTRY_SIZE > buffer.capacity() - HEADER_SIZE
+                || buffer.getLong(24) != bodyChecksum(buffer)) {
+            return null;
+        }
+        return new IndexFile(buffer, taskCount, tokenCount);
+    }
+
+    /**
+     * Builds the index of the given tasks and writes it, replacing the file atomically.
+     *
+     * @param path Path of the index file.
+     * @param dataChecksum Checksum of the task data the tasks were loaded from or saved to.
+     * @param tasks Tasks in list order, which must not change while the index is written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path path, long dataChecksum, List<Task> tasks) throws IOException {
+        Map<String, List<Integer>> postings = new TreeMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            for (String token : SearchIndex.tokenize(tasks.get(i).getDescription())) {
+                List<Integer> positions = postings.computeIfAbsent(token, k -> new ArrayList<>());
+                // A word repeated in one description is posted once.
+                if (positions.isEmpty() || positions.get(positions.size() - 1) != i) {
+                    positions.add(i);
+                }
+            }
+        }
+
+        List<byte[]> tokens = new ArrayList<>(postings.size());
+        int tokenBytes = 0;
+        int postingCount = 0;
+        for (Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+            byte[] token = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            tokens.add(token);
+            tokenBytes += token.length;
+            postingCount += entry.getValue().size();
+        }
+
+        int tokenStart = HEADER_SIZE + tokens.size() * ENTRY_SIZE;
+        int postingStart = tokenStart + tokenBytes;
+        ByteBuffer out = ByteBuffer.allocate(postingStart + postingCount * Integer.BYTES);
+        out.putInt(MAGIC).putInt(VERSION).putLong(dataChecksum).putInt(tasks.size()).putInt(tokens.size());
+        out.putLong(0);
+
+        int tokenOffset = tokenStart;
+        int postingOffset = postingStart;
+        int n = 0;
+        for (List<Integer> positions : postings.values()) {
+            byte[] token = tokens.get(n++);
+            out.putInt(tokenOffset).putInt(token.length).putInt(postingOffset).putInt(positions.size());
+            out.put(tokenOffset, token);
+            for (int position : positions) {
+                out.putInt(postingOffset, position);
+                postingOffset += Integer.BYTES;
+            }
+            tokenOffset += token.length;
+        }
+        out.putLong(24, bodyChecksum(out));
+
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_EXTENSION);
+        Files.write(temp, out.array());
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public int[] positions(String token) {
+        int low = 0;
+        int high = tokenCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = HEADER_SIZE + middle * ENTRY_SIZE;
+            int comparison = tokenAt(entry).compareTo(token);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return postingsAt(entry);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<String> tokensContaining(String part) {
+        List<String> matches = new ArrayList<>();
+        for (int i = 0; i < tokenCount; i++) {
+            String token = tokenAt(HEADER_SIZE + i * ENTRY_SIZE);
+            if (token.contains(part)) {
+                matches.add(token);
+            }
+        }
+        return matches;
+    }
+
+    private String tokenAt(int entry) {
+        byte[] token = new byte[buffer.getInt(entry + 4)];
+        buffer.get(buffer.getInt(entry), token);
+        return new String(token, StandardCharsets.UTF_8);
+    }
+
+    private int[] postingsAt(int entry) {
+        int offset = buffer.getInt(entry + 8);
+        int[] positions = new int[buffer.getInt(entry + 12)];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = buffer.getInt(offset + i * Integer.BYTES);
+            if (positions[i] < 0 || positions[i] >= taskCount) {
+                throw new IllegalStateException("Index file refers to task " + positions[i]);
+            }
+        }
+        return positions;
+    }
+
+    private static long bodyChecksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(HEADER_SIZE).limit(buffer.capacity()));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,175 @@
+package usagi.storage;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streams task records from a JSON array of flat objects, e.g.
+ * {@code [{"type": "D", "done": false, "description": "eat cake", "due": "2025-09-09"}]}.
+ * The array is tokenized incrementally, so only the current object is held in memory.
+ */
+class JsonTaskReader implements TaskRecordReader {
+
+    private final PushbackReader in;
+    private final StringBuilder token = new StringBuilder();
+    private boolean isStarted;
+    private boolean isFinished;
+
+    JsonTaskReader(Reader in) {
+        this.in = new PushbackReader(in, 1);
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        if (isFinished) {
+            return null;
+        }
+        if (!isStarted) {
+            expect('[');
+            isStarted = true;
+        } else if (peekSignificant() == ',') {
+            in.read();
+        }
+
+        if (peekSignificant() == ']') {
+            in.read();
+            isFinished = true;
+            return null;
+        }
+        return readObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Map<String, String> readObject() throws IOException {
+        expect('{');
+        Map<String, String> record = new HashMap<>();
+        if (peekSignificant() == '}') {
+            in.read();
+            return record;
+        }
+
+        while (true) {
+            String key = readString();
+            expect(':');
+            String value = readValue();
+            if (value != null) {
+                record.put(key, value);
+            }
+
+            int c = readSignificant();
+            if (c == '}') {
+                return record;
+            }
+            if (c != ',') {
+                throw malformed("',' or '}'", c);
+            }
+        }
+    }
+
+    private String readValue() throws IOException {
+        int c = peekSignificant();
+        if (c == '"') {
+            return readString();
+        }
+
+        token.setLength(0);
+        while ((c = in.read()) != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            token.append((char) c);
+        }
+        if (c != -1) {
+            in.unread(c);
+        }
+
+        String literal = token.toString();
+        if (literal.isEmpty()) {
+            throw malformed("a value", c);
+        }
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        token.setLength(0);
+        int c;
+        while ((c = in.read()) != '"') {
+            if (c == -1) {
+                throw new IOException("Unterminated string in JSON");
+            }
+            if (c == '\\') {
+                token.append(readEscape());
+            } else {
+                token.append((char) c);
+            }
+        }
+        return token.toString();
+    }
+
+    private char readEscape() throws IOException {
+        int c = in.read();
+        switch (c) {
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'u':
+            char[] hex = new char[4];
+            for (int i = 0; i < hex.length; i++) {
+                int h = in.read();
+                if (h == -1) {
+                    throw new IOException("Unterminated escape in JSON");
+                }
+                hex[i] = (char) h;
+            }
+            try {
+                return (char) Integer.parseInt(new String(hex), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid unicode escape in JSON: \\u" + new String(hex));
+            }
+        case -1:
+            throw new IOException("Unterminated escape in JSON");
+        default:
+            return (char) c; // covers \" \\ and \/
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = readSignificant();
+        if (c != expected) {
+            throw malformed("'" + expected + "'", c);
+        }
+    }
+
+    private int readSignificant() throws IOException {
+        int c;
+        do {
+            c = in.read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int peekSignificant() throws IOException {
+        int c = readSignificant();
+        if (c != -1) {
+            in.unread(c);
+        }
+        return c;
+    }
+
+    private static IOException malformed(String expected, int actual) {
+        String found = actual == -1 ? "end of file" : "'" + (char) actual + "'";
+        return new IOException("Malformed JSON: expected " + expected + " but found " + found);
+    }
+}
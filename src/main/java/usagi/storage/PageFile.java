@@ -0,0 +1,319 @@
+package usagi.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * A file of fixed-size pages with a small least-recently-used page cache.
+ *
+ * <p>Page 0 is a header holding the root page of the tree stored in the file, the page count, the
+ * head of the free-page list and a few numbers for the file's owner. Changed pages stay in the
+ * cache until {@link #flush()}, which first writes them to a journal next to the file, then into
+ * the file itself, and finally deletes the journal. A journal left behind by a crash is replayed
+ * when the file is next opened, so the file always reflects a complete flush.</p>
+ */
+class PageFile implements Closeable {
+
+    static final int PAGE_SIZE = 4096;
+    static final int META_SLOTS = 4;
+
+    private static final long MAGIC = 0x5553414749504731L; // "USAGIPG1"
+    private static final long JOURNAL_MAGIC = 0x55534147494A4E31L; // "USAGIJN1"
+    private static final int JOURNAL_HEADER = Long.BYTES + Integer.BYTES;
+    private static final int VERSION = 1;
+    private static final int NO_PAGE = 0;
+    private static final byte FREE_PAGE = 0;
+
+    private final Path path;
+    private final Path journal;
+    private final FileChannel channel;
+    private final int cacheCapacity;
+    private final LinkedHashMap<Integer, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Integer> dirty = new HashSet<>();
+
+    private int rootPage;
+    private int pageCount;
+    private int freeHead;
+    private final long[] meta = new long[META_SLOTS];
+    private boolean isHeaderDirty;
+    private long bytesWritten;
+
+    /**
+     * Opens the page file at the given path, creating it if it does not exist and replaying any
+     * journal left by an interrupted flush.
+     *
+     * @param path Path of the page file.
+     * @param cacheCapacity Number of clean pages kept in memory.
+     * @throws IOException If the file cannot be opened or is not a page file.
+     */
+    PageFile(Path path, int cacheCapacity) throws IOException {
+        this.path = path;
+        this.journal = path.resolveSibling(path.getFileName() + ".journal");
+        this.cacheCapacity = cacheCapacity;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        replayJournal();
+
+        if (channel.size() == 0) {
+            pageCount = 1;
+            isHeaderDirty = true;
+        } else {
+            readHeader();
+        }
+    }
+
+    /**
+     * Returns the root page of the stored tree, or 0 if none has been set.
+     */
+    int getRoot() {
+        return rootPage;
+    }
+
+    void setRoot(int page) {
+        rootPage = page;
+        isHeaderDirty = true;
+    }
+
+    long getMeta(int slot) {
+        return meta[slot];
+    }
+
+    void setMeta(int slot, long value) {
+        if (meta[slot] != value) {
+            meta[slot] = value;
+            isHeaderDirty = true;
+        }
+    }
+
+    /**
+     * Returns the contents of a page. The array must not be modified; use {@link #write} instead.
+     *
+     * @param page Page number.
+     * @return Contents of the page.
+     * @throws IOException If the page cannot be read.
+     */
+    byte[] read(int page) throws IOException {
+        byte[] data = cache.get(page);
+        if (data != null) {
+            return data;
+        }
+        data = new byte[PAGE_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long position = (long) page * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break; // Past the end of the file, the page reads as zeros.
+            }
+        }
+        cache.put(page, data);
+        evict();
+        return data;
+    }
+
+    /**
+     * Replaces the contents of a page. The page is kept in memory until the next flush.
+     *
+     * @param page Page number.
+     * @param data New contents, at most {@link #PAGE_SIZE} bytes.
+     */
+    void write(int page, byte[] data) {
+        byte[] copy = new byte[PAGE_SIZE];
+        System.arraycopy(data, 0, copy, 0, Math.min(data.length, PAGE_SIZE));
+        cache.put(page, copy);
+        dirty.add(page);
+        evict();
+    }
+
+    /**
+     * Returns a page that is not in use, reusing a freed page when there is one.
+     *
+     * @throws IOException If the free list cannot be read.
+     */
+    int allocate() throws IOException {
+        isHeaderDirty = true;
+        if (freeHead != NO_PAGE) {
+            int page = freeHead;
+            freeHead = ByteBuffer.wrap(read(page)).getInt(1);
+            return page;
+        }
+        return pageCount++;
+    }
+
+    /**
+     * Returns a page to the free list.
+     */
+    void free(int page) {
+        byte[] data = new byte[PAGE_SIZE];
+        ByteBuffer.wrap(data).put(0, FREE_PAGE).putInt(1, freeHead);
+        write(page, data);
+        freeHead = page;
+        isHeaderDirty = true;
+    }
+
+    /**
+     * Returns the number of pages in the file, including the header and free pages.
+     */
+    int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Durably writes all changed pages: first to the journal, then into the file.
+     *
+     * @return Number of pages written into the file.
+     * @throws IOException If the pages cannot be written.
+     */
+    int flush() throws IOException {
+        if (isHeaderDirty) {
+            cache.put(0, encodeHeader());
+            dirty.add(0);
+            isHeaderDirty = false;
+        }
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+
+        List<Integer> pages = new ArrayList<>(new TreeSet<>(dirty));
+        writeJournal(pages);
+        for (int page : pages) {
+            ByteBuffer buffer = ByteBuffer.wrap(cache.get(page));
+            long position = (long) page * PAGE_SIZE;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+        channel.force(false);
+        Files.deleteIfExists(journal);
+        bytesWritten += (long) pages.size() * PAGE_SIZE;
+
+        dirty.clear();
+        evict();
+        return pages.size();
+    }
+
+    /**
+     * Returns the number of bytes written by flushes of this file, journal included.
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Drops the least recently used clean pages while the cache is over capacity.
+     * Changed pages are kept until they have been flushed.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Integer, byte[]>> it = cache.entrySet().iterator();
+        while (cache.size() > cacheCapacity && it.hasNext()) {
+            if (!dirty.contains(it.next().getKey())) {
+                it.remove();
+            }
+        }
+    }
+
+    private byte[] encodeHeader() {
+        byte[] data = new byte[PAGE_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.putLong(MAGIC).putInt(VERSION).putInt(PAGE_SIZE);
+        buffer.putInt(rootPage).putInt(pageCount).putInt(freeHead);
+        for (long value : meta) {
+            buffer.putLong(value);
+        }
+        return data;
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(read(0));
+        if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != PAGE_SIZE) {
+            throw new IOException(path + " is not a Usagi page file");
+        }
+        rootPage = buffer.getInt();
+        pageCount = buffer.getInt();
+        freeHead = buffer.getInt();
+        for (int i = 0; i < META_SLOTS; i++) {
+            meta[i] = buffer.getLong();
+        }
+    }
+
+    private void writeJournal(List<Integer> pages) throws IOException {
+        int length = JOURNAL_HEADER + pages.size() * (Integer.BYTES + PAGE_SIZE) + Long.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putLong(JOURNAL_MAGIC).putInt(pages.size());
+        for (int page : pages) {
+            buffer.putInt(page).put(cache.get(page));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue()).flip();
+
+        try (FileChannel out = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        bytesWritten += buffer.limit();
+    }
+
+    /**
+     * Copies the pages of a complete journal into the file. An incomplete journal means the crash
+     * happened before the file was touched, so it is simply discarded.
+     */
+    private void replayJournal() throws IOException {
+        if (!Files.exists(journal)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journal));
+        if (isCompleteJournal(buffer)) {
+            int count = buffer.getInt(Long.BYTES);
+            buffer.position(JOURNAL_HEADER);
+            for (int i = 0; i < count; i++) {
+                long position = (long) buffer.getInt() * PAGE_SIZE;
+                ByteBuffer page = buffer.slice(buffer.position(), PAGE_SIZE);
+                buffer.position(buffer.position() + PAGE_SIZE);
+                while (page.hasRemaining()) {
+                    channel.write(page, position + page.position());
+                }
+            }
+            channel.force(false);
+        }
+        Files.delete(journal);
+    }
+
+    private static boolean isCompleteJournal(ByteBuffer buffer) {
+        int length = buffer.limit();
+        if (length < JOURNAL_HEADER + Long.BYTES || buffer.getLong(0) != JOURNAL_MAGIC) {
+            return false;
+        }
+        int count = buffer.getInt(Long.BYTES);
+        if (count < 0 || length != JOURNAL_HEADER + (long) count * (Integer.BYTES + PAGE_SIZE) + Long.BYTES) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length - Long.BYTES);
+        return buffer.getLong(length - Long.BYTES) == crc.getValue();
+    }
+}
@@ -0,0 +1,311 @@
+package usagi.storage;
+
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.TaskListListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores tasks in a single file of fixed-size pages, indexed by a {@link BPlusTree} on task ID.
+ *
+ * <p>Every task gets an ID when it is first stored. Its record holds the IDs of the tasks before
+ * and after it in the list, so list order survives without rewriting positions, and the line
+ * written by {@link Task#toFileString()}. Adding, removing or updating one task therefore touches
+ * a handful of records, each found in O(log n) pages, and a save writes only the pages that
+ * changed. Only recently used pages are kept in memory, so the file may be far larger than the
+ * cache. The loaded {@link TaskList} still holds every task, however, so memory use grows with the
+ * length of the list as it does with {@link Storage}.</p>
+ *
+ * <p>The page file sits next to the configured task file, with the extension {@code .pages}. If it
+ * does not exist yet, tasks saved by {@link Storage} at the configured path are copied into it on
+ * first load.</p>
+ */
+public class PageStore implements TaskStore {
+
+    private static final String PAGE_EXTENSION = ".pages";
+    private static final int DEFAULT_CACHE_PAGES = 64;
+
+    private static final int HEAD = 0;
+    private static final int TAIL = 1;
+    private static final int NEXT_ID = 2;
+    private static final int COUNT = 3;
+    private static final long NONE = 0;
+
+    private final String filePath;
+    private final Path pagePath;
+    private final int cachePages;
+    private final PageTracker tracker = new PageTracker();
+    private final Map<Task, Long> ids = new IdentityHashMap<>();
+    private final ArrayDeque<Change> pending = new ArrayDeque<>();
+
+    private PageFile file;
+    private BPlusTree tree;
+    private TaskList trackedTasks;
+    private long nextId;
+    private int lastPagesWritten;
+    private long bytesWritten;
+
+    /**
+     * Creates a page store for the given task file path.
+     *
+     * @param filePath Path of the task file; the page file is stored next to it.
+     */
+    public PageStore(String filePath) {
+        this(filePath, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * Creates a page store for the given task file path and page cache size.
+     *
+     * @param filePath Path of the task file; the page file is stored next to it.
+     * @param cachePages Number of unchanged pages kept in memory.
+     */
+    public PageStore(String filePath, int cachePages) {
+        assert cachePages > 0 : "Page cache must hold at least one page";
+        this.filePath = filePath;
+        this.pagePath = resolvePagePath(Paths.get(filePath));
+        this.cachePages = cachePages;
+    }
+
+    @Override
+    public TaskList load() throws IOException {
+        boolean isNew = !Files.exists(pagePath);
+        open();
+
+        if (isNew && Files.exists(Paths.get(filePath))) {
+            TaskList tasks = new Storage(filePath).load();
+            save(tasks);
+            return tasks;
+        }
+
+        // Follow the links in list order, so only the page cache and the loaded tasks are held in memory.
+        TaskList tasks = new TaskList();
+        List<Integer> assignedDoneDates = new ArrayList<>();
+        ids.clear();
+        long count = file.getMeta(COUNT);
+        long visited = 0;
+        for (long id = file.getMeta(HEAD); id != NONE; ) {
+            if (++visited > count) {
+                throw new IOException(pagePath + " is damaged: the task links form a loop");
+            }
+            ByteBuffer record = find(id);
+            String line = lineOf(record);
+            Task task = Storage.parseTask(line);
+            if (task != null) {
+                if (Storage.isDoneDateAssigned(line, task)) {
+                    assignedDoneDates.add(tasks.size());
+                }
+                tasks.add(task);
+                ids.put(task, id);
+            }
+            id = nextOf(record);
+        }
+        nextId = Math.max(file.getMeta(NEXT_ID), 1);
+        track(tasks);
+        if (!assignedDoneDates.isEmpty()) {
+            // Save the completion dates given while loading, or they would move to today on every load.
+            for (int index : assignedDoneDates) {
+                tracker.onTaskUpdated(index, tasks.get(index));
+            }
+            save(tasks);
+        }
+        return tasks;
+    }
+
+    @Override
+    public void save(TaskList tasks) throws IOException {
+        open();
+        if (tasks != trackedTasks) {
+            rewrite(tasks);
+            track(tasks);
+        }
+
+        // A change leaves the queue only once applied, so a failed save resumes where it stopped.
+        while (!pending.isEmpty()) {
+            pending.peek().apply();
+            pending.poll();
+        }
+        file.setMeta(NEXT_ID, nextId);
+        long before = file.getBytesWritten();
+        lastPagesWritten = file.flush();
+        bytesWritten += file.getBytesWritten() - before;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+            tree = null;
+        }
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the number of pages written by the last save, including the header page.
+     *
+     * @return Pages written by the last save.
+     */
+    public int getLastPagesWritten() {
+        return lastPagesWritten;
+    }
+
+    /**
+     * Returns the number of pages in the page file, including free pages.
+     *
+     * @return Pages in the file, or 0 if it has not been opened.
+     */
+    public int getPageCount() {
+        return file == null ? 0 : file.getPageCount();
+    }
+
+    private static Path resolvePagePath(Path taskFile) {
+        String name = taskFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return taskFile.resolveSibling(base + PAGE_EXTENSION);
+    }
+
+    private void open() throws IOException {
+        if (file == null) {
+            file = new PageFile(pagePath, cachePages);
+            tree = new BPlusTree(file);
+        }
+    }
+
+    private void track(TaskList tasks) {
+        if (trackedTasks != null) {
+            trackedTasks.removeListener(tracker);
+        }
+        trackedTasks = tasks;
+        tasks.addListener(tracker);
+    }
+
+    /**
+     * Replaces the contents of the page file with the given tasks.
+     */
+    private void rewrite(TaskList tasks) throws IOException {
+        close();
+        Files.deleteIfExists(pagePath);
+        open();
+
+        pending.clear();
+        ids.clear();
+        nextId = 1;
+        for (int i = 0; i < tasks.size(); i++) {
+            long id = nextId++;
+            ids.put(tasks.get(i), id);
+            tree.put(id, record(i > 0 ? id - 1 : NONE, i + 1 < tasks.size() ? id + 1 : NONE, tasks.get(i)));
+        }
+        file.setMeta(HEAD, tasks.isEmpty() ? NONE : 1);
+        file.setMeta(TAIL, nextId - 1);
+        file.setMeta(COUNT, tasks.size());
+    }
+
+    private static byte[] record(long prev, long next, Task task) throws IOException {
+        byte[] line = task.toFileString().getBytes(StandardCharsets.UTF_8);
+        if (line.length > BPlusTree.MAX_RECORD - 2 * Long.BYTES) {
+            throw new IOException("Task is too long to store: " + task.getDescription());
+        }
+        return ByteBuffer.allocate(2 * Long.BYTES + line.length).putLong(prev).putLong(next).put(line).array();
+    }
+
+    private static long prevOf(ByteBuffer record) {
+        return record.getLong(0);
+    }
+
+    private static long nextOf(ByteBuffer record) {
+        return record.getLong(Long.BYTES);
+    }
+
+    private static String lineOf(ByteBuffer record) {
+        byte[] bytes = record.array();
+        return new String(bytes, 2 * Long.BYTES, bytes.length - 2 * Long.BYTES, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer find(long id) throws IOException {
+        byte[] record = tree.get(id);
+        if (record == null) {
+            throw new IOException(pagePath + " is damaged: task " + id + " is missing");
+        }
+        return ByteBuffer.wrap(record);
+    }
+
+    /**
+     * Points the neighbour link of a record, or the list head or tail when there is no record, at a task.
+     */
+    private void link(long id, boolean isNextLink, long target) throws IOException {
+        if (id == NONE) {
+            file.setMeta(isNextLink ? HEAD : TAIL, target);
+            return;
+        }
+        byte[] record = find(id).array().clone();
+        ByteBuffer.wrap(record).putLong(isNextLink ? Long.BYTES : 0, target);
+        tree.put(id, record);
+    }
+
+    /**
+     * A change to the tracked list, applied to the tree on the next save. Changes are queued rather
+     * than applied at once because listeners cannot report the I/O errors that reading pages may raise.
+     */
+    private interface Change {
+        void apply() throws IOException;
+    }
+
+    /**
+     * Queues the changes made to the tracked task list, recording each task's neighbours as they
+     * were at the time of the change so the queue can be replayed in order.
+     */
+    private class PageTracker implements TaskListListener {
+
+        @Override
+        public void onTaskAdded(int index, Task task) {
+            long id = nextId++;
+            ids.put(task, id);
+            long prev = index > 0 ? ids.get(trackedTasks.get(index - 1)) : NONE;
+            long next = index + 1 < trackedTasks.size() ? ids.get(trackedTasks.get(index + 1)) : NONE;
+            pending.add(() -> {
+                tree.put(id, record(prev, next, task));
+                link(prev, true, id);
+                link(next, false, id);
+                file.setMeta(COUNT, file.getMeta(COUNT) + 1);
+            });
+        }
+
+        @Override
+        public void onTaskRemoved(int index, Task task) {
+            long id = ids.remove(task);
+            pending.add(() -> {
+                ByteBuffer record = find(id);
+                link(prevOf(record), true, nextOf(record));
+                link(nextOf(record), false, prevOf(record));
+                tree.delete(id);
+                file.setMeta(COUNT, file.getMeta(COUNT) - 1);
+            });
+        }
+
+        @Override
+        public void onTaskUpdated(int index, Task task) {
+            long id = ids.get(task);
+            pending.add(() -> {
+                ByteBuffer record = find(id);
+                tree.put(id, record(prevOf(record), nextOf(record), task));
+            });
+        }
+    }
+}
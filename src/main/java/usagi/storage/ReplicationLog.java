@@ -0,0 +1,424 @@
+package usagi.storage;
+
+import usagi.task.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A log of changes to a task list, shipped by a primary to a follower data directory.
+ *
+ * <p>The log is a text file of one record per line: the kind of change, the position it applies
+ * to, the size of the list after it and, for adds and updates, the task's file line. Each start of
+ * the primary begins a new generation: the file is replaced by a header naming the generation, a
+ * {@code CLEAR} record and one {@code ADD} per task. From then on only changes are appended, so
+ * shipping costs time proportional to the changes. A follower reads from the offset it has
+ * reached, and a line cut short by a crash is neither applied nor kept: it is cut off before the
+ * next append.</p>
+ */
+public class ReplicationLog {
+
+    /** Name of the log file in the follower directory. */
+    public static final String FILE_NAME = "replication.log";
+
+    /** Name of the follower's checkpoint file, next to the log. */
+    public static final String CHECKPOINT_NAME = "replica.checkpoint";
+
+    private static final String HEADER_PREFIX = "usagi replication v1 ";
+    private static final String CHECKPOINT_PREFIX = "usagi replica checkpoint v1 ";
+
+    private final Path path;
+    private final Path checkpointPath;
+    private String generation;
+    private long committedSize;
+    private long bytesWritten;
+
+    /**
+     * Creates the log kept in a follower directory.
+     *
+     * @param directory Follower data directory.
+     */
+    public ReplicationLog(Path directory) {
+        this.path = directory.resolve(FILE_NAME);
+        this.checkpointPath = directory.resolve(CHECKPOINT_NAME);
+    }
+
+    /**
+     * Starts a new generation holding a snapshot of the given tasks, replacing any earlier log.
+     *
+     * @param tasks Tasks currently in the primary's list, in order.
+     * @throws IOException If the log cannot be written.
+     */
+    public void reset(List<Task> tasks) throws IOException {
+        Files.createDirectories(path.getParent());
+        String newGeneration = UUID.randomUUID().toString();
+        StringBuilder text = new StringBuilder(HEADER_PREFIX).append(newGeneration).append('\n');
+        text.append(Record.cleared().toLine()).append('\n');
+        for (int i = 0; i < tasks.size(); i++) {
+            text.append(Record.added(i, i + 1, tasks.get(i)).toLine()).append('\n');
+        }
+
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        replaceAtomically(path, bytes);
+        generation = newGeneration;
+        committedSize = bytes.length;
+        bytesWritten += bytes.length;
+    }
+
+    /**
+     * Durably appends records to the current generation.
+     *
+     * @param records Changes in the order they were made.
+     * @throws IOException If the log cannot be written; the records can then be appended again.
+     */
+    public void append(List<Record> records) throws IOException {
+        assert generation != null : "The log must be reset before records are appended";
+        if (records.isEmpty()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Record record : records) {
+            text.append(record.toLine()).append('\n');
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // Drop whatever a failed append left behind, so the new records start on a fresh line.
+            out.truncate(committedSize);
+            out.position(committedSize);
+            writeFully(out, bytes);
+            out.force(false);
+        }
+        committedSize += bytes.length;
+        bytesWritten += bytes.length;
+    }
+
+    /**
+     * Returns the number of bytes written to the log since it was created.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Reads the complete records after a position. If the log has started a new generation since
+     * the position was taken, reading starts from the beginning of the new generation.
+     *
+     * @param from Position reached so far, or null to read from the start.
+     * @return The records read and the position after them, or an empty chunk if there is no log yet.
+     * @throws IOException If the log cannot be read or holds a malformed record.
+     */
+    public Chunk read(Position from) throws IOException {
+        byte[] bytes;
+        String fileGeneration;
+        long start;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            String header = readHeader(in);
+            if (header == null) {
+                return new Chunk(Collections.emptyList(), from);
+            }
+            fileGeneration = header.substring(HEADER_PREFIX.length());
+            boolean isSameGeneration = from != null && from.generation.equals(fileGeneration);
+            start = isSameGeneration ? from.offset : header.length() + 1;
+            bytes = readFrom(in, start);
+        } catch (NoSuchFileException e) {
+            return new Chunk(Collections.emptyList(), from);
+        }
+
+        int end = lastLineEnd(bytes);
+        List<Record> records = new ArrayList<>();
+        String text = new String(bytes, 0, end, StandardCharsets.UTF_8);
+        for (String line : text.split("\n")) {
+            if (!line.isEmpty()) {
+                records.add(Record.parse(line));
+            }
+        }
+        return new Chunk(records, new Position(fileGeneration, start + end));
+    }
+
+    /**
+     * Durably saves a follower's list together with the position it has read up to, replacing the
+     * previous checkpoint in one step.
+     *
+     * @param position Position reached in the log.
+     * @param tasks Follower's tasks after applying every record before that position.
+     * @throws IOException If the checkpoint cannot be written.
+     */
+    public void saveCheckpoint(Position position, List<Task> tasks) throws IOException {
+        StringBuilder text = new StringBuilder(CHECKPOINT_PREFIX)
+                .append(position.generation).append(' ').append(position.offset).append('\n');
+        for (Task task : tasks) {
+            text.append(task.toFileString()).append('\n');
+        }
+        replaceAtomically(checkpointPath, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Loads the checkpoint saved by a follower.
+     *
+     * @return The checkpoint, or null if the follower has not saved one yet.
+     * @throws IOException If the checkpoint cannot be read or is malformed.
+     */
+    public Checkpoint loadCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(checkpointPath, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).startsWith(CHECKPOINT_PREFIX)) {
+            throw new IOException("Not a replica checkpoint: " + checkpointPath);
+        }
+        String[] header = lines.get(0).substring(CHECKPOINT_PREFIX.length()).split(" ");
+        Position position;
+        try {
+            position = new Position(header[0], Long.parseLong(header[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed replica checkpoint: " + checkpointPath, e);
+        }
+        ArrayList<Task> tasks = new ArrayList<>(lines.size() - 1);
+        for (String line : lines.subList(1, lines.size())) {
+            Task task = Storage.parseTask(line);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return new Checkpoint(position, tasks);
+    }
+
+    private static void replaceAtomically(Path target, byte[] bytes) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, bytes);
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String readHeader(FileChannel in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_PREFIX.length() + 64);
+        while (buffer.hasRemaining() && in.read(buffer) > 0) {
+            // Keep reading until the buffer is full or the file ends.
+        }
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        int newline = text.indexOf('\n');
+        if (newline < 0 || !text.startsWith(HEADER_PREFIX)) {
+            return null;
+        }
+        return text.substring(0, newline);
+    }
+
+    private static byte[] readFrom(FileChannel in, long start) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        in.position(start);
+        while (in.read(buffer) > 0) {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return out.toByteArray();
+    }
+
+    private static int lastLineEnd(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static void writeFully(FileChannel out, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Kinds of change recorded in the log.
+     */
+    public enum Kind {
+        ADD, REMOVE, UPDATE, CLEAR
+    }
+
+    /**
+     * One change to the task list.
+     */
+    public static class Record {
+        private final Kind kind;
+        private final int index;
+        private final int size;
+        private final String line;
+
+        private Record(Kind kind, int index, int size, String line) {
+            this.kind = kind;
+            this.index = index;
+            this.size = size;
+            this.line = line;
+        }
+
+        /**
+         * Creates the record of a task added at a position.
+         *
+         * @param index Position of the new task.
+         * @param size Size of the list after the change.
+         * @param task Task that was added.
+         * @return The record.
+         */
+        public static Record added(int index, int size, Task task) {
+            return new Record(Kind.ADD, index, size, task.toFileString());
+        }
+
+        /**
+         * Creates the record of a task removed from a position.
+         *
+         * @param index Position the task was removed from.
+         * @param size Size of the list after the change.
+         * @return The record.
+         */
+        public static Record removed(int index, int size) {
+            return new Record(Kind.REMOVE, index, size, null);
+        }
+
+        /**
+         * Creates the record of a task changed in place, e.g. marked as done.
+         *
+         * @param index Position of the task.
+         * @param size Size of the list.
+         * @param task Task as it is after the change.
+         * @return The record.
+         */
+        public static Record updated(int index, int size, Task task) {
+            return new Record(Kind.UPDATE, index, size, task.toFileString());
+        }
+
+        /**
+         * Creates the record that empties the list, at the start of a snapshot.
+         *
+         * @return The record.
+         */
+        public static Record cleared() {
+            return new Record(Kind.CLEAR, 0, 0, null);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the task added or updated by this record.
+         *
+         * @return The task, or null for a removal or a clear.
+         */
+        public Task getTask() {
+            return line == null ? null : Storage.parseTask(line);
+        }
+
+        String toLine() {
+            String prefix = kind.name() + " " + index + " " + size;
+            return line == null ? prefix : prefix + " " + line;
+        }
+
+        static Record parse(String text) throws IOException {
+            String[] parts = text.split(" ", 4);
+            try {
+                Kind kind = Kind.valueOf(parts[0]);
+                String line = parts.length == 4 ? parts[3] : null;
+                if ((kind == Kind.ADD || kind == Kind.UPDATE) && line == null) {
+                    throw new IOException("Replication record has no task: " + text);
+                }
+                return new Record(kind, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), line);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Malformed replication record: " + text, e);
+            }
+        }
+    }
+
+    /**
+     * How far a follower has read: a generation of the log and a byte offset within it.
+     */
+    public static class Position {
+        private final String generation;
+        private final long offset;
+
+        /**
+         * Creates a position.
+         *
+         * @param generation Generation of the log.
+         * @param offset Offset of the next record to read.
+         */
+        public Position(String generation, long offset) {
+            this.generation = generation;
+            this.offset = offset;
+        }
+
+        public String getGeneration() {
+            return generation;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+    }
+
+    /**
+     * Records read from the log, and the position to read from next.
+     */
+    public static class Chunk {
+        private final List<Record> records;
+        private final Position next;
+
+        Chunk(List<Record> records, Position next) {
+            this.records = records;
+            this.next = next;
+        }
+
+        public List<Record> getRecords() {
+            return records;
+        }
+
+        public Position getNext() {
+            return next;
+        }
+    }
+
+    /**
+     * A follower's saved list and the log position it corresponds to.
+     */
+    public static class Checkpoint {
+        private final Position position;
+        private final ArrayList<Task> tasks;
+
+        Checkpoint(Position position, ArrayList<Task> tasks) {
+            this.position = position;
+            this.tasks = tasks;
+        }
+
+        public Position getPosition() {
+            return position;
+        }
+
+        public ArrayList<Task> getTasks() {
+            return tasks;
+        }
+    }
+}
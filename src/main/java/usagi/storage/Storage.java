@@ -2,22 +2,85 @@ package usagi.storage;
 
 import usagi.task.Deadline;
 import usagi.task.Event;
+import usagi.task.IsoDates;
+import usagi.task.Priority;
+import usagi.task.Recurrence;
 import usagi.task.Task;
 import usagi.task.TaskList;
+import usagi.task.TaskChange;
+import usagi.task.TaskChangeListener;
 import usagi.task.Todo;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Scanner;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
 
 /**
  * Handles loading and saving of tasks to and from a file.
  * Manages file creation and directory setup for task persistence.
+ *
+ * <p>Tasks are stored in fixed-size segment files listed, in order, by a small manifest
+ * kept at the configured file path. Storage tracks which segments hold changed tasks,
+ * so a save only rewrites those segments. Each file is replaced atomically by writing
+ * a temporary file and renaming it over the original. A plain task file written by an
+ * older version is still loaded and is converted to segments on the next save.</p>
+ *
+ * <p>Changes made to the files by other programs can be detected and merged into the loaded
+ * task list with {@link #reload(TaskList)}, re-reading only the segments that changed.</p>
+ *
+ * <p>The word postings of the search index are kept in an {@link IndexFile} next to the manifest,
+ * stamped with a checksum of the segments it was built from, for lists of at least
+ * {@value #MIN_INDEXED_TASKS} tasks. Loading uses the file when the stamp matches; otherwise the
+ * index is built as before and the file is rewritten on a background thread, from a copy of the
+ * loaded list.</p>
  */
-public class Storage {
+public class Storage implements TaskStore {
 
-    private String filePath;
+    private static final String MANIFEST_HEADER = "# usagi segments v1";
+    private static final String SEGMENT_DIR_SUFFIX = "-segments";
+    private static final String INDEX_SUFFIX = "-index.bin";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_EXTENSION = ".txt";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int DEFAULT_SEGMENT_SIZE = 256;
+    // Smaller lists are indexed in a few milliseconds, so an index file would not pay for itself.
+    private static final int MIN_INDEXED_TASKS = 4096;
+
+    private final String filePath;
+    private final Path segmentDir;
+    private final Path indexPath;
+    private final int segmentSize;
+    private final Object indexLock = new Object();
+
+    private final ArrayList<Segment> segments = new ArrayList<>();
+    private final ArrayList<String> obsoleteSegments = new ArrayList<>();
+    private final SegmentTracker tracker = new SegmentTracker();
+    private final Map<Path, FileStamp> stamps = new HashMap<>();
+    private TaskList trackedTasks;
+    private int nextSegmentId;
+    private boolean isManifestDirty;
+    private long bytesWritten;
+    private volatile long indexChecksum = -1;
+    // Failure of the last background index write, reported by the next saveIndexes.
+    private volatile IOException indexFailure;
 
     /**
      * Creates a Storage instance with the specified file path.
@@ -25,7 +88,21 @@ public class Storage {
      * @param filePath Path to the file where tasks will be stored.
      */
     public Storage(String filePath) {
+        this(filePath, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a Storage instance with the specified file path and segment size.
+     *
+     * @param filePath Path to the manifest file where tasks will be stored.
+     * @param segmentSize Maximum number of tasks kept in a single segment file.
+     */
+    public Storage(String filePath, int segmentSize) {
+        assert segmentSize > 0 : "Segment size must be positive";
         this.filePath = filePath;
+        this.segmentSize = segmentSize;
+        this.segmentDir = resolveSegmentDir(Paths.get(filePath));
+        this.indexPath = segmentDir.resolveSibling(baseName(Paths.get(filePath)) + INDEX_SUFFIX);
     }
 
     /**
@@ -36,77 +113,789 @@ public class Storage {
      * @return TaskList containing all loaded tasks.
      * @throws IOException If file operations fail.
      */
+    @Override
     public TaskList load() throws IOException {
         TaskList tasks = new TaskList();
+        resetLayout();
 
         File file = new File(this.filePath);
         File folder = file.getParentFile();
 
-        if (!folder.exists()) {
+        if (folder != null && !folder.exists()) {
             folder.mkdirs();
         }
 
         if (!file.exists()) {
             file.createNewFile();
+            stamp(file.toPath());
+            track(tasks);
             return tasks; // empty list on first run
         }
 
-        Scanner scanner = new Scanner(file);
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine().trim();
-            if (line.isEmpty()) {
-                continue;
+        Snapshot snapshot = readSnapshot();
+        boolean isIndexed = snapshot.isSegmented && snapshot.tasks.size() >= MIN_INDEXED_TASKS;
+        long checksum = isIndexed ? checksumOf(snapshot.segments) : -1;
+        IndexFile index = checksum < 0 ? null : openIndex(checksum, snapshot.tasks.size());
+        tasks = new TaskList(new ArrayList<>(snapshot.tasks), index);
+        adopt(snapshot, tasks);
+
+        track(tasks);
+        if (snapshot.hasAssignedDoneDates) {
+            // Without this, such tasks would be done "today" on every load and never archived.
+            save(tasks);
+        }
+        if (index != null) {
+            indexChecksum = checksum;
+        } else {
+            rebuildIndexInBackground(tasks);
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes the search index file for the saved tasks, unless it is already up to date.
+     * Nothing is written while the list has unsaved changes.
+     *
+     * @param tasks Task list previously returned by {@link #load()}.
+     * @throws IOException If the index file cannot be written, or could not be written in the
+     *     background after loading and there is nothing to retry now.
+     */
+    @Override
+    public void saveIndexes(TaskList tasks) throws IOException {
+        IOException backgroundFailure = indexFailure;
+        indexFailure = null;
+        long checksum = savedChecksum();
+        if (tasks != trackedTasks || tasks.size() < MIN_INDEXED_TASKS || checksum < 0 || checksum == indexChecksum) {
+            if (backgroundFailure != null) {
+                throw backgroundFailure;
             }
+            return;
+        }
+        writeIndex(checksum, new ArrayList<>(tasks.displayTasks()));
+    }
+
+    /**
+     * Returns whether the storage files were changed by another program since they were last
+     * loaded or saved by this storage.
+     *
+     * @return True if the manifest or any segment file differs from what this storage last saw.
+     * @throws IOException If the file attributes cannot be read.
+     */
+    public boolean hasExternalChanges() throws IOException {
+        Path manifest = Paths.get(filePath);
+        if (trackedTasks == null || !Files.exists(manifest)) {
+            // A missing manifest is usually a sync tool midway through replacing it.
+            return false;
+        }
+        if (isChanged(manifest)) {
+            return true;
+        }
+        for (Segment segment : segments) {
+            if (isChanged(segmentDir.resolve(segment.fileName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies changes made to the storage files by another program to the loaded task list.
+     * Only the segments that changed on disk are re-read, and only the tasks that differ are
+     * added, removed or updated, so the list is never replaced wholesale.
+     *
+     * @param tasks Task list previously returned by {@link #load()}. Any other list is left untouched.
+     * @return Number of tasks that were added, removed or updated.
+     * @throws IOException If the changed files cannot be read.
+     */
+    @Override
+    public int reload(TaskList tasks) throws IOException {
+        if (tasks != trackedTasks || !hasExternalChanges()) {
+            return 0;
+        }
 
-            String[] parts = line.split("\\|");
-            for (int i = 0; i < parts.length; i++) {
-                parts[i] = parts[i].trim();
+        // The reloaded tasks already match the files, so they must not mark segments dirty.
+        tasks.removeChangeListener(tracker);
+        try {
+            if (isChanged(Paths.get(filePath))) {
+                Snapshot snapshot = readSnapshot();
+                int changes = applyDiff(tasks, 0, tasks.size(), snapshot.tasks);
+                adopt(snapshot, tasks);
+                return changes;
             }
+            return reloadChangedSegments(tasks);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Could not reload " + filePath + ": " + e.getMessage(), e);
+        } finally {
+            tasks.addChangeListener(tracker);
+        }
+    }
 
-            String type = parts[0]; // T, D, or E
-            boolean isDone = parts[1].equals("1");
-            String description = parts[2];
+    /**
+     * Creates a watcher that calls back when the storage files change on disk.
+     * The callback also fires for this storage's own writes; use {@link #hasExternalChanges()} to tell them apart.
+     *
+     * @param onChange Callback run on the watcher thread after files have changed.
+     * @return The started watcher.
+     * @throws IOException If the directories cannot be watched.
+     */
+    @Override
+    public StorageWatcher watch(Runnable onChange) throws IOException {
+        Files.createDirectories(segmentDir);
+        StorageWatcher watcher = new StorageWatcher(Paths.get(filePath).toAbsolutePath(), segmentDir, onChange);
+        watcher.start();
+        return watcher;
+    }
 
-            Task task = null;
+    /**
+     * Saves all tasks from the task list to the storage file.
+     * Only segments holding tasks that changed since the last save are rewritten.
+     * A task list that was not produced by this storage is written out in full.
+     * New segment files are written before the manifest that names them replaces the old one, and
+     * segments the old manifest named are deleted only after that, so a save cut short leaves the
+     * previous save readable.
+     *
+     * @param tasks TaskList containing all tasks to be saved.
+     * @throws IOException If file writing fails.
+     */
+    @Override
+    public void save(TaskList tasks) throws IOException {
+        if (tasks != trackedTasks) {
+            rebuildLayout(tasks);
+            track(tasks);
+        }
 
-            switch (type) {
-            case "T":
-                task = new Todo(description);
-                break;
-            case "D":
-                task = new Deadline(description, parts[3]);
-                break;
-            case "E":
-                task = new Event(description, parts[3], parts[4]);
-                break;
-            default:
-                // Skip unknown task types
-                break;
+        Files.createDirectories(segmentDir);
+
+        int start = 0;
+        for (Segment segment : segments) {
+            if (segment.isDirty) {
+                writeSegment(segment, tasks, start);
+                segment.isDirty = false;
             }
+            start += segment.count;
+        }
+
+        if (isManifestDirty) {
+            writeManifest();
+            isManifestDirty = false;
+        }
 
-            if (isDone && task != null) {
-                task.markAsDone();
+        for (String fileName : obsoleteSegments) {
+            Path obsolete = segmentDir.resolve(fileName);
+            Files.deleteIfExists(obsolete);
+            stamps.remove(obsolete);
+        }
+        obsoleteSegments.clear();
+    }
+
+    private IndexFile openIndex(long checksum, int taskCount) {
+        try {
+            return IndexFile.open(indexPath, checksum, taskCount);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index file for the freshly loaded tasks on a background thread, so that the next
+     * load can skip tokenizing them. A list read from a legacy file is indexed once it is saved.
+     * A failure is kept for {@link #saveIndexes} to report, which retries the write.
+     */
+    private void rebuildIndexInBackground(TaskList tasks) {
+        long checksum = savedChecksum();
+        if (tasks.size() < MIN_INDEXED_TASKS || checksum < 0) {
+            return;
+        }
+        List<Task> loaded = new ArrayList<>(tasks.displayTasks());
+        Thread writer = new Thread(() -> {
+            try {
+                writeIndex(checksum, loaded);
+            } catch (IOException e) {
+                indexFailure = e;
             }
+        }, "usagi-index");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeIndex(long checksum, List<Task> tasks) throws IOException {
+        synchronized (indexLock) {
+            if (checksum == indexChecksum) {
+                return;
+            }
+            IndexFile.write(indexPath, checksum, tasks);
+            indexChecksum = checksum;
+        }
+    }
+
+    /**
+     * Returns the checksum of the task data as saved, or -1 if some tasks are not saved yet.
+     */
+    private long savedChecksum() {
+        if (isManifestDirty || segments.stream().anyMatch(segment -> segment.isDirty)) {
+            return -1;
+        }
+        return checksumOf(segments);
+    }
+
+    /**
+     * Combines the names and contents checksums of the non-empty segments, in order.
+     */
+    private static long checksumOf(List<Segment> segments) {
+        CRC32 crc = new CRC32();
+        ByteBuffer value = ByteBuffer.allocate(Long.BYTES);
+        for (Segment segment : segments) {
+            if (segment.count > 0) {
+                crc.update(segment.fileName.getBytes(StandardCharsets.UTF_8));
+                crc.update(value.clear().putLong(segment.checksum).flip());
+            }
+        }
+        return crc.getValue();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Parses a single line of the task file format into a task.
+     * Fields after the fixed ones are optional {@code key=value} pairs, such as {@code every=week}
+     * or {@code done=2025-06-01}.
+     *
+     * @param line Line in the format produced by {@link Task#toFileString()}.
+     * @return The parsed task, or null if the line is blank or of an unknown type.
+     */
+    static Task parseTask(String line) {
+        line = line.trim();
+        if (line.isEmpty()) {
+            return null;
+        }
+
+        String[] parts = line.split("\\|");
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = parts[i].trim();
+        }
+
+        String type = parts[0]; // T, D, or E
+        boolean isDone = parts[1].equals("1");
+        String description = parts[2];
+
+        Task task = null;
+        Map<String, String> fields = Map.of();
+
+        switch (type) {
+        case "T":
+            fields = optionalFields(parts, 3);
+            task = new Todo(description);
+            break;
+        case "D":
+            fields = optionalFields(parts, 4);
+            task = new Deadline(description, parts[3], recurrenceOf(fields));
+            break;
+        case "E":
+            fields = optionalFields(parts, 5);
+            task = new Event(description, parts[3], parts[4], recurrenceOf(fields));
+            break;
+        default:
+            // Skip unknown task types
+            break;
+        }
+
+        if (task != null && fields.containsKey("priority")) {
+            task.setPriority(Priority.of(fields.get("priority")));
+        }
+        if (isDone && task != null) {
+            markDone(task, fields.get("done"));
+        }
+        return task;
+    }
+
+    /**
+     * Collects the optional {@code key=value} fields that follow the fixed fields of a line.
+     */
+    private static Map<String, String> optionalFields(String[] parts, int first) {
+        Map<String, String> fields = new HashMap<>();
+        for (int i = first; i < parts.length; i++) {
+            int equals = parts[i].indexOf('=');
+            if (equals > 0) {
+                fields.put(parts[i].substring(0, equals).trim(), parts[i].substring(equals + 1).trim());
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Marks a loaded task done on its recorded date. Tasks saved before completion dates were
+     * recorded, or with an unreadable date, count as done today; see {@link #isDoneDateAssigned}.
+     */
+    private static void markDone(Task task, String date) {
+        try {
+            task.markAsDone(date == null ? LocalDate.now() : IsoDates.parseDate(date));
+        } catch (DateTimeParseException e) {
+            task.markAsDone(LocalDate.now());
+        }
+    }
+
+    /**
+     * Returns whether a task parsed from a line was given today as its completion date because the
+     * line recorded no readable one. The line then needs rewriting to keep that date.
+     *
+     * @param line Line the task was parsed from.
+     * @param task Task parsed from the line.
+     */
+    static boolean isDoneDateAssigned(String line, Task task) {
+        return task.isDone() && !line.contains("done=" + IsoDates.formatDate(task.getDoneOn()));
+    }
+
+    private static Recurrence recurrenceOf(Map<String, String> fields) {
+        String every = fields.get("every");
+        return every == null ? null : Recurrence.of(every);
+    }
+
+    /**
+     * Reads the current contents of the storage files without touching the tracked layout.
+     */
+    private Snapshot readSnapshot() throws IOException {
+        Snapshot snapshot = new Snapshot();
+        Path manifest = Paths.get(filePath);
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+
+        if (lines.isEmpty() || !lines.get(0).trim().equals(MANIFEST_HEADER)) {
+            for (String line : lines) {
+                Task task = parseTask(line);
+                if (task != null) {
+                    snapshot.tasks.add(task);
+                    snapshot.hasAssignedDoneDates |= isDoneDateAssigned(line, task);
+                }
+            }
+            return snapshot;
+        }
+
+        snapshot.isSegmented = true;
+        for (int i = 1; i < lines.size(); i++) {
+            String fileName = lines.get(i).trim();
+            if (fileName.isEmpty()) {
+                continue;
+            }
+            Segment segment = new Segment(fileName);
+            readSegment(segmentDir.resolve(fileName), segment, snapshot.tasks);
+            snapshot.segments.add(segment);
+            snapshot.hasAssignedDoneDates |= segment.isDirty;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reads the tasks of a segment file, recording their count and the checksum of the file. The
+     * segment is marked dirty if a done task in it was given a completion date while reading.
+     */
+    private static void readSegment(Path segmentFile, Segment segment, List<Task> into) throws IOException {
+        segment.count = 0;
+        segment.checksum = 0;
+        if (!Files.exists(segmentFile)) {
+            return;
+        }
+        byte[] contents = Files.readAllBytes(segmentFile);
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+        segment.checksum = crc.getValue();
+        for (String line : new String(contents, StandardCharsets.UTF_8).split("\\r\\n|\\n|\\r")) {
+            Task task = parseTask(line);
             if (task != null) {
-                tasks.add(task);
+                into.add(task);
+                segment.count++;
+                segment.isDirty |= isDoneDateAssigned(line, task);
             }
         }
-        scanner.close();
-        return tasks;
     }
 
     /**
-     * Saves all tasks from the task list to the storage file.
-     * Overwrites the existing file content.
+     * Makes the layout of a freshly read snapshot the tracked layout of the given tasks.
+     * A legacy single-file snapshot is laid out as new segments so the next save converts it.
+     */
+    private void adopt(Snapshot snapshot, TaskList tasks) throws IOException {
+        stamp(Paths.get(filePath));
+        if (!snapshot.isSegmented) {
+            rebuildLayout(tasks);
+            return;
+        }
+
+        for (Segment segment : segments) {
+            if (snapshot.segments.stream().noneMatch(s -> s.fileName.equals(segment.fileName))) {
+                obsoleteSegments.add(segment.fileName);
+            }
+        }
+        segments.clear();
+
+        for (Segment segment : snapshot.segments) {
+            nextSegmentId = Math.max(nextSegmentId, parseSegmentId(segment.fileName) + 1);
+            if (segment.count == 0) {
+                obsoleteSegments.add(segment.fileName);
+                isManifestDirty = true;
+            } else {
+                segments.add(segment);
+                stamp(segmentDir.resolve(segment.fileName));
+            }
+        }
+    }
+
+    /**
+     * Re-reads the segments whose files changed and applies their differences, last segment first
+     * so that the positions of earlier segments stay valid.
+     */
+    private int reloadChangedSegments(TaskList tasks) throws IOException {
+        int[] starts = new int[segments.size()];
+        for (int i = 1; i < segments.size(); i++) {
+            starts[i] = starts[i - 1] + segments.get(i - 1).count;
+        }
+
+        int changes = 0;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            Path segmentFile = segmentDir.resolve(segment.fileName);
+            if (!isChanged(segmentFile)) {
+                continue;
+            }
+
+            List<Task> fresh = new ArrayList<>();
+            int oldCount = segment.count;
+            readSegment(segmentFile, segment, fresh);
+            changes += applyDiff(tasks, starts[i], oldCount, fresh);
+            stamp(segmentFile);
+
+            if (segment.count == 0) {
+                segments.remove(i);
+                obsoleteSegments.add(segment.fileName);
+                isManifestDirty = true;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Turns the tasks in {@code [offset, offset + oldCount)} into {@code fresh} with as few list operations
+     * as possible. The common prefix and suffix are kept, tasks that only changed status are updated
+     * in place, and the remainder is replaced.
      *
-     * @param tasks TaskList containing all tasks to be saved.
-     * @throws IOException If file writing fails.
+     * @return Number of tasks added, removed or updated.
      */
-    public void save(TaskList tasks) throws IOException {
-        FileWriter fileWriter = new FileWriter(this.filePath);
-        for (int i = 0; i < tasks.size(); i++) {
-            fileWriter.write(tasks.get(i).toFileString() + System.lineSeparator());
+    private static int applyDiff(TaskList tasks, int offset, int oldCount, List<Task> fresh) {
+        int newCount = fresh.size();
+        int prefix = 0;
+        while (prefix < oldCount && prefix < newCount
+                && isSameRecord(tasks.get(offset + prefix), fresh.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldCount - prefix && suffix < newCount - prefix
+                && isSameRecord(tasks.get(offset + oldCount - 1 - suffix), fresh.get(newCount - 1 - suffix))) {
+            suffix++;
+        }
+
+        int oldMiddle = oldCount - prefix - suffix;
+        int newMiddle = newCount - prefix - suffix;
+        int common = Math.min(oldMiddle, newMiddle);
+        int position = offset + prefix;
+
+        for (int k = 0; k < common; k++) {
+            Task current = tasks.get(position + k);
+            Task replacement = fresh.get(prefix + k);
+            if (current.equals(replacement)) {
+                tasks.setDone(position + k, replacement.isDone());
+            } else {
+                tasks.remove(position + k);
+                tasks.add(position + k, replacement);
+            }
+        }
+        for (int k = common; k < oldMiddle; k++) {
+            tasks.remove(position + common);
+        }
+        for (int k = common; k < newMiddle; k++) {
+            tasks.add(position + k, fresh.get(prefix + k));
+        }
+        return Math.max(oldMiddle, newMiddle);
+    }
+
+    private static boolean isSameRecord(Task a, Task b) {
+        return a.toFileString().equals(b.toFileString());
+    }
+
+    private void stamp(Path file) throws IOException {
+        FileStamp stamp = FileStamp.of(file);
+        if (stamp == null) {
+            stamps.remove(file);
+        } else {
+            stamps.put(file, stamp);
+        }
+    }
+
+    private boolean isChanged(Path file) throws IOException {
+        FileStamp known = stamps.get(file);
+        // Files this storage has never seen, e.g. segments not yet saved, are not external changes.
+        return known != null && !known.equals(FileStamp.of(file));
+    }
+
+    private void track(TaskList tasks) {
+        if (trackedTasks != null) {
+            trackedTasks.removeChangeListener(tracker);
+        }
+        trackedTasks = tasks;
+        tasks.addChangeListener(tracker);
+    }
+
+    private void resetLayout() {
+        if (trackedTasks != null) {
+            trackedTasks.removeChangeListener(tracker);
+            trackedTasks = null;
+        }
+        segments.clear();
+        obsoleteSegments.clear();
+        stamps.clear();
+        nextSegmentId = 0;
+        isManifestDirty = false;
+    }
+
+    /**
+     * Discards the current segment layout and splits the given tasks into new, dirty segments.
+     */
+    private void rebuildLayout(TaskList tasks) {
+        for (Segment segment : segments) {
+            obsoleteSegments.add(segment.fileName);
+        }
+        segments.clear();
+
+        for (int start = 0; start < tasks.size(); start += segmentSize) {
+            Segment segment = newSegment();
+            segment.count = Math.min(segmentSize, tasks.size() - start);
+            segments.add(segment);
+        }
+        isManifestDirty = true;
+    }
+
+    private Segment newSegment() {
+        Segment segment = new Segment(String.format("%s%06d%s", SEGMENT_PREFIX, nextSegmentId++, SEGMENT_EXTENSION));
+        segment.isDirty = true;
+        return segment;
+    }
+
+    private void writeSegment(Segment segment, TaskList tasks, int start) throws IOException {
+        Path target = segmentDir.resolve(segment.fileName);
+        Path temp = segmentDir.resolve(segment.fileName + TEMP_EXTENSION);
+        StringBuilder contents = new StringBuilder();
+        for (int i = start; i < start + segment.count; i++) {
+            contents.append(tasks.get(i).toFileString()).append(System.lineSeparator());
+        }
+        byte[] bytes = contents.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(temp, bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        segment.checksum = crc.getValue();
+        bytesWritten += bytes.length;
+        replaceAtomically(temp, target);
+        stamp(target);
+    }
+
+    private void writeManifest() throws IOException {
+        Path target = Paths.get(filePath);
+        Path temp = Paths.get(filePath + TEMP_EXTENSION);
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(MANIFEST_HEADER);
+            writer.write(System.lineSeparator());
+            for (Segment segment : segments) {
+                writer.write(segment.fileName);
+                writer.write(System.lineSeparator());
+            }
+        }
+        bytesWritten += Files.size(temp);
+        replaceAtomically(temp, target);
+        stamp(target);
+    }
+
+    private static void replaceAtomically(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Path resolveSegmentDir(Path manifest) {
+        Path parent = manifest.toAbsolutePath().getParent();
+        return parent.resolve(baseName(manifest) + SEGMENT_DIR_SUFFIX);
+    }
+
+    private static String baseName(Path manifest) {
+        String fileName = manifest.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static int parseSegmentId(String fileName) {
+        try {
+            String id = fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_EXTENSION.length());
+            return Integer.parseInt(id);
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A contiguous run of tasks persisted together in one segment file.
+     */
+    private static class Segment {
+        private final String fileName;
+        private int count;
+        private long checksum;
+        private boolean isDirty;
+
+        Segment(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    /**
+     * The contents of the storage files as read from disk.
+     */
+    private static class Snapshot {
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<Segment> segments = new ArrayList<>();
+        private boolean isSegmented;
+        private boolean hasAssignedDoneDates;
+    }
+
+    /**
+     * Identity, size and modification time of a file, used to notice when another program rewrote it.
+     */
+    private static class FileStamp {
+        private final Object fileKey;
+        private final FileTime modified;
+        private final long size;
+
+        private FileStamp(Object fileKey, FileTime modified, long size) {
+            this.fileKey = fileKey;
+            this.modified = modified;
+            this.size = size;
+        }
+
+        static FileStamp of(Path file) throws IOException {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileStamp(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FileStamp)) {
+                return false;
+            }
+            FileStamp other = (FileStamp) obj;
+            return Objects.equals(fileKey, other.fileKey) && modified.equals(other.modified) && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileKey, modified, size);
+        }
+    }
+
+    /**
+     * Keeps the segment layout in step with the tracked task list and marks touched segments dirty.
+     */
+    private class SegmentTracker implements TaskChangeListener {
+
+        @Override
+        public void onTasksChanged(List<TaskChange> changes) {
+            for (TaskChange change : changes) {
+                switch (change.getKind()) {
+                case ADDED:
+                    added(change.getIndex());
+                    break;
+                case REMOVED:
+                    removed(change.getIndex());
+                    break;
+                default:
+                    segments.get(locate(change.getIndex())).isDirty = true;
+                    break;
+                }
+            }
+        }
+
+        private void added(int index) {
+            int start = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                if (index < start + segment.count) {
+                    insertInto(i, index - start);
+                    return;
+                }
+                if (index == start + segment.count && i == segments.size() - 1) {
+                    insertInto(i, segment.count);
+                    return;
+                }
+                start += segment.count;
+            }
+
+            // Empty layout: start the first segment.
+            Segment segment = newSegment();
+            segment.count = 1;
+            segments.add(segment);
+            isManifestDirty = true;
+        }
+
+        private void removed(int index) {
+            int segmentIndex = locate(index);
+            Segment segment = segments.get(segmentIndex);
+            segment.count--;
+            segment.isDirty = true;
+            if (segment.count == 0) {
+                segments.remove(segmentIndex);
+                obsoleteSegments.add(segment.fileName);
+                isManifestDirty = true;
+            }
+        }
+
+        /**
+         * Inserts one task at the given offset of a segment, splitting the segment when it overflows.
+         */
+        private void insertInto(int segmentIndex, int offset) {
+            Segment segment = segments.get(segmentIndex);
+            if (segment.count < segmentSize) {
+                segment.count++;
+                segment.isDirty = true;
+                return;
+            }
+
+            Segment extra = newSegment();
+            isManifestDirty = true;
+            if (offset == segment.count) {
+                // Appending past a full segment: open a new one rather than splitting.
+                extra.count = 1;
+            } else {
+                // Both halves go to new files, so the saved manifest keeps naming the untouched
+                // full segment until the manifest naming the halves has replaced it.
+                Segment head = newSegment();
+                int tail = (segment.count + 1) / 2;
+                extra.count = tail;
+                head.count = segment.count + 1 - tail;
+                segments.set(segmentIndex, head);
+                obsoleteSegments.add(segment.fileName);
+            }
+            segments.add(segmentIndex + 1, extra);
+        }
+
+        private int locate(int index) {
+            int start = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                start += segments.get(i).count;
+                if (index < start) {
+                    return i;
+                }
+            }
+            throw new IndexOutOfBoundsException("No segment holds task " + index);
         }
-        fileWriter.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package usagi.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the storage manifest and segment directory for changes made on disk and runs a callback
+ * on a background thread. Bursts of events, such as a sync tool rewriting several files, are
+ * coalesced into a single callback.
+ */
+public class StorageWatcher implements Closeable {
+
+    private static final long SETTLE_MILLIS = 100;
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path manifest;
+    private final Path segmentDir;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    StorageWatcher(Path manifest, Path segmentDir, Runnable onChange) throws IOException {
+        this.manifest = manifest;
+        this.segmentDir = segmentDir;
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::run, "usagi-storage-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Registers the watched directories and starts the watcher thread.
+     *
+     * @throws IOException If a directory cannot be watched.
+     */
+    void start() throws IOException {
+        manifest.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        segmentDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        thread.start();
+    }
+
+    /**
+     * Stops watching. No further callbacks are run.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean isRelevant = drain(watchService.take());
+
+                // Let a burst of writes settle before reporting it once.
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isRelevant |= drain(key);
+                }
+
+                if (isRelevant) {
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher was closed.
+        }
+    }
+
+    /**
+     * Consumes the events of a key and reports whether any of them concern the storage files.
+     */
+    private boolean drain(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        boolean isRelevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                isRelevant = true;
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (name.toString().endsWith(TEMP_EXTENSION)) {
+                continue;
+            }
+            if (dir.equals(segmentDir) || dir.resolve(name).equals(manifest)) {
+                isRelevant = true;
+            }
+        }
+        key.reset();
+        return isRelevant;
+    }
+}
@@ -0,0 +1,208 @@
+package usagi.storage;
+
+import usagi.task.Task;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An append-only, compressed file of tasks that are no longer in the working list.
+ *
+ * <p>Each call to {@link #append(List)} adds one frame: the length of a gzip member followed by the
+ * member, holding the tasks' file lines. Existing frames are never rewritten. A frame cut short by
+ * a crash is ignored when reading and cut off before the next append, so a failed append loses
+ * nothing that was archived before it. Reading decompresses one frame at a time, so the archive
+ * can be searched without holding it in memory.</p>
+ */
+public class TaskArchive {
+
+    private static final String ARCHIVE_SUFFIX = "-archive.gz";
+
+    private final Path path;
+
+    /**
+     * Creates an archive stored at the given path.
+     *
+     * @param path Path of the archive file.
+     */
+    public TaskArchive(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the archive kept next to a task file, e.g. {@code data/tasks-archive.gz} for
+     * {@code data/tasks.txt}.
+     *
+     * @param filePath Path of the task file.
+     * @return The archive for that task file.
+     */
+    public static TaskArchive forTaskFile(String filePath) {
+        Path taskFile = Paths.get(filePath);
+        String name = taskFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new TaskArchive(taskFile.resolveSibling(base + ARCHIVE_SUFFIX));
+    }
+
+    /**
+     * Durably appends tasks to the archive. When this returns, the tasks can safely be removed
+     * from the working list.
+     *
+     * @param tasks Tasks to archive.
+     * @throws IOException If the archive cannot be written.
+     */
+    public void append(List<Task> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(compressed), StandardCharsets.UTF_8)) {
+            for (Task task : tasks) {
+                writer.write(task.toFileString());
+                writer.write('\n');
+            }
+        }
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ)) {
+            long end = completeLength(channel);
+            channel.truncate(end);
+            ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + compressed.size());
+            frame.putInt(compressed.size()).put(compressed.toByteArray()).flip();
+            while (frame.hasRemaining()) {
+                channel.write(frame, end + frame.position());
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Returns the archived tasks, oldest first, read lazily from the file.
+     * The stream must be closed to release the file.
+     *
+     * @return Stream of archived tasks; empty if nothing has been archived.
+     * @throws IOException If the archive cannot be opened.
+     */
+    public Stream<Task> stream() throws IOException {
+        if (!Files.exists(path)) {
+            return Stream.empty();
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        Iterator<Task> tasks = new FrameIterator(in);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(tasks, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Returns the length of the archive up to the end of its last complete frame.
+     */
+    private static long completeLength(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        while (position + Integer.BYTES <= size) {
+            length.clear();
+            while (length.hasRemaining()) {
+                channel.read(length, position + length.position());
+            }
+            long next = position + Integer.BYTES + length.getInt(0);
+            if (length.getInt(0) < 0 || next > size) {
+                break;
+            }
+            position = next;
+        }
+        return position;
+    }
+
+    /**
+     * Reads the archive frame by frame, decompressing each one only when its tasks are reached.
+     */
+    private static class FrameIterator implements Iterator<Task> {
+        private final DataInputStream in;
+        private BufferedReader frame;
+        private Task next;
+
+        FrameIterator(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    String line = frame == null ? null : frame.readLine();
+                    if (line != null) {
+                        next = Storage.parseTask(line);
+                    } else if (!openNextFrame()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Task task = next;
+            next = null;
+            return task;
+        }
+
+        private boolean openNextFrame() throws IOException {
+            byte[] member;
+            try {
+                int length = in.readInt();
+                if (length < 0) {
+                    return false;
+                }
+                member = new byte[length];
+                in.readFully(member);
+            } catch (EOFException e) {
+                return false; // End of the archive, or a frame cut short by a crash.
+            }
+            InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(member));
+            frame = new BufferedReader(new InputStreamReader(gzip, StandardCharsets.UTF_8));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package usagi.storage;
+
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.IsoDates;
+import usagi.task.Recurrence;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+import usagi.task.Transaction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports and exports tasks as CSV or JSON files, chosen by file extension.
+ * Both directions stream one record at a time, so the file is never held in memory as a whole.
+ */
+public class TaskExchange {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * File formats supported for import and export.
+     */
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * Returns the format matching the extension of the given file, or null if it is not supported.
+         *
+         * @param file File to check.
+         * @return Format of the file, or null.
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".json")) {
+                return JSON;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Summary of an import.
+     */
+    public static class ImportResult {
+        private int added;
+        private int duplicates;
+        private int invalid;
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public int getInvalid() {
+            return invalid;
+        }
+    }
+
+    /**
+     * Writes all tasks to the given file, one record at a time through a buffered channel writer.
+     *
+     * @param tasks Tasks to export.
+     * @param file CSV or JSON file to write.
+     * @return Number of tasks exported.
+     * @throws IOException If the file cannot be written.
+     */
+    public static int exportTasks(TaskList tasks, Path file) throws IOException {
+        Format format = requireFormat(file);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8),
+                        WRITE_BUFFER_SIZE)) {
+            if (format == Format.CSV) {
+                writer.write(String.join(",", CsvTaskReader.COLUMNS));
+                writer.write('\n');
+                for (int i = 0; i < tasks.size(); i++) {
+                    writeCsvRecord(writer, tasks.get(i));
+                }
+            } else {
+                writer.write('[');
+                for (int i = 0; i < tasks.size(); i++) {
+                    writer.write(i == 0 ? "\n  " : ",\n  ");
+                    writeJsonRecord(writer, tasks.get(i));
+                }
+                writer.write("\n]\n");
+            }
+        }
+        return tasks.size();
+    }
+
+    /**
+     * Reads tasks from the given file and appends those not already in the list.
+     * Duplicates, including repeats within the file, are looked up in the list's word index as each
+     * record is read, so no copy of the list is made. Records that cannot be turned into a task are
+     * skipped. The added tasks are kept for undo, so memory grows with the number of tasks added.
+     *
+     * <p>The import is all or nothing: if the file cannot be read to the end, the tasks read so far
+     * are rolled back. It runs in its own transaction unless one is already open on the list, in
+     * which case rolling back is left to that transaction. The added tasks are undone together.</p>
+     *
+     * @param tasks Task list to add the imported tasks to.
+     * @param file CSV or JSON file to read.
+     * @return Counts of added, duplicate and invalid records.
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public static ImportResult importTasks(TaskList tasks, Path file) throws IOException {
+        Format format = requireFormat(file);
+        ImportResult result = new ImportResult();
+
+        int start = tasks.size();
+        List<Task> added = new ArrayList<>();
+        Transaction transaction = tasks.hasOpenTransaction() ? null : tasks.beginTransaction();
+        boolean isComplete = false;
+        try (TaskRecordReader reader = format == Format.CSV
+                ? new CsvTaskReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))
+                : new JsonTaskReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            Map<String, String> record;
+            while ((record = reader.next()) != null) {
+                Task task = toTask(record);
+                if (task == null) {
+                    result.invalid++;
+                } else if (tasks.contains(task)) {
+                    result.duplicates++;
+                } else {
+                    tasks.add(task);
+                    added.add(task);
+                }
+            }
+            isComplete = true;
+        } finally {
+            if (transaction != null && !isComplete) {
+                transaction.rollback();
+            }
+        }
+
+        if (!added.isEmpty()) {
+            tasks.getHistory().recordAddAll(start, added);
+        }
+        if (transaction != null) {
+            transaction.commit();
+        }
+        result.added = added.size();
+        return result;
+    }
+
+    private static Format requireFormat(Path file) {
+        Format format = Format.of(file);
+        if (format == null) {
+            throw new IllegalArgumentException("Unsupported file type: " + file.getFileName());
+        }
+        return format;
+    }
+
+    /**
+     * Builds a task from an import record.
+     *
+     * @return The task, or null if the record is incomplete, has invalid dates, or has a description
+     *     with a line break or '|', which the task file cannot hold.
+     */
+    private static Task toTask(Map<String, String> record) {
+        String type = record.getOrDefault("type", "").trim().toUpperCase(Locale.ROOT);
+        String description = record.getOrDefault("description", "").trim();
+        if (type.isEmpty() || description.isEmpty() || description.length() > Task.MAX_DESCRIPTION_LENGTH
+                || hasReservedCharacter(description)) {
+            return null;
+        }
+
+        String every = record.getOrDefault("every", "").trim();
+        Recurrence recurrence = every.isEmpty() ? null : Recurrence.of(every);
+        if (!every.isEmpty() && recurrence == null) {
+            return null;
+        }
+
+        Task task;
+        try {
+            switch (type.charAt(0)) {
+            case 'T':
+                task = new Todo(description);
+                break;
+            case 'D':
+                task = new Deadline(description, record.getOrDefault("due", "").trim(), recurrence);
+                break;
+            case 'E':
+                task = new Event(description, record.getOrDefault("start", "").trim(),
+                        record.getOrDefault("end", "").trim(), recurrence);
+                break;
+            default:
+                return null;
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        String done = record.getOrDefault("done", "").trim();
+        if (done.equalsIgnoreCase("true") || done.equals("1")) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    private static boolean hasReservedCharacter(String description) {
+        for (int i = 0; i < description.length(); i++) {
+            char c = description.charAt(i);
+            if (c == '|' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeCsvRecord(Writer writer, Task task) throws IOException {
+        String[] values = fieldsOf(task);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeJsonRecord(Writer writer, Task task) throws IOException {
+        String[] values = fieldsOf(task);
+        writer.write('{');
+        boolean isFirst = true;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].isEmpty()) {
+                continue;
+            }
+            if (!isFirst) {
+                writer.write(", ");
+            }
+            isFirst = false;
+            writeJsonString(writer, CsvTaskReader.COLUMNS[i]);
+            writer.write(": ");
+            if (CsvTaskReader.COLUMNS[i].equals("done")) {
+                writer.write(values[i]);
+            } else {
+                writeJsonString(writer, values[i]);
+            }
+        }
+        writer.write('}');
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Returns the values of a task in the order of {@link CsvTaskReader#COLUMNS}, using "" for absent fields.
+     */
+    private static String[] fieldsOf(Task task) {
+        String type = "T";
+        String due = "";
+        String start = "";
+        String end = "";
+        if (task instanceof Deadline) {
+            type = "D";
+            due = IsoDates.formatDate(((Deadline) task).getDue());
+        } else if (task instanceof Event) {
+            type = "E";
+            start = IsoDates.formatDateTime(((Event) task).getStart());
+            end = IsoDates.formatDateTime(((Event) task).getEnd());
+        }
+        String every = task.getRecurrence() == null ? "" : task.getRecurrence().getName();
+        return new String[] {type, String.valueOf(task.isDone()), task.getDescription(), due, start, end, every};
+    }
+}
@@ -0,0 +1,20 @@
+package usagi.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads task records one at a time from an import file.
+ * Each record maps field names (type, done, description, due, start, end, every) to their raw values.
+ */
+interface TaskRecordReader extends Closeable {
+
+    /**
+     * Reads the next record.
+     *
+     * @return Fields of the next record, or null if there are no more records.
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    Map<String, String> next() throws IOException;
+}
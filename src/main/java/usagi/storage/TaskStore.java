@@ -0,0 +1,105 @@
+package usagi.storage;
+
+import usagi.task.TaskList;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Persists a task list between runs of the application.
+ *
+ * <p>Which implementation is used is chosen by the {@code usagi.storage} system property:
+ * {@code segments}, the default, keeps tasks in plain text segment files ({@link Storage}), and
+ * {@code pages} keeps them in a single page file indexed by a B+tree ({@link PageStore}).</p>
+ */
+public interface TaskStore extends Closeable {
+
+    /** System property naming the storage engine to use. */
+    String ENGINE_PROPERTY = "usagi.storage";
+
+    /**
+     * Opens the storage engine selected by the {@value #ENGINE_PROPERTY} system property.
+     *
+     * @param filePath Path of the task file.
+     * @return The selected storage.
+     * @throws IllegalArgumentException If the property names an unknown engine.
+     */
+    static TaskStore open(String filePath) {
+        String engine = System.getProperty(ENGINE_PROPERTY, "segments");
+        switch (engine) {
+        case "segments":
+            return new Storage(filePath);
+        case "pages":
+            return new PageStore(filePath);
+        default:
+            throw new IllegalArgumentException("Unknown storage engine: " + engine);
+        }
+    }
+
+    /**
+     * Loads the stored tasks. Changes made to the returned list are tracked, so that later saves
+     * only write what changed.
+     *
+     * @return The stored tasks, or an empty list on first run.
+     * @throws IOException If the tasks cannot be read.
+     */
+    TaskList load() throws IOException;
+
+    /**
+     * Saves the task list. A list that was not returned by {@link #load()} is written out in full.
+     *
+     * @param tasks Task list to save.
+     * @throws IOException If the tasks cannot be written.
+     */
+    void save(TaskList tasks) throws IOException;
+
+    /**
+     * Saves index structures built over the saved tasks, so that the next load need not rebuild
+     * them. Storage engines that do not keep indexes on disk write nothing.
+     *
+     * @param tasks Task list previously returned by {@link #load()}.
+     * @throws IOException If the index files cannot be written.
+     */
+    default void saveIndexes(TaskList tasks) throws IOException {
+    }
+
+    /**
+     * Returns the total number of bytes this storage has written to disk since it was created.
+     *
+     * @return Bytes written, including temporary and journal files.
+     */
+    long getBytesWritten();
+
+    /**
+     * Applies changes made to the stored tasks by other programs to the loaded task list.
+     * Storage engines that do not support outside edits change nothing.
+     *
+     * @param tasks Task list previously returned by {@link #load()}.
+     * @return Number of tasks that were added, removed or updated.
+     * @throws IOException If the changed files cannot be read.
+     */
+    default int reload(TaskList tasks) throws IOException {
+        return 0;
+    }
+
+    /**
+     * Starts watching the stored tasks for changes made by other programs.
+     * Storage engines that do not support outside edits never call back.
+     *
+     * @param onChange Callback run on a background thread after the files have changed.
+     * @return Handle that stops watching when closed.
+     * @throws IOException If the files cannot be watched.
+     */
+    default Closeable watch(Runnable onChange) throws IOException {
+        return () -> { };
+    }
+
+    /**
+     * Releases any files held open by this storage.
+     *
+     * @throws IOException If the files cannot be closed.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,270 @@
+package usagi.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An ordered index over the due dates of deadlines and the start times of events in a {@link TaskList}.
+ * The index is updated incrementally as tasks are added and removed, so sorted and range views are
+ * answered in O(log n + k) without copying and sorting the whole list. Deadlines are ordered by the
+ * start of their due date. Todos have no date and are not indexed.
+ *
+ * <p>Recurring deadlines and events are kept apart as one entry per series. Their occurrences are
+ * computed on demand for the range being viewed, so the index never grows with the horizon. A series
+ * that is marked done no longer repeats and is treated as a single task at its first occurrence.</p>
+ */
+public class DateIndex implements TaskListListener {
+
+    /** Most occurrences of one recurring series listed by {@link #before(LocalDate, LocalDate)}. */
+    public static final int MAX_OCCURRENCES = 100;
+
+    private final TreeMap<LocalDateTime, List<Task>> byTime = new TreeMap<>();
+    private final Set<Task> series = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int size;
+
+    /**
+     * Returns the time a task is ordered by, or null if the task has no date.
+     *
+     * @param task Task to get the time of.
+     * @return Start of the due date for deadlines, start time for events, otherwise null.
+     */
+    public static LocalDateTime keyOf(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getDue().atStartOfDay();
+        }
+        if (task instanceof Event) {
+            return ((Event) task).getStart();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the time of the first occurrence of a task at or after the given time.
+     *
+     * @param task Task to get the occurrence of.
+     * @param from Earliest time of interest, or null for the first occurrence.
+     * @return Time of the occurrence, or null if the task has no date or no such occurrence.
+     */
+    public static LocalDateTime nextOccurrence(Task task, LocalDateTime from) {
+        LocalDateTime key = keyOf(task);
+        if (key == null || from == null) {
+            return key;
+        }
+        if (!isRepeating(task)) {
+            return key.isBefore(from) ? null : key;
+        }
+        return task.getRecurrence().firstOnOrAfter(key, from);
+    }
+
+    /**
+     * Returns whether a task has an occurrence within the given bounds.
+     *
+     * @param task Task to check.
+     * @param from Inclusive lower bound, or null for no lower bound.
+     * @param to Exclusive upper bound, or null for no upper bound.
+     * @return True if an occurrence of the task lies within the bounds.
+     */
+    public static boolean occursWithin(Task task, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime next = nextOccurrence(task, from);
+        return next != null && (to == null || next.isBefore(to));
+    }
+
+    /**
+     * Returns the number of indexed tasks, counting each recurring series once.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns all dated tasks ordered by due date or start time, earliest first. Each recurring series
+     * appears once, as its first occurrence on or after {@code today}.
+     *
+     * @param today Date from which recurring series are shown.
+     * @return Dated tasks in chronological order.
+     */
+    public List<Task> ordered(LocalDate today) {
+        List<Task> occurrences = new ArrayList<>(series.size());
+        for (Task task : series) {
+            occurrences.add(isRepeating(task) ? task.occurrenceAt(nextOccurrence(task, today.atStartOfDay())) : task);
+        }
+        return merge(flatten(byTime.values()), occurrences);
+    }
+
+    /**
+     * Returns the dated tasks that are due or start strictly before the given date, earliest first,
+     * together with the occurrences of each recurring series from {@code today} up to that date. At
+     * most {@value #MAX_OCCURRENCES} occurrences of a series are listed, however far off the date is.
+     *
+     * @param date Exclusive upper bound.
+     * @param today Date from which occurrences of recurring series are listed.
+     * @return Matching tasks and occurrences in chronological order.
+     */
+    public List<Task> before(LocalDate date, LocalDate today) {
+        LocalDateTime to = date.atStartOfDay();
+        List<Task> occurrences = new ArrayList<>();
+        for (Task task : series) {
+            LocalDateTime key = keyOf(task);
+            if (!isRepeating(task)) {
+                if (key.isBefore(to)) {
+                    occurrences.add(task);
+                }
+                continue;
+            }
+            Recurrence recurrence = task.getRecurrence();
+            long first = recurrence.indexOnOrAfter(key, today.atStartOfDay());
+            for (long n = first; n < first + MAX_OCCURRENCES; n++) {
+                LocalDateTime time = recurrence.nth(key, n);
+                if (!time.isBefore(to)) {
+                    break;
+                }
+                occurrences.add(task.occurrenceAt(time));
+            }
+        }
+        return merge(flatten(byTime.headMap(to, false).values()), occurrences);
+    }
+
+    /**
+     * Returns the dated tasks that are due or start within the given range, earliest first.
+     *
+     * @param from Inclusive lower bound.
+     * @param to Exclusive upper bound.
+     * @return Matching tasks in chronological order.
+     */
+    public List<Task> between(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return new ArrayList<>();
+        }
+        return withSeries(flatten(byTime.subMap(from, true, to, false).values()), from, to);
+    }
+
+    /**
+     * Returns the dated tasks whose due date or start time lies within the given bounds, earliest first.
+     * A recurring series is included, once, if any of its occurrences lies within the bounds.
+     *
+     * @param from Inclusive lower bound, or null for no lower bound.
+     * @param to Exclusive upper bound, or null for no upper bound.
+     * @return Matching tasks in chronological order.
+     */
+    public List<Task> range(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return withSeries(flatten(byTime.values()), null, null);
+        }
+        if (from == null) {
+            return withSeries(flatten(byTime.headMap(to, false).values()), null, to);
+        }
+        if (to == null) {
+            return withSeries(flatten(byTime.tailMap(from, true).values()), from, null);
+        }
+        return between(from, to);
+    }
+
+    @Override
+    public void onTaskAdded(int index, Task task) {
+        LocalDateTime key = keyOf(task);
+        if (key != null && task.getRecurrence() != null) {
+            series.add(task);
+            size++;
+        } else if (key != null) {
+            byTime.computeIfAbsent(key, k -> new ArrayList<>(1)).add(task);
+            size++;
+        }
+    }
+
+    @Override
+    public void onTaskRemoved(int index, Task task) {
+        LocalDateTime key = keyOf(task);
+        if (key == null) {
+            return;
+        }
+        if (task.getRecurrence() != null) {
+            if (series.remove(task)) {
+                size--;
+            }
+            return;
+        }
+        List<Task> bucket = byTime.get(key);
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == task) {
+                bucket.remove(i);
+                size--;
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            byTime.remove(key);
+        }
+    }
+
+    @Override
+    public void onTaskUpdated(int index, Task task) {
+        // Dates are immutable, so a status change never moves a task within the index.
+        // Whether a series still repeats is decided from its status when it is queried.
+    }
+
+    private static boolean isRepeating(Task task) {
+        return task.getRecurrence() != null && !task.isDone();
+    }
+
+    /**
+     * Adds the recurring series that occur within the bounds to the given dated tasks, in time order.
+     */
+    private List<Task> withSeries(List<Task> dated, LocalDateTime from, LocalDateTime to) {
+        if (series.isEmpty()) {
+            return dated;
+        }
+        List<Task> matches = new ArrayList<>();
+        for (Task task : series) {
+            if (occursWithin(task, from, to)) {
+                matches.add(task);
+            }
+        }
+        matches.sort(Comparator.comparing(task -> nextOccurrence(task, from)));
+        return mergeByTime(dated, matches, from);
+    }
+
+    private static List<Task> merge(List<Task> dated, List<Task> occurrences) {
+        occurrences.sort(Comparator.comparing(DateIndex::keyOf));
+        return mergeByTime(dated, occurrences, null);
+    }
+
+    /**
+     * Merges two lists that are each in time order, placing a task of {@code others} before a dated
+     * task only if it occurs strictly earlier.
+     */
+    private static List<Task> mergeByTime(List<Task> dated, List<Task> others, LocalDateTime from) {
+        if (others.isEmpty()) {
+            return dated;
+        }
+        List<Task> result = new ArrayList<>(dated.size() + others.size());
+        int i = 0;
+        for (Task other : others) {
+            LocalDateTime time = nextOccurrence(other, from);
+            while (i < dated.size() && !keyOf(dated.get(i)).isAfter(time)) {
+                result.add(dated.get(i++));
+            }
+            result.add(other);
+        }
+        result.addAll(dated.subList(i, dated.size()));
+        return result;
+    }
+
+    private static List<Task> flatten(Collection<List<Task>> buckets) {
+        List<Task> result = new ArrayList<>();
+        for (List<Task> bucket : buckets) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+}
@@ -1,28 +1,50 @@
 package usagi.task;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Objects;
 
 /**
  * Represents a usagi.task.Deadline task with a due date
  * due date should be in the format: yyyy-MM-dd
  */
 public class Deadline extends Task {
-    private static final DateTimeFormatter IO_FMT = DateTimeFormatter.ISO_LOCAL_DATE;   // e.g., 2025-08-29
     private static final DateTimeFormatter VIEW_FMT = DateTimeFormatter.ofPattern("MMM d yyyy");    // e.g., Aug 29 2025
+    private static final FormatCache<LocalDate> VIEW_CACHE = new FormatCache<>(VIEW_FMT, 256);
 
     private final LocalDate due;
+    private final Recurrence recurrence;
 
     // dueDate must be ISO: yyyy-MM-dd
     public Deadline(String description, String dueDate) {
-        super(description);
-        this.due = parseDue(dueDate);
+        this(description, dueDate, null);
     }
 
     public Deadline(String description, boolean isDone, String dueDate) {
         super(description, isDone);
         this.due = parseDue(dueDate);
+        this.recurrence = null;
+    }
+
+    /**
+     * Creates a deadline that repeats with the given rule, first due on {@code dueDate}.
+     *
+     * @param description Description of the deadline.
+     * @param dueDate First due date, in ISO format yyyy-MM-dd.
+     * @param recurrence How often the deadline repeats, or null if it is due once.
+     */
+    public Deadline(String description, String dueDate, Recurrence recurrence) {
+        super(description);
+        this.due = parseDue(dueDate);
+        this.recurrence = recurrence;
+    }
+
+    private Deadline(String description, boolean isDone, LocalDate due, Recurrence recurrence) {
+        super(description, isDone);
+        this.due = due;
+        this.recurrence = recurrence;
     }
 
     /**
@@ -37,12 +59,35 @@ public class Deadline extends Task {
      */
     private static LocalDate parseDue(String s) {
         try {
-            return LocalDate.parse(s, IO_FMT);
+            return IsoDates.parseDate(s);
         } catch (DateTimeParseException e) {
             throw new IllegalArgumentException("Invalid deadline date '" + s + "'. Expected yyyy-MM-dd.", e);
         }
     }
 
+    /**
+     * Returns the due date of this deadline, or of its first occurrence if it repeats.
+     */
+    public LocalDate getDue() {
+        return due;
+    }
+
+    @Override
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    @Override
+    public Task occurrenceAt(LocalDateTime time) {
+        if (recurrence == null) {
+            return this;
+        }
+        Deadline occurrence = new Deadline(description, isDone, time.toLocalDate(), recurrence);
+        occurrence.priority = priority;
+        occurrence.series = this;
+        return occurrence;
+    }
+
     @Override
     String getTaskType() {
         return "[D]";
@@ -50,7 +95,9 @@ public class Deadline extends Task {
 
     @Override
     public String getFullDescription() {
-        return getTaskType() + super.toString() + " (by: " + due.format(VIEW_FMT) + ")";
+        String repeat = recurrence == null ? "" : ", every " + recurrence.getName();
+        return getTaskType() + super.toString() + " (by: " + VIEW_CACHE.format(due) + repeat + ")"
+                + priorityLabel();
     }
 
     @Override
@@ -60,7 +107,9 @@ public class Deadline extends Task {
 
     @Override
     public String toFileString() {
-        return "D | " + (isDone ? "1" : "0") + " | " + description + " | " + due.format(IO_FMT);
+        String repeat = recurrence == null ? "" : " | every=" + recurrence.getName();
+        return "D | " + (isDone ? "1" : "0") + " | " + description + " | " + IsoDates.formatDate(due) + repeat
+                + priorityField() + doneField();
     }
 
     @Override
@@ -69,6 +118,12 @@ public class Deadline extends Task {
         if (obj == null || getClass() != obj.getClass()) return false;
         Deadline deadline = (Deadline) obj;
         return description.equals(deadline.description) &&
-                due.equals(deadline.due);
+                due.equals(deadline.due) &&
+                recurrence == deadline.recurrence;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(description, due, recurrence);
     }
-}
\ No newline at end of file
+}
@@ -1,34 +1,60 @@
 package usagi.task;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Objects;
 
 /**
  * Represents an usagi.task.Event task with a start and end time
  * Start/end must be in the format: yyyy-MM-dd'T'HH:mm[:ss]
  */
 public class Event extends Task {
-    private static final DateTimeFormatter IO_FMT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;       // e.g., 2015-02-20T06:30
     private static final DateTimeFormatter VIEW_FMT = DateTimeFormatter.ofPattern("MMM d yyyy HH:mm");
+    private static final FormatCache<LocalDateTime> VIEW_CACHE = new FormatCache<>(VIEW_FMT, 256);
 
     private final LocalDateTime start;
     private final LocalDateTime end;
+    private final Recurrence recurrence;
 
     // start/end must be ISO: yyyy-MM-dd'T'HH:mm[:ss]
     public Event(String description, String start, String end) {
-        super(description);
+        this(description, start, end, null);
+    }
+
+    public Event(String description, boolean isDone, String start, String end) {
+        super(description, isDone);
         this.start = parseDateTime(start);
         this.end = parseDateTime(end);
+        this.recurrence = null;
         validateOrder();
     }
 
-    public Event(String description, boolean isDone, String start, String end) {
-        super(description, isDone);
+    /**
+     * Creates an event that repeats with the given rule, first held from {@code start} to {@code end}.
+     *
+     * @param description Description of the event.
+     * @param start Start of the first occurrence, in ISO format yyyy-MM-dd'T'HH:mm[:ss].
+     * @param end End of the first occurrence, in ISO format yyyy-MM-dd'T'HH:mm[:ss].
+     * @param recurrence How often the event repeats, or null if it is held once.
+     */
+    public Event(String description, String start, String end, Recurrence recurrence) {
+        super(description);
         this.start = parseDateTime(start);
         this.end = parseDateTime(end);
+        this.recurrence = recurrence;
         validateOrder();
     }
+
+    private Event(String description, boolean isDone, LocalDateTime start, LocalDateTime end,
+            Recurrence recurrence) {
+        super(description, isDone);
+        this.start = start;
+        this.end = end;
+        this.recurrence = recurrence;
+    }
+
     /**
      * Parses a string into a {@link LocalDateTime} using the predefined input format.
      * The expected format is {@code yyyy-MM-dd'T'HH:mm[:ss]}. If the input does not
@@ -41,7 +67,7 @@ public class Event extends Task {
      */
     private static LocalDateTime parseDateTime(String s) {
         try {
-            return LocalDateTime.parse(s, IO_FMT); // accepts both with & without seconds
+            return IsoDates.parseDateTime(s); // accepts both with & without seconds
         } catch (DateTimeParseException ex) {
             throw new IllegalArgumentException(
                     "Invalid event datetime '" + s + "'. Expected ISO, e.g., 2015-02-20T06:30.", ex);
@@ -59,6 +85,36 @@ public class Event extends Task {
         }
     }
 
+    /**
+     * Returns the start time of this event, or of its first occurrence if it repeats.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the end time of this event.
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    @Override
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    @Override
+    public Task occurrenceAt(LocalDateTime time) {
+        if (recurrence == null) {
+            return this;
+        }
+        Event occurrence = new Event(description, isDone, time, time.plus(Duration.between(start, end)), recurrence);
+        occurrence.priority = priority;
+        occurrence.series = this;
+        return occurrence;
+    }
+
     @Override
     String getTaskType() {
         return "[E]";
@@ -66,8 +122,10 @@ public class Event extends Task {
 
     @Override
     public String getFullDescription() {
+        String repeat = recurrence == null ? "" : ", every " + recurrence.getName();
         return getTaskType() + super.toString()
-                + " (from: " + start.format(VIEW_FMT) + " to: " + end.format(VIEW_FMT) + ")";
+                + " (from: " + VIEW_CACHE.format(start) + " to: " + VIEW_CACHE.format(end) + repeat + ")"
+                + priorityLabel();
     }
 
     @Override public String toString() {
@@ -76,8 +134,10 @@ public class Event extends Task {
 
     @Override
     public String toFileString() {
+        String repeat = recurrence == null ? "" : " | every=" + recurrence.getName();
         return "E | " + (isDone ? "1" : "0") + " | " + description + " | "
-                + start.format(IO_FMT) + " | " + end.format(IO_FMT);
+                + IsoDates.formatDateTime(start) + " | " + IsoDates.formatDateTime(end) + repeat
+                + priorityField() + doneField();
     }
 
     @Override
@@ -87,6 +147,12 @@ public class Event extends Task {
         Event event = (Event) obj;
         return description.equals(event.description) &&
                 start.equals(event.start) &&
-                end.equals(event.end);
+                end.equals(event.end) &&
+                recurrence == event.recurrence;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(description, start, end, recurrence);
     }
-}
\ No newline at end of file
+}
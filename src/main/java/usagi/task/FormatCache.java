@@ -0,0 +1,49 @@
+package usagi.task;
+
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small least-recently-used cache of display strings for dates, so that listing many tasks
+ * due on the same few dates formats each date only once.
+ *
+ * @param <T> Type of date formatted by the cache.
+ */
+class FormatCache<T extends TemporalAccessor> {
+
+    private final DateTimeFormatter formatter;
+    private final Map<T, String> cache;
+
+    /**
+     * Creates a cache that formats with the given formatter and keeps up to {@code capacity} strings.
+     *
+     * @param formatter Formatter used on a cache miss.
+     * @param capacity Maximum number of cached strings.
+     */
+    FormatCache(DateTimeFormatter formatter, int capacity) {
+        this.formatter = formatter;
+        this.cache = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<T, String> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the formatted string for the given date, formatting it only if it is not cached.
+     *
+     * @param value Date to format.
+     * @return The formatted date.
+     */
+    synchronized String format(T value) {
+        String text = cache.get(value);
+        if (text == null) {
+            text = formatter.format(value);
+            cache.put(value, text);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,159 @@
+package usagi.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses and formats the fixed ISO layouts used in task files, {@code yyyy-MM-dd} and
+ * {@code yyyy-MM-dd'T'HH:mm[:ss]}, without going through {@link DateTimeFormatter}.
+ *
+ * <p>Input that does not fit the fixed layout, or that holds an invalid value, falls back to the
+ * ISO formatters, so the accepted inputs and the exceptions thrown are exactly those of
+ * {@link LocalDate#parse(CharSequence, DateTimeFormatter)} and
+ * {@link LocalDateTime#parse(CharSequence, DateTimeFormatter)}.</p>
+ */
+public class IsoDates {
+
+    private static final int DATE_LENGTH = 10;
+    private static final int DATE_TIME_LENGTH = 16;
+    private static final int DATE_TIME_SECONDS_LENGTH = 19;
+    private static final int MAX_FAST_YEAR = 9999;
+
+    private IsoDates() {
+    }
+
+    /**
+     * Parses a date in the {@code yyyy-MM-dd} layout.
+     *
+     * @param s Text to parse.
+     * @return The parsed date.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid ISO date.
+     */
+    public static LocalDate parseDate(CharSequence s) {
+        if (s.length() == DATE_LENGTH && hasDateLayout(s)) {
+            int year = digits(s, 0, 4);
+            int month = digits(s, 5, 2);
+            int day = digits(s, 8, 2);
+            if (isValidDate(year, month, day)) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(s, DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    /**
+     * Parses a date and time in the {@code yyyy-MM-dd'T'HH:mm} or {@code yyyy-MM-dd'T'HH:mm:ss} layout.
+     *
+     * @param s Text to parse.
+     * @return The parsed date and time.
+     * @throws java.time.format.DateTimeParseException If the text is not a valid ISO date and time.
+     */
+    public static LocalDateTime parseDateTime(CharSequence s) {
+        int length = s.length();
+        if ((length == DATE_TIME_LENGTH || length == DATE_TIME_SECONDS_LENGTH)
+                && hasDateLayout(s) && hasTimeLayout(s, length)) {
+            int year = digits(s, 0, 4);
+            int month = digits(s, 5, 2);
+            int day = digits(s, 8, 2);
+            int hour = digits(s, 11, 2);
+            int minute = digits(s, 14, 2);
+            int second = length == DATE_TIME_SECONDS_LENGTH ? digits(s, 17, 2) : 0;
+            if (isValidDate(year, month, day) && hour < 24 && minute < 60 && second < 60) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(s, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    /**
+     * Formats a date exactly as {@link DateTimeFormatter#ISO_LOCAL_DATE} does.
+     *
+     * @param date Date to format.
+     * @return The formatted date.
+     */
+    public static String formatDate(LocalDate date) {
+        if (date.getYear() < 0 || date.getYear() > MAX_FAST_YEAR) {
+            return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+        }
+        char[] out = new char[DATE_LENGTH];
+        writeDate(out, date);
+        return new String(out);
+    }
+
+    /**
+     * Formats a date and time exactly as {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} does,
+     * which always includes the seconds.
+     *
+     * @param dateTime Date and time to format.
+     * @return The formatted date and time.
+     */
+    public static String formatDateTime(LocalDateTime dateTime) {
+        LocalDate date = dateTime.toLocalDate();
+        if (date.getYear() < 0 || date.getYear() > MAX_FAST_YEAR || dateTime.getNano() != 0) {
+            return dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        char[] out = new char[DATE_TIME_SECONDS_LENGTH];
+        writeDate(out, date);
+        out[10] = 'T';
+        writeDigits(out, 11, dateTime.getHour(), 2);
+        out[13] = ':';
+        writeDigits(out, 14, dateTime.getMinute(), 2);
+        out[16] = ':';
+        writeDigits(out, 17, dateTime.getSecond(), 2);
+        return new String(out);
+    }
+
+    private static boolean hasDateLayout(CharSequence s) {
+        return isDigits(s, 0, 4) && s.charAt(4) == '-' && isDigits(s, 5, 2) && s.charAt(7) == '-'
+                && isDigits(s, 8, 2);
+    }
+
+    private static boolean hasTimeLayout(CharSequence s, int length) {
+        boolean hasMinutes = s.charAt(10) == 'T' && isDigits(s, 11, 2) && s.charAt(13) == ':'
+                && isDigits(s, 14, 2);
+        if (length == DATE_TIME_LENGTH) {
+            return hasMinutes;
+        }
+        return hasMinutes && s.charAt(16) == ':' && isDigits(s, 17, 2);
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    private static boolean isDigits(CharSequence s, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(CharSequence s, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static void writeDate(char[] out, LocalDate date) {
+        writeDigits(out, 0, date.getYear(), 4);
+        out[4] = '-';
+        writeDigits(out, 5, date.getMonthValue(), 2);
+        out[7] = '-';
+        writeDigits(out, 8, date.getDayOfMonth(), 2);
+    }
+
+    private static void writeDigits(char[] out, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package usagi.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the tasks whose displayed text contains a keyword, ignoring case.
+ *
+ * <p>Each task is matched against its {@linkplain Task#getSearchKey() search key}, which is
+ * lower-cased once rather than on every search. The keyword is found with the Boyer-Moore-Horspool
+ * algorithm, which skips ahead by up to the keyword's length after each mismatch. When the list's
+ * {@link SearchIndex} can narrow the search down from its word postings, only the tasks it
+ * names are checked. Otherwise, lists of
+ * {@value #PARALLEL_THRESHOLD} tasks or more are split into ranges scanned in parallel on the
+ * common fork-join pool; the matches of each range are joined in order, so results keep list
+ * order.</p>
+ */
+public class KeywordSearch {
+
+    /** Number of tasks from which a list is scanned in parallel. */
+    public static final int PARALLEL_THRESHOLD = 4096;
+
+    // Shifts are kept for the low byte of each character; characters sharing a byte share the
+    // smallest of their shifts, which is always safe.
+    private static final int ALPHABET = 256;
+
+    private final String pattern;
+    private final int[] shifts = new int[ALPHABET];
+
+    /**
+     * Creates a search for the given keyword.
+     *
+     * @param keyword Keyword to look for, in any case.
+     */
+    public KeywordSearch(String keyword) {
+        this.pattern = fold(keyword);
+        int last = pattern.length() - 1;
+        Arrays.fill(shifts, pattern.length());
+        for (int i = 0; i < last; i++) {
+            shifts[pattern.charAt(i) & (ALPHABET - 1)] = last - i;
+        }
+    }
+
+    /**
+     * Returns text in the case used by search keys.
+     *
+     * @param text Text to fold.
+     * @return Lower-case text.
+     */
+    public static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns whether a task's displayed text contains the keyword.
+     *
+     * @param task Task to check.
+     * @return True if the task matches.
+     */
+    public boolean matches(Task task) {
+        return contains(task.getSearchKey());
+    }
+
+    /**
+     * Returns the tasks of a list that contain the keyword, checking only the tasks its search index
+     * names as candidates when it can.
+     *
+     * @param tasks Task list to search, which must not change during the search.
+     * @return Matching tasks, in list order.
+     */
+    public List<Task> search(TaskList tasks) {
+        Set<Task> candidates = tasks.getSearchIndex().containing(pattern);
+        if (candidates == null) {
+            return search(tasks.displayTasks());
+        }
+        List<Task> matches = new ArrayList<>();
+        for (Task task : candidates) {
+            if (matches(task)) {
+                matches.add(task);
+            }
+        }
+        tasks.sortByPosition(matches);
+        return matches;
+    }
+
+    /**
+     * Returns the tasks that contain the keyword.
+     *
+     * @param tasks Tasks to search, which must not change during the search.
+     * @return Matching tasks, in list order.
+     */
+    public List<Task> search(List<Task> tasks) {
+        if (tasks.size() < PARALLEL_THRESHOLD) {
+            return scan(tasks, 0, tasks.size());
+        }
+        return ForkJoinPool.commonPool().invoke(new Scan(tasks, 0, tasks.size()));
+    }
+
+    private List<Task> scan(List<Task> tasks, int from, int to) {
+        List<Task> matches = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Task task = tasks.get(i);
+            if (matches(task)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    private boolean contains(String text) {
+        int last = pattern.length() - 1;
+        if (last < 0) {
+            return true;
+        }
+        char lastChar = pattern.charAt(last);
+        int pos = last;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c == lastChar && text.regionMatches(pos - last, pattern, 0, last)) {
+                return true;
+            }
+            pos += shifts[c & (ALPHABET - 1)];
+        }
+        return false;
+    }
+
+    /**
+     * Scans a range of the list, splitting it in half until it is small enough to scan directly.
+     */
+    private class Scan extends RecursiveTask<List<Task>> {
+
+        private final List<Task> tasks;
+        private final int from;
+        private final int to;
+
+        Scan(List<Task> tasks, int from, int to) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            if (to - from < PARALLEL_THRESHOLD) {
+                return scan(tasks, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Scan right = new Scan(tasks, middle, to);
+            right.fork();
+            List<Task> matches = new Scan(tasks, from, middle).compute();
+            matches.addAll(right.join());
+            return matches;
+        }
+    }
+}
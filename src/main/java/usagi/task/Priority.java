@@ -0,0 +1,34 @@
+package usagi.task;
+
+import java.util.Locale;
+
+/**
+ * How urgent a task is, from most to least urgent. Tasks without a priority rank after all of these.
+ */
+public enum Priority {
+    HIGH,
+    MEDIUM,
+    LOW;
+
+    /**
+     * Returns the priority with the given name, ignoring case.
+     *
+     * @param name Name of the priority: high, medium or low.
+     * @return The matching priority, or null if there is none.
+     */
+    public static Priority of(String name) {
+        for (Priority priority : values()) {
+            if (priority.getName().equalsIgnoreCase(name.trim())) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the lower-case name of the priority, as written in commands and task files.
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
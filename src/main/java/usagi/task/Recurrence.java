@@ -0,0 +1,86 @@
+package usagi.task;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * How often a recurring deadline or event repeats. Occurrences are computed from the first one,
+ * the anchor, on demand, so a series is stored as a single task however far ahead it is viewed.
+ */
+public enum Recurrence {
+    DAY(ChronoUnit.DAYS),
+    WEEK(ChronoUnit.WEEKS),
+    MONTH(ChronoUnit.MONTHS);
+
+    private final ChronoUnit unit;
+
+    Recurrence(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Returns the rule with the given name, ignoring case.
+     *
+     * @param name Name of the rule: day, week or month.
+     * @return The matching rule, or null if there is none.
+     */
+    public static Recurrence of(String name) {
+        for (Recurrence recurrence : values()) {
+            if (recurrence.getName().equalsIgnoreCase(name.trim())) {
+                return recurrence;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the lower-case name of the rule, as written in commands and task files.
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the {@code n}-th occurrence of a series, counting the anchor as occurrence 0.
+     * Monthly occurrences are computed from the anchor, so a series anchored on the 31st returns
+     * to the 31st after shorter months.
+     *
+     * @param anchor Time of the first occurrence.
+     * @param n Number of the occurrence.
+     * @return Time of the occurrence.
+     */
+    public LocalDateTime nth(LocalDateTime anchor, long n) {
+        return anchor.plus(n, unit);
+    }
+
+    /**
+     * Returns the first occurrence of a series at or after the given time.
+     *
+     * @param anchor Time of the first occurrence.
+     * @param time Earliest time of interest.
+     * @return Time of the first occurrence that is not before {@code time}.
+     */
+    public LocalDateTime firstOnOrAfter(LocalDateTime anchor, LocalDateTime time) {
+        return nth(anchor, indexOnOrAfter(anchor, time));
+    }
+
+    /**
+     * Returns the number of the first occurrence of a series at or after the given time.
+     *
+     * @param anchor Time of the first occurrence.
+     * @param time Earliest time of interest.
+     * @return Number of the occurrence, counting the anchor as occurrence 0.
+     */
+    public long indexOnOrAfter(LocalDateTime anchor, LocalDateTime time) {
+        if (!anchor.isBefore(time)) {
+            return 0;
+        }
+        // Whole units between the two never overshoot, so at most a step or two remains.
+        long n = unit.between(anchor, time);
+        while (nth(anchor, n).isBefore(time)) {
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,292 @@
+package usagi.task;
+
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the tasks of a {@link TaskList} by the words of their description, their type and
+ * their completion status. The index is updated incrementally as tasks are added, removed and
+ * marked, so lookups never scan the list.
+ *
+ * <p>When a list is loaded with {@link StoredPostings} saved by an earlier run, descriptions are
+ * not tokenized up front. Instead, the first time a word is looked up or touched by a change, its
+ * saved postings are turned into tasks and kept like any other word.</p>
+ *
+ * <p>The postings also narrow down searches for text within the displayed task, as made by
+ * {@code find}. A run of letters and digits in such text lies within one word of the displayed
+ * task. Unless that word could be one of the words shown around the description, such as a date
+ * or a month name, it is a word of the description, so only the tasks posted under words
+ * containing the run can match. When those tasks are more than a {@value #MAX_CANDIDATE_SHARE}th
+ * of the list, scanning the list is faster, and the postings are not used.</p>
+ */
+public class SearchIndex implements TaskListListener {
+
+    // Words shown around descriptions: type and status marks, date labels, month names, repeat
+    // and priority names. Numbers come from dates and times.
+    private static final List<String> DECORATION_WORDS = decorationWords();
+    // Candidates found through postings are only worth it while they are this small a part of the list.
+    private static final int MAX_CANDIDATE_SHARE = 16;
+
+    private final Map<String, Set<Task>> postings = new HashMap<>();
+    private final Set<Task> todos = newTaskSet();
+    private final Set<Task> deadlines = newTaskSet();
+    private final Set<Task> events = newTaskSet();
+    private final Set<Task> doneTasks = newTaskSet();
+    private final Set<Task> openTasks = newTaskSet();
+    private final Set<String> restoredTokens = new HashSet<>();
+    private StoredPostings stored;
+    private Task[] storedTasks;
+
+    /**
+     * Splits text into lower-case words made of letters and digits.
+     *
+     * @param text Text to split.
+     * @return Words of the text, in order, possibly with repeats.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the tasks whose description contains the given word.
+     *
+     * @param token Lower-case word to look up.
+     * @return Read-only set of matching tasks.
+     */
+    public Set<Task> withToken(String token) {
+        Set<Task> matches = postingsOf(token);
+        return matches == null ? Collections.emptySet() : Collections.unmodifiableSet(matches);
+    }
+
+    /**
+     * Returns the tasks whose displayed text may contain the given text, found through the word
+     * postings rather than by scanning the list.
+     *
+     * @param text Text searched for, in any case.
+     * @return Read-only set holding at least every task whose displayed text contains the text, or
+     *     null if the postings cannot narrow the search down to a small part of the list.
+     */
+    public Set<Task> containing(String text) {
+        Set<Task> best = null;
+        for (String run : tokenize(KeywordSearch.fold(text))) {
+            if (mayBeDecoration(run)) {
+                continue;
+            }
+            Set<Task> candidates = withTokensContaining(run);
+            if (candidates != null && (best == null || candidates.size() < best.size())) {
+                best = candidates;
+            }
+        }
+        return best == null ? null : Collections.unmodifiableSet(best);
+    }
+
+    /**
+     * Returns the tasks of the given type.
+     *
+     * @param type Task class to look up: Todo, Deadline or Event.
+     * @return Read-only set of matching tasks.
+     */
+    public Set<Task> ofType(Class<? extends Task> type) {
+        if (type == Todo.class) {
+            return Collections.unmodifiableSet(todos);
+        }
+        if (type == Deadline.class) {
+            return Collections.unmodifiableSet(deadlines);
+        }
+        if (type == Event.class) {
+            return Collections.unmodifiableSet(events);
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * Returns the tasks with the given completion status.
+     *
+     * @param isDone True for done tasks, false for open ones.
+     * @return Read-only set of matching tasks.
+     */
+    public Set<Task> withStatus(boolean isDone) {
+        return Collections.unmodifiableSet(isDone ? doneTasks : openTasks);
+    }
+
+    /**
+     * Seeds the index with a freshly loaded list whose word postings were saved by an earlier run.
+     *
+     * @param tasks Tasks of the list, in order.
+     * @param saved Postings saved for exactly these tasks.
+     */
+    void restore(List<Task> tasks, StoredPostings saved) {
+        stored = saved;
+        storedTasks = tasks.toArray(new Task[0]);
+        for (Task task : tasks) {
+            typeSet(task).add(task);
+            (task.isDone() ? doneTasks : openTasks).add(task);
+        }
+    }
+
+    @Override
+    public void onTaskAdded(int index, Task task) {
+        for (String token : tokenize(task.getDescription())) {
+            Set<Task> matches = postingsOf(token);
+            if (matches == null) {
+                matches = newTaskSet();
+                postings.put(token, matches);
+            }
+            matches.add(task);
+        }
+        typeSet(task).add(task);
+        (task.isDone() ? doneTasks : openTasks).add(task);
+    }
+
+    @Override
+    public void onTaskRemoved(int index, Task task) {
+        for (String token : tokenize(task.getDescription())) {
+            Set<Task> matches = postingsOf(token);
+            if (matches != null) {
+                matches.remove(task);
+                if (matches.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+        typeSet(task).remove(task);
+        doneTasks.remove(task);
+        openTasks.remove(task);
+    }
+
+    @Override
+    public void onTaskUpdated(int index, Task task) {
+        if (task.isDone()) {
+            openTasks.remove(task);
+            doneTasks.add(task);
+        } else {
+            doneTasks.remove(task);
+            openTasks.add(task);
+        }
+    }
+
+    /**
+     * Returns the tasks posted under a word, first turning its saved postings into tasks if the
+     * word has not been used since the list was loaded.
+     */
+    private Set<Task> postingsOf(String token) {
+        Set<Task> matches = postings.get(token);
+        if (matches == null && stored != null && restoredTokens.add(token)) {
+            int[] positions = stored.positions(token);
+            if (positions != null) {
+                matches = newTaskSet();
+                for (int position : positions) {
+                    matches.add(storedTasks[position]);
+                }
+                postings.put(token, matches);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the tasks posted under words containing the run, or null if there are too many.
+     */
+    private Set<Task> withTokensContaining(String run) {
+        long limit = (todos.size() + deadlines.size() + events.size()) / MAX_CANDIDATE_SHARE;
+        long total = 0;
+        List<Set<Task>> found = new ArrayList<>();
+        for (Map.Entry<String, Set<Task>> entry : postings.entrySet()) {
+            if (entry.getKey().contains(run)) {
+                found.add(entry.getValue());
+                total += entry.getValue().size();
+            }
+        }
+        List<int[]> foundStored = new ArrayList<>();
+        if (stored != null) {
+            for (String token : stored.tokensContaining(run)) {
+                // Words looked up since loading are in the postings above, with any changes since.
+                if (!restoredTokens.contains(token)) {
+                    int[] positions = stored.positions(token);
+                    foundStored.add(positions);
+                    total += positions.length;
+                }
+            }
+        }
+        if (total > limit) {
+            return null;
+        }
+
+        Set<Task> matches = newTaskSet();
+        for (Set<Task> tasks : found) {
+            matches.addAll(tasks);
+        }
+        for (int[] positions : foundStored) {
+            for (int position : positions) {
+                matches.add(storedTasks[position]);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean mayBeDecoration(String run) {
+        boolean isNumber = true;
+        for (int i = 0; i < run.length() && isNumber; i++) {
+            isNumber = Character.isDigit(run.charAt(i));
+        }
+        if (isNumber) {
+            return true;
+        }
+        for (String word : DECORATION_WORDS) {
+            if (word.contains(run)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> decorationWords() {
+        List<String> words = new ArrayList<>(List.of("t", "d", "e", "x", "by", "from", "to", "every", "priority"));
+        for (Recurrence recurrence : Recurrence.values()) {
+            words.add(recurrence.getName());
+        }
+        for (Priority priority : Priority.values()) {
+            words.add(priority.getName());
+        }
+        // Dates are shown with the month name of the default locale.
+        DateTimeFormatter monthFormat = DateTimeFormatter.ofPattern("MMM");
+        for (Month month : Month.values()) {
+            words.addAll(tokenize(KeywordSearch.fold(monthFormat.format(month))));
+        }
+        return words;
+    }
+
+    private Set<Task> typeSet(Task task) {
+        if (task instanceof Deadline) {
+            return deadlines;
+        }
+        if (task instanceof Event) {
+            return events;
+        }
+        return todos;
+    }
+
+    private static Set<Task> newTaskSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+}
@@ -0,0 +1,186 @@
+package usagi.task;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of small non-negative integers, stored as the non-empty 64-bit words of a bitmap
+ * together with their word numbers, in increasing order. Empty stretches take no space, and set
+ * operations combine whole words at a time in a single merge pass.
+ *
+ * <p>Bitmaps returned by the set operations are new; only {@link TagIndex} modifies bitmaps in place.</p>
+ */
+public class SparseBitmap {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] keys;
+    private long[] words;
+    private int size;
+
+    /**
+     * Creates an empty bitmap.
+     */
+    public SparseBitmap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private SparseBitmap(int capacity) {
+        this.keys = new int[Math.max(capacity, 1)];
+        this.words = new long[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Returns whether the given bit is set.
+     *
+     * @param bit Bit to check.
+     * @return True if the bit is set.
+     */
+    public boolean contains(int bit) {
+        int i = Arrays.binarySearch(keys, 0, size, bit >>> 6);
+        return i >= 0 && (words[i] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Returns the number of set bits.
+     */
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether no bit is set.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the bits set in both this bitmap and the other.
+     *
+     * @param other Bitmap to intersect with.
+     * @return A new bitmap.
+     */
+    public SparseBitmap and(SparseBitmap other) {
+        SparseBitmap result = new SparseBitmap(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], words[i++] & other.words[j++]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bits set in either this bitmap or the other.
+     *
+     * @param other Bitmap to unite with.
+     * @return A new bitmap.
+     */
+    public SparseBitmap or(SparseBitmap other) {
+        SparseBitmap result = new SparseBitmap(size + other.size);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], words[i++]);
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.words[j++]);
+            } else {
+                result.append(keys[i], words[i++] | other.words[j++]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bits set in this bitmap but not in the other.
+     *
+     * @param other Bitmap whose bits are removed.
+     * @return A new bitmap.
+     */
+    public SparseBitmap andNot(SparseBitmap other) {
+        SparseBitmap result = new SparseBitmap(size);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            long word = j < other.size && other.keys[j] == keys[i] ? words[i] & ~other.words[j] : words[i];
+            result.append(keys[i], word);
+        }
+        return result;
+    }
+
+    /**
+     * Calls the action for every set bit, in increasing order.
+     *
+     * @param action Action receiving each bit.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            long word = words[i];
+            while (word != 0) {
+                action.accept((keys[i] << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Sets the given bit.
+     */
+    void add(int bit) {
+        int key = bit >>> 6;
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i >= 0) {
+            words[i] |= 1L << bit;
+            return;
+        }
+        insertAt(-i - 1, key, 1L << bit);
+    }
+
+    /**
+     * Clears the given bit, dropping its word if it becomes empty.
+     */
+    void remove(int bit) {
+        int i = Arrays.binarySearch(keys, 0, size, bit >>> 6);
+        if (i < 0) {
+            return;
+        }
+        words[i] &= ~(1L << bit);
+        if (words[i] == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(words, i + 1, words, i, size - i - 1);
+            size--;
+        }
+    }
+
+    private void append(int key, long word) {
+        if (word != 0) {
+            insertAt(size, key, word);
+        }
+    }
+
+    private void insertAt(int index, int key, long word) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            words = Arrays.copyOf(words, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(words, index, words, index + 1, size - index);
+        keys[index] = key;
+        words[index] = word;
+        size++;
+    }
+}
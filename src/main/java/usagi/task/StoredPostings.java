@@ -0,0 +1,27 @@
+package usagi.task;
+
+import java.util.List;
+
+/**
+ * Word postings of a {@link SearchIndex} saved by an earlier run, read instead of tokenizing
+ * every task again when the list is loaded.
+ */
+public interface StoredPostings {
+
+    /**
+     * Returns the positions of the tasks whose description contains the given word, as positions
+     * in the task list as it was loaded.
+     *
+     * @param token Lower-case word to look up.
+     * @return Positions in increasing order, or null if no task contains the word.
+     */
+    int[] positions(String token);
+
+    /**
+     * Returns the saved words that contain the given text.
+     *
+     * @param part Lower-case text to look for within words.
+     * @return Matching words, in no particular order.
+     */
+    List<String> tokensContaining(String part);
+}
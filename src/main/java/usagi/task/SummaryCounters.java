@@ -0,0 +1,125 @@
+package usagi.task;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Running counts of the tasks in a {@link TaskList} by type and completion status, kept up to date
+ * on every add, removal and status change so that a summary never walks the list.
+ *
+ * <p>Overdue deadlines are counted against a cutoff date. Open one-off deadlines are kept in a map
+ * from due date to count; those due before the cutoff make up the overdue count. When the date
+ * moves on, only the dates the cutoff passes over are added, so the count costs O(1) amortized per
+ * day. Recurring deadlines always have a next occurrence, so they are never overdue.</p>
+ */
+public class SummaryCounters implements TaskListListener {
+
+    private static final Class<?>[] TYPES = {Todo.class, Deadline.class, Event.class};
+
+    private final int[] open = new int[TYPES.length];
+    private final int[] done = new int[TYPES.length];
+    private final Set<Task> countedDone = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final TreeMap<LocalDate, Integer> openDue = new TreeMap<>();
+    private LocalDate cutoff = LocalDate.MIN;
+    private int overdue;
+
+    /**
+     * Returns the number of open tasks of a type.
+     *
+     * @param type Todo, Deadline or Event.
+     * @return Number of tasks of that type not marked done.
+     */
+    public int getOpen(Class<? extends Task> type) {
+        return open[typeIndex(type)];
+    }
+
+    /**
+     * Returns the number of done tasks of a type.
+     *
+     * @param type Todo, Deadline or Event.
+     * @return Number of tasks of that type marked done.
+     */
+    public int getDone(Class<? extends Task> type) {
+        return done[typeIndex(type)];
+    }
+
+    /**
+     * Returns the number of open deadlines due before the given date.
+     *
+     * @param today Date from which deadlines are no longer overdue.
+     * @return Number of overdue deadlines.
+     */
+    public int getOverdue(LocalDate today) {
+        if (today.isAfter(cutoff)) {
+            overdue += countDue(cutoff, today);
+        } else if (today.isBefore(cutoff)) {
+            overdue -= countDue(today, cutoff);
+        }
+        cutoff = today;
+        return overdue;
+    }
+
+    @Override
+    public void onTaskAdded(int index, Task task) {
+        count(task, task.isDone(), 1);
+    }
+
+    @Override
+    public void onTaskRemoved(int index, Task task) {
+        count(task, countedDone.contains(task), -1);
+    }
+
+    @Override
+    public void onTaskUpdated(int index, Task task) {
+        boolean wasDone = countedDone.contains(task);
+        if (wasDone != task.isDone()) {
+            count(task, wasDone, -1);
+            count(task, task.isDone(), 1);
+        }
+    }
+
+    private void count(Task task, boolean isDone, int delta) {
+        int type = typeIndex(task.getClass());
+        if (isDone) {
+            done[type] += delta;
+        } else {
+            open[type] += delta;
+        }
+        if (isDone && delta > 0) {
+            countedDone.add(task);
+        } else if (isDone) {
+            countedDone.remove(task);
+        }
+        if (!isDone && task instanceof Deadline && task.getRecurrence() == null) {
+            LocalDate due = ((Deadline) task).getDue();
+            openDue.merge(due, delta, (a, b) -> a + b == 0 ? null : a + b);
+            if (due.isBefore(cutoff)) {
+                overdue += delta;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of open deadlines due on or after {@code from} and before {@code to}.
+     */
+    private int countDue(LocalDate from, LocalDate to) {
+        int count = 0;
+        for (int n : openDue.subMap(from, true, to, false).values()) {
+            count += n;
+        }
+        return count;
+    }
+
+    private static int typeIndex(Class<?> type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].isAssignableFrom(type)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task type: " + type.getName());
+    }
+}
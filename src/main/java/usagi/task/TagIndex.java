@@ -0,0 +1,157 @@
+package usagi.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Indexes the tasks of a {@link TaskList} by the {@code #tags} in their descriptions, as one
+ * {@link SparseBitmap} per tag over task slots. Every task gets a small slot number when added,
+ * and the slots of removed tasks are reused lowest first, so the bitmaps stay dense and compact
+ * however often tasks come and go. Filters over many tags are then answered with word-wise
+ * AND, OR and AND NOT instead of checking each task's description.
+ *
+ * <p>The tag {@code #done} is reserved: it always stands for the tasks that are marked done.</p>
+ */
+public class TagIndex implements TaskListListener {
+
+    /** Name of the virtual tag holding the tasks that are marked done. */
+    public static final String DONE_TAG = "done";
+
+    private final Map<String, SparseBitmap> byTag = new HashMap<>();
+    private final SparseBitmap done = new SparseBitmap();
+    private final SparseBitmap all = new SparseBitmap();
+    private final Map<Task, Integer> slots = new IdentityHashMap<>();
+    private final List<Task> bySlot = new ArrayList<>();
+    private final PriorityQueue<Integer> freeSlots = new PriorityQueue<>();
+
+    /**
+     * Returns the tags in a description: words starting with {@code #}, lower-cased, without repeats.
+     *
+     * @param description Description to read the tags from.
+     * @return Tags in order of first appearance, without the leading {@code #}.
+     */
+    public static Set<String> tagsOf(String description) {
+        Set<String> tags = new LinkedHashSet<>();
+        int i = description.indexOf('#');
+        while (i >= 0) {
+            int end = i + 1;
+            while (end < description.length() && isTagChar(description.charAt(end))) {
+                end++;
+            }
+            boolean startsWord = i == 0 || Character.isWhitespace(description.charAt(i - 1));
+            if (startsWord && end > i + 1) {
+                tags.add(description.substring(i + 1, end).toLowerCase(Locale.ROOT));
+            }
+            i = description.indexOf('#', end);
+        }
+        return tags;
+    }
+
+    /**
+     * Returns the slots of the tasks with the given tag. The bitmap must not be modified.
+     *
+     * @param tag Tag to look up, without the leading {@code #}.
+     * @return Bitmap of matching slots; {@link #DONE_TAG} gives the tasks marked done.
+     */
+    public SparseBitmap withTag(String tag) {
+        String key = tag.toLowerCase(Locale.ROOT);
+        if (key.equals(DONE_TAG)) {
+            return done;
+        }
+        SparseBitmap bitmap = byTag.get(key);
+        return bitmap == null ? new SparseBitmap() : bitmap;
+    }
+
+    /**
+     * Returns the slots of all tasks in the list. The bitmap must not be modified.
+     */
+    public SparseBitmap all() {
+        return all;
+    }
+
+    /**
+     * Returns the number of distinct tags in use, not counting {@link #DONE_TAG}.
+     */
+    public int tagCount() {
+        return byTag.size();
+    }
+
+    /**
+     * Returns the tasks in the given slots.
+     *
+     * @param bitmap Slots to look up, as returned by this index.
+     * @return Tasks in slot order, which is not necessarily list order.
+     */
+    public List<Task> tasksOf(SparseBitmap bitmap) {
+        List<Task> result = new ArrayList<>(bitmap.cardinality());
+        bitmap.forEach(slot -> result.add(bySlot.get(slot)));
+        return result;
+    }
+
+    @Override
+    public void onTaskAdded(int index, Task task) {
+        Integer free = freeSlots.poll();
+        int slot = free != null ? free : bySlot.size();
+        if (free != null) {
+            bySlot.set(slot, task);
+        } else {
+            bySlot.add(task);
+        }
+        slots.put(task, slot);
+
+        all.add(slot);
+        if (task.isDone()) {
+            done.add(slot);
+        }
+        for (String tag : tagsOf(task.getDescription())) {
+            if (!tag.equals(DONE_TAG)) {
+                byTag.computeIfAbsent(tag, k -> new SparseBitmap()).add(slot);
+            }
+        }
+    }
+
+    @Override
+    public void onTaskRemoved(int index, Task task) {
+        Integer slot = slots.remove(task);
+        if (slot == null) {
+            return;
+        }
+        all.remove(slot);
+        done.remove(slot);
+        for (String tag : tagsOf(task.getDescription())) {
+            SparseBitmap bitmap = byTag.get(tag);
+            if (bitmap != null) {
+                bitmap.remove(slot);
+                if (bitmap.isEmpty()) {
+                    byTag.remove(tag);
+                }
+            }
+        }
+        bySlot.set(slot, null);
+        freeSlots.add(slot);
+    }
+
+    @Override
+    public void onTaskUpdated(int index, Task task) {
+        Integer slot = slots.get(task);
+        if (slot == null) {
+            return;
+        }
+        if (task.isDone()) {
+            done.add(slot);
+        } else {
+            done.remove(slot);
+        }
+    }
+
+    private static boolean isTagChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+}
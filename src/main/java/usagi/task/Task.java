@@ -1,12 +1,26 @@
 package usagi.task;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 /**
  * Represents a generic task with a description and completion status.
  */
 public abstract class Task {
 
+    /**
+     * Longest description accepted for a new task, in characters. With every other field at its
+     * longest, the saved line of such a task still fits one record of the page store.
+     */
+    public static final int MAX_DESCRIPTION_LENGTH = 500;
+
     protected String description;
     protected boolean isDone;
+    protected LocalDate doneOn;
+    protected Priority priority;
+    // The task in a list that this one is an occurrence of, or null if it is that task.
+    protected Task series;
+    private volatile String searchKey;
 
     public Task(String description) {
         this.description = description;
@@ -26,10 +40,44 @@ public abstract class Task {
     }
 
     /**
-     * Marks task as done.
+     * Returns the description of the task.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns whether the task is done.
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /**
+     * Returns the date the task was marked done, or null if it is not done or the date is unknown.
+     */
+    public LocalDate getDoneOn() {
+        return isDone ? doneOn : null;
+    }
+
+    /**
+     * Marks task as done today, keeping the original date if it was already done.
      */
     public void markAsDone() {
+        if (!isDone || doneOn == null) {
+            markAsDone(LocalDate.now());
+        }
+    }
+
+    /**
+     * Marks task as done on the given date.
+     *
+     * @param date Date the task was completed.
+     */
+    public void markAsDone(LocalDate date) {
         this.isDone = true;
+        this.doneOn = date;
+        searchKey = null;
     }
 
     /**
@@ -37,6 +85,66 @@ public abstract class Task {
      */
     public void markAsNotDone() {
         this.isDone = false;
+        this.doneOn = null;
+        searchKey = null;
+    }
+
+    /**
+     * Returns how urgent the task is, or null if it has no priority.
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets how urgent the task is.
+     *
+     * @param priority New priority, or null to remove it.
+     */
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+        searchKey = null;
+    }
+
+    /**
+     * Returns the full description in lower case, for case-insensitive search. The key is kept
+     * until the task's status or priority changes, so searching does not lower-case every task.
+     */
+    public String getSearchKey() {
+        String key = searchKey;
+        if (key == null) {
+            key = KeywordSearch.fold(getFullDescription());
+            searchKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Returns how often the task repeats, or null if it happens once.
+     */
+    public Recurrence getRecurrence() {
+        return null;
+    }
+
+    /**
+     * Returns the occurrence of this task at the given time. Tasks that happen once are their own
+     * only occurrence; recurring tasks return a copy moved to that time, which is not part of any list.
+     *
+     * @param time Time of the occurrence, as returned by {@link DateIndex#nextOccurrence}.
+     * @return The task itself, or a copy for the given occurrence.
+     */
+    public Task occurrenceAt(LocalDateTime time) {
+        return this;
+    }
+
+    /**
+     * Returns the task in a list that this task is an occurrence of, which is the task itself for
+     * anything not made by {@link #occurrenceAt}.
+     *
+     * @return Task whose position in the list identifies this one.
+     */
+    public Task getSeries() {
+        return series == null ? this : series;
     }
 
     @Override
@@ -49,6 +157,28 @@ public abstract class Task {
      */
     public abstract String toFileString();
 
+    /**
+     * Returns the optional file field recording when the task was done, or an empty string.
+     */
+    protected String doneField() {
+        LocalDate date = getDoneOn();
+        return date == null ? "" : " | done=" + IsoDates.formatDate(date);
+    }
+
+    /**
+     * Returns the optional file field recording the priority of the task, or an empty string.
+     */
+    protected String priorityField() {
+        return priority == null ? "" : " | priority=" + priority.getName();
+    }
+
+    /**
+     * Returns the priority as shown after the description, or an empty string if there is none.
+     */
+    protected String priorityLabel() {
+        return priority == null ? "" : " (priority: " + priority.getName() + ")";
+    }
+
     /**
      * Returns the task type label, e.g., [T], [D], [E].
      */
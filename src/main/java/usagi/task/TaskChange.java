@@ -0,0 +1,70 @@
+package usagi.task;
+
+/**
+ * One change made to a {@link TaskList}, as delivered to a {@link TaskChangeListener}.
+ */
+public class TaskChange {
+
+    /**
+     * What happened to the task.
+     */
+    public enum Kind {
+        ADDED,
+        REMOVED,
+        STATUS_CHANGED,
+        PRIORITY_CHANGED
+    }
+
+    private final Kind kind;
+    private final int index;
+    private final int size;
+    private final Task task;
+
+    /**
+     * Creates a change.
+     *
+     * @param kind What happened to the task.
+     * @param index Position of the task after it was added or changed, or before it was removed.
+     * @param size Number of tasks in the list right after the change.
+     * @param task Task that was added, removed or changed.
+     */
+    public TaskChange(Kind kind, int index, int size, Task task) {
+        this.kind = kind;
+        this.index = index;
+        this.size = size;
+        this.task = task;
+    }
+
+    /**
+     * Returns what happened to the task.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the position of the task after it was added or changed, or before it was removed.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the number of tasks in the list right after the change.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the task that was added, removed or changed.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + index + " " + task;
+    }
+}
@@ -0,0 +1,25 @@
+package usagi.task;
+
+import java.util.List;
+
+/**
+ * Receives the changes made to a {@link TaskList} in batches, for components that apply them
+ * downstream, such as storage and replication.
+ *
+ * <p>Unlike a {@link TaskListListener}, which sees every change the moment it happens, a change
+ * listener sees only changes that are kept. A change made outside a transaction is delivered on
+ * its own right after it is made. Changes made in a {@link Transaction} are delivered together, in
+ * order, when it commits, and are never delivered if it rolls back. By the time a batch arrives,
+ * the list and its tasks may have changed further, so positions must be read from the changes and
+ * not from the list.</p>
+ */
+@FunctionalInterface
+public interface TaskChangeListener {
+
+    /**
+     * Called after changes have been made to the list.
+     *
+     * @param changes Changes in the order they were made; never empty.
+     */
+    void onTasksChanged(List<TaskChange> changes);
+}
@@ -1,19 +1,44 @@
 package usagi.task;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a list of tasks.
  * Provides operations to add, delete, retrieve, and return all tasks.
  */
 public class TaskList {
+    private static final long ORDER_GAP = 1L << 20;
+
     private final ArrayList<Task> tasks;
+    private final ArrayList<TaskListListener> listeners = new ArrayList<>();
+    private final ArrayList<TaskChangeListener> changeListeners = new ArrayList<>();
+    private final UndoHistory history = new UndoHistory();
+    private final DateIndex dateIndex = new DateIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final TagIndex tagIndex = new TagIndex();
+    private final UrgencyIndex urgencyIndex = new UrgencyIndex();
+    private final SummaryCounters counters = new SummaryCounters();
+    private long version;
+    private Transaction transaction;
+    // Changes held back from change listeners until the open transaction commits or rolls back.
+    private List<TaskChange> changeBatch;
+
+    // Gapped labels that increase with list position, so subsets can be put back in list order cheaply.
+    private final Map<Task, Long> orderKeys = new IdentityHashMap<>();
 
     /**
      * Creates an empty task list.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(null);
     }
 
     /**
@@ -22,7 +47,29 @@ public class TaskList {
      * @param tasks Tasks to initialize with. Can be null.
      */
     public TaskList(ArrayList<Task> tasks) {
+        this(tasks, null);
+    }
+
+    /**
+     * Creates a task list initialized with loaded tasks, whose word postings were saved by an earlier
+     * run and need not be rebuilt.
+     *
+     * @param tasks Tasks to initialize with. Can be null.
+     * @param postings Postings saved for exactly these tasks, or null to build them.
+     */
+    public TaskList(ArrayList<Task> tasks, StoredPostings postings) {
         this.tasks = tasks != null ? tasks : new ArrayList<>();
+        relabel();
+        attachIndex(dateIndex);
+        if (postings == null) {
+            attachIndex(searchIndex);
+        } else {
+            searchIndex.restore(this.tasks, postings);
+            listeners.add(searchIndex);
+        }
+        attachIndex(tagIndex);
+        attachIndex(urgencyIndex);
+        attachIndex(counters);
     }
 
 
@@ -61,6 +108,34 @@ public class TaskList {
      */
     public void add(Task t) {
         tasks.add(t);
+        version++;
+        assignOrderKey(tasks.size() - 1);
+        if (transaction != null) {
+            transaction.recordAdd(tasks.size() - 1);
+        }
+        for (TaskListListener listener : listeners) {
+            listener.onTaskAdded(tasks.size() - 1, t);
+        }
+        publish(TaskChange.Kind.ADDED, tasks.size() - 1, t);
+    }
+
+    /**
+     * Inserts a task at the specified index, shifting later tasks back by one.
+     *
+     * @param idx Index to insert the task at.
+     * @param t Task to be inserted.
+     */
+    public void add(int idx, Task t) {
+        tasks.add(idx, t);
+        version++;
+        assignOrderKey(idx);
+        if (transaction != null) {
+            transaction.recordAdd(idx);
+        }
+        for (TaskListListener listener : listeners) {
+            listener.onTaskAdded(idx, t);
+        }
+        publish(TaskChange.Kind.ADDED, idx, t);
     }
 
     /**
@@ -70,7 +145,270 @@ public class TaskList {
      * @return Removed task.
      */
     public Task remove(int idx) {
-        return tasks.remove(idx);
+        Task removed = tasks.remove(idx);
+        version++;
+        orderKeys.remove(removed);
+        if (transaction != null) {
+            transaction.recordRemove(idx, removed);
+        }
+        for (TaskListListener listener : listeners) {
+            listener.onTaskRemoved(idx, removed);
+        }
+        publish(TaskChange.Kind.REMOVED, idx, removed);
+        return removed;
+    }
+
+    /**
+     * Removes the given tasks from the list, notifying listeners of each removal.
+     *
+     * @param toRemove Tasks to remove, compared by identity.
+     * @return Number of tasks removed.
+     */
+    public int removeAll(Collection<Task> toRemove) {
+        Set<Task> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        targets.addAll(toRemove);
+        int removed = 0;
+        // Back to front, so the indexes reported to listeners are still valid when they run.
+        for (int i = tasks.size() - 1; i >= 0 && removed < targets.size(); i--) {
+            if (targets.contains(tasks.get(i))) {
+                remove(i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Sets the completion status of the task at the specified index.
+     *
+     * @param idx Index of the task to update.
+     * @param isDone True to mark the task as done, false to mark it as not done.
+     * @return The updated task.
+     */
+    public Task setDone(int idx, boolean isDone) {
+        Task task = tasks.get(idx);
+        if (transaction != null) {
+            transaction.recordStatusChange(idx, task.isDone(), task.getDoneOn());
+        }
+        if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsNotDone();
+        }
+        notifyUpdated(idx, task, TaskChange.Kind.STATUS_CHANGED);
+        return task;
+    }
+
+    /**
+     * Sets the priority of the task at the specified index.
+     *
+     * @param idx Index of the task to update.
+     * @param priority New priority, or null to remove it.
+     * @return The updated task.
+     */
+    public Task setPriority(int idx, Priority priority) {
+        Task task = tasks.get(idx);
+        if (transaction != null) {
+            transaction.recordPriorityChange(idx, task.getPriority());
+        }
+        task.setPriority(priority);
+        notifyUpdated(idx, task, TaskChange.Kind.PRIORITY_CHANGED);
+        return task;
+    }
+
+    /**
+     * Starts recording changes to this list so that they can be rolled back together.
+     *
+     * @return The new transaction.
+     * @throws IllegalStateException If a transaction is already open on this list.
+     */
+    public Transaction beginTransaction() {
+        if (transaction != null) {
+            throw new IllegalStateException("A transaction is already open on this list");
+        }
+        transaction = new Transaction(this);
+        changeBatch = new ArrayList<>();
+        return transaction;
+    }
+
+    /**
+     * Returns whether a transaction is open on this list.
+     *
+     * @return True between {@link #beginTransaction()} and the commit or rollback.
+     */
+    public boolean hasOpenTransaction() {
+        return transaction != null;
+    }
+
+    /**
+     * Stops recording changes into the open transaction. Changes made from now on, such as those
+     * undoing it, are still held back until {@link #endChangeBatch} is called.
+     */
+    void endTransaction(Transaction ended) {
+        assert transaction == ended : "Only the open transaction can end";
+        transaction = null;
+    }
+
+    /**
+     * Delivers the changes held back since the transaction began to the change listeners, or
+     * drops them if the transaction was rolled back.
+     *
+     * @param isKept True if the transaction committed.
+     */
+    void endChangeBatch(boolean isKept) {
+        List<TaskChange> batch = changeBatch;
+        changeBatch = null;
+        if (isKept && !batch.isEmpty()) {
+            deliver(batch);
+        }
+    }
+
+    /**
+     * Puts back the completion status and date a task had before a rolled back change.
+     */
+    void restoreStatus(int idx, boolean wasDone, LocalDate doneOn) {
+        Task task = tasks.get(idx);
+        task.markAsNotDone();
+        if (wasDone) {
+            task.markAsDone(doneOn);
+        }
+        notifyUpdated(idx, task, TaskChange.Kind.STATUS_CHANGED);
+    }
+
+    /**
+     * Returns the modification version of this list, which changes whenever a task is added,
+     * removed, or marked as done or not done.
+     *
+     * @return Current version of this list.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the undo history of commands applied to this list.
+     *
+     * @return Undo history of this list.
+     */
+    public UndoHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Returns the index of deadlines and events ordered by date.
+     *
+     * @return Date index of this list.
+     */
+    public DateIndex getDateIndex() {
+        return dateIndex;
+    }
+
+    /**
+     * Returns the index of description tokens, task types and completion status.
+     *
+     * @return Search index of this list.
+     */
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Returns the bitmap index of task tags.
+     *
+     * @return Tag index of this list.
+     */
+    public TagIndex getTagIndex() {
+        return tagIndex;
+    }
+
+    /**
+     * Returns the index of open tasks ranked by priority and date.
+     *
+     * @return Urgency index of this list.
+     */
+    public UrgencyIndex getUrgencyIndex() {
+        return urgencyIndex;
+    }
+
+    /**
+     * Returns the running counts of tasks by type and status.
+     *
+     * @return Summary counters of this list.
+     */
+    public SummaryCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Sorts tasks from this list into the order they appear in the list.
+     * Costs O(k log k) for k tasks, independent of the size of the list.
+     *
+     * @param subset Tasks that are all contained in this list.
+     */
+    public void sortByPosition(List<Task> subset) {
+        subset.sort((a, b) -> Long.compare(orderKeys.get(a), orderKeys.get(b)));
+    }
+
+    /**
+     * Returns the positions in this list of the tasks of a view, such as search results, in one pass
+     * over the list. Occurrences of recurring tasks take the position of their series.
+     *
+     * @param view Tasks from this list, or occurrences of them, in any order.
+     * @return Zero-based position of each task of the view, or -1 for a task not in this list.
+     */
+    public int[] positionsOf(List<Task> view) {
+        int[] positions = new int[view.size()];
+        Arrays.fill(positions, -1);
+        Map<Task, List<Integer>> slots = new IdentityHashMap<>();
+        for (int i = 0; i < view.size(); i++) {
+            slots.computeIfAbsent(view.get(i).getSeries(), k -> new ArrayList<>(1)).add(i);
+        }
+        for (int i = 0; i < tasks.size() && !slots.isEmpty(); i++) {
+            List<Integer> found = slots.remove(tasks.get(i));
+            if (found != null) {
+                for (int slot : found) {
+                    positions[slot] = i;
+                }
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Registers a listener to be notified of changes to this list.
+     *
+     * @param listener Listener to register.
+     */
+    public void addListener(TaskListListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a previously registered listener.
+     *
+     * @param listener Listener to remove.
+     */
+    public void removeListener(TaskListListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener that receives the changes to this list in batches, holding back the
+     * changes made in a transaction until it commits.
+     *
+     * @param listener Listener to add.
+     */
+    public void addChangeListener(TaskChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a change listener.
+     *
+     * @param listener Listener to remove.
+     */
+    public void removeChangeListener(TaskChangeListener listener) {
+        changeListeners.remove(listener);
     }
 
     /**
@@ -84,6 +422,8 @@ public class TaskList {
 
     /**
      * Checks whether the task list contains the specified task.
+     * Equal tasks have the same description, so only the tasks posted under its rarest word are
+     * compared; the list is scanned only for a description without any letters or digits.
      *
      * @param task Task to search for
      * @return true if the task is found in the list, false otherwise
@@ -92,7 +432,83 @@ public class TaskList {
         if (task == null) {
             return false;
         }
-        return tasks.contains(task);
+        Set<Task> candidates = null;
+        for (String token : SearchIndex.tokenize(task.getDescription())) {
+            Set<Task> matches = searchIndex.withToken(token);
+            if (candidates == null || matches.size() < candidates.size()) {
+                candidates = matches;
+            }
+        }
+        if (candidates == null) {
+            return tasks.contains(task);
+        }
+        for (Task candidate : candidates) {
+            if (candidate.equals(task)) {
+                return true;
+            }
+        }
+        return false;
     }
 
+    private void notifyUpdated(int idx, Task task, TaskChange.Kind kind) {
+        version++;
+        for (TaskListListener listener : listeners) {
+            listener.onTaskUpdated(idx, task);
+        }
+        publish(kind, idx, task);
+    }
+
+    private void publish(TaskChange.Kind kind, int idx, Task task) {
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+        TaskChange change = new TaskChange(kind, idx, tasks.size(), task);
+        if (changeBatch != null) {
+            changeBatch.add(change);
+        } else {
+            deliver(List.of(change));
+        }
+    }
+
+    private void deliver(List<TaskChange> changes) {
+        List<TaskChange> batch = Collections.unmodifiableList(changes);
+        for (TaskChangeListener listener : changeListeners) {
+            listener.onTasksChanged(batch);
+        }
+    }
+
+    /**
+     * Seeds an index with the current tasks and keeps it updated from then on.
+     */
+    private void attachIndex(TaskListListener index) {
+        for (int i = 0; i < tasks.size(); i++) {
+            index.onTaskAdded(i, tasks.get(i));
+        }
+        listeners.add(index);
+    }
+
+    /**
+     * Gives the task at the given position an order key between those of its neighbours,
+     * relabelling the whole list in the rare case that no gap is left.
+     */
+    private void assignOrderKey(int idx) {
+        long before = idx > 0 ? orderKeys.get(tasks.get(idx - 1)) : 0;
+        if (idx == tasks.size() - 1) {
+            orderKeys.put(tasks.get(idx), before + ORDER_GAP);
+            return;
+        }
+        long after = orderKeys.get(tasks.get(idx + 1));
+        if (after - before > 1) {
+            orderKeys.put(tasks.get(idx), before + (after - before) / 2);
+        } else {
+            relabel();
+        }
+    }
+
+    private void relabel() {
+        orderKeys.clear();
+        for (int i = 0; i < tasks.size(); i++) {
+            orderKeys.put(tasks.get(i), (i + 1) * ORDER_GAP);
+        }
+    }
 }
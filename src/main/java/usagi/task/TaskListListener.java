@@ -0,0 +1,33 @@
+package usagi.task;
+
+/**
+ * Receives notifications whenever the contents of a {@link TaskList} change.
+ * Lets components such as storage keep derived state in step with the list
+ * without re-reading every task after each command.
+ */
+public interface TaskListListener {
+
+    /**
+     * Called after a task has been inserted into the list.
+     *
+     * @param index Position the task now occupies.
+     * @param task Task that was added.
+     */
+    void onTaskAdded(int index, Task task);
+
+    /**
+     * Called after a task has been removed from the list.
+     *
+     * @param index Position the task occupied before removal.
+     * @param task Task that was removed.
+     */
+    void onTaskRemoved(int index, Task task);
+
+    /**
+     * Called after a task already in the list has changed, e.g. its completion status.
+     *
+     * @param index Position of the changed task.
+     * @param task Task that was changed.
+     */
+    void onTaskUpdated(int index, Task task);
+}
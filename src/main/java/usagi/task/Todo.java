@@ -20,7 +20,7 @@ public class Todo extends Task {
 
     @Override
     public String getFullDescription() {
-        return getTaskType() + super.toString();
+        return getTaskType() + super.toString() + priorityLabel();
     }
 
     @Override
@@ -30,7 +30,7 @@ public class Todo extends Task {
 
     @Override
     public String toFileString() {
-        return "T | " + (isDone ? "1" : "0") + " | " + description;
+        return "T | " + (isDone ? "1" : "0") + " | " + description + priorityField() + doneField();
     }
 
     @Override
@@ -40,4 +40,9 @@ public class Todo extends Task {
         Todo todo = (Todo) obj;
         return description.equals(todo.description);
     }
-}
\ No newline at end of file
+
+    @Override
+    public int hashCode() {
+        return description.hashCode();
+    }
+}
@@ -0,0 +1,71 @@
+package usagi.task;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+
+/**
+ * A group of changes to a {@link TaskList} that is kept or reverted as a whole.
+ *
+ * <p>While a transaction is open, the list records the inverse of every add, remove, status and
+ * priority change made to it. Rolling back runs those inverses newest first, which restores the list
+ * without copying it, and puts the undo history back as it was when the transaction began.
+ * {@link TaskChangeListener}s receive the changes of a committed transaction as one batch, and
+ * nothing from one that was rolled back.</p>
+ */
+public class Transaction {
+
+    private final TaskList tasks;
+    private final UndoHistory savedHistory;
+    private final ArrayDeque<Runnable> inverses = new ArrayDeque<>();
+
+    Transaction(TaskList tasks) {
+        this.tasks = tasks;
+        this.savedHistory = tasks.getHistory().copy();
+    }
+
+    void recordAdd(int index) {
+        inverses.push(() -> tasks.remove(index));
+    }
+
+    void recordRemove(int index, Task task) {
+        inverses.push(() -> tasks.add(index, task));
+    }
+
+    void recordStatusChange(int index, boolean wasDone, LocalDate doneOn) {
+        inverses.push(() -> tasks.restoreStatus(index, wasDone, doneOn));
+    }
+
+    void recordPriorityChange(int index, Priority priority) {
+        inverses.push(() -> tasks.setPriority(index, priority));
+    }
+
+    /**
+     * Returns the number of changes made to the list since the transaction began.
+     *
+     * @return Number of recorded changes.
+     */
+    public int getChangeCount() {
+        return inverses.size();
+    }
+
+    /**
+     * Keeps the changes made in this transaction and stops recording.
+     */
+    public void commit() {
+        tasks.endTransaction(this);
+        inverses.clear();
+        tasks.endChangeBatch(true);
+    }
+
+    /**
+     * Reverts every change made in this transaction and stops recording.
+     */
+    public void rollback() {
+        tasks.endTransaction(this);
+        while (!inverses.isEmpty()) {
+            inverses.pop().run();
+        }
+        tasks.getHistory().restore(savedHistory);
+        tasks.endChangeBatch(false);
+    }
+}
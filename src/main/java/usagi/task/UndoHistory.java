@@ -0,0 +1,275 @@
+package usagi.task;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Records inverse operations for changes made to a {@link TaskList} so they can be undone and redone.
+ * Each entry only keeps the affected task, its position and the status or priority involved, so memory
+ * per step stays constant regardless of list size. The oldest entries are dropped once the capacity is reached.
+ */
+public class UndoHistory {
+
+    private static final int DEFAULT_CAPACITY = 100;
+
+    private final int capacity;
+    private final ArrayDeque<Operation> undoStack = new ArrayDeque<>();
+    private final ArrayDeque<Operation> redoStack = new ArrayDeque<>();
+
+    /**
+     * Creates an undo history with the default capacity.
+     */
+    public UndoHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an undo history that keeps at most the given number of operations.
+     *
+     * @param capacity Maximum number of operations that can be undone.
+     */
+    public UndoHistory(int capacity) {
+        assert capacity > 0 : "Undo capacity must be positive";
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records that a task was added at the given index.
+     *
+     * @param index Position the task was added at.
+     * @param task Task that was added.
+     */
+    public void recordAdd(int index, Task task) {
+        push(new Operation(Kind.ADD, index, task, false));
+    }
+
+    /**
+     * Records that tasks were appended together, e.g. by an import, so that they are undone in one step.
+     *
+     * @param index Position of the first task added.
+     * @param added Tasks that were added, in order.
+     */
+    public void recordAddAll(int index, List<Task> added) {
+        push(new Operation(index, List.copyOf(added)));
+    }
+
+    /**
+     * Records that a task was deleted from the given index.
+     *
+     * @param index Position the task was removed from.
+     * @param task Task that was removed.
+     */
+    public void recordDelete(int index, Task task) {
+        push(new Operation(Kind.DELETE, index, task, false));
+    }
+
+    /**
+     * Records that the completion status of a task changed.
+     *
+     * @param index Position of the task.
+     * @param task Task whose status changed.
+     * @param wasDone Completion status before the change.
+     */
+    public void recordStatusChange(int index, Task task, boolean wasDone) {
+        push(new Operation(Kind.STATUS, index, task, wasDone));
+    }
+
+    /**
+     * Records that the priority of a task changed.
+     *
+     * @param index Position of the task.
+     * @param task Task whose priority changed.
+     * @param before Priority before the change, or null if it had none.
+     */
+    public void recordPriorityChange(int index, Task task, Priority before) {
+        push(new Operation(index, task, before, task.getPriority()));
+    }
+
+    /**
+     * Returns whether there is an operation that can be undone.
+     */
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    /**
+     * Returns whether there is an operation that can be redone.
+     */
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /**
+     * Reverts the most recent operation on the given task list.
+     *
+     * @param tasks Task list the operation was applied to.
+     * @return Description of the operation that was undone.
+     */
+    public String undo(TaskList tasks) {
+        assert canUndo() : "Nothing to undo";
+        Operation op = undoStack.pop();
+        op.revert(tasks);
+        redoStack.push(op);
+        return op.describe();
+    }
+
+    /**
+     * Re-applies the most recently undone operation on the given task list.
+     *
+     * @param tasks Task list the operation was applied to.
+     * @return Description of the operation that was redone.
+     */
+    public String redo(TaskList tasks) {
+        assert canRedo() : "Nothing to redo";
+        Operation op = redoStack.pop();
+        op.apply(tasks);
+        undoStack.push(op);
+        return op.describe();
+    }
+
+    /**
+     * Forgets all recorded operations, e.g. after the list was changed outside of commands.
+     */
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+    }
+
+    /**
+     * Returns a copy of this history, to be restored if the changes made after it are rolled back.
+     */
+    UndoHistory copy() {
+        UndoHistory copy = new UndoHistory(capacity);
+        copy.undoStack.addAll(undoStack);
+        copy.redoStack.addAll(redoStack);
+        return copy;
+    }
+
+    /**
+     * Replaces the recorded operations with those of a copy made earlier.
+     */
+    void restore(UndoHistory saved) {
+        undoStack.clear();
+        undoStack.addAll(saved.undoStack);
+        redoStack.clear();
+        redoStack.addAll(saved.redoStack);
+    }
+
+    private void push(Operation op) {
+        if (undoStack.size() == capacity) {
+            undoStack.removeLast();
+        }
+        undoStack.push(op);
+        redoStack.clear();
+    }
+
+    private enum Kind {
+        ADD, ADD_ALL, DELETE, STATUS, PRIORITY
+    }
+
+    /**
+     * A single recorded change that knows how to apply and revert itself.
+     */
+    private static class Operation {
+        private final Kind kind;
+        private final int index;
+        private final Task task;
+        private final boolean wasDone;
+        private final Priority before;
+        private final Priority after;
+        private final List<Task> group;
+
+        Operation(Kind kind, int index, Task task, boolean wasDone) {
+            this.kind = kind;
+            this.index = index;
+            this.task = task;
+            this.wasDone = wasDone;
+            this.before = null;
+            this.after = null;
+            this.group = null;
+        }
+
+        Operation(int index, Task task, Priority before, Priority after) {
+            this.kind = Kind.PRIORITY;
+            this.index = index;
+            this.task = task;
+            this.wasDone = false;
+            this.before = before;
+            this.after = after;
+            this.group = null;
+        }
+
+        Operation(int index, List<Task> group) {
+            this.kind = Kind.ADD_ALL;
+            this.index = index;
+            this.task = null;
+            this.wasDone = false;
+            this.before = null;
+            this.after = null;
+            this.group = group;
+        }
+
+        void apply(TaskList tasks) {
+            switch (kind) {
+            case ADD:
+                tasks.add(index, task);
+                break;
+            case ADD_ALL:
+                for (int i = 0; i < group.size(); i++) {
+                    tasks.add(index + i, group.get(i));
+                }
+                break;
+            case DELETE:
+                tasks.remove(index);
+                break;
+            case STATUS:
+                tasks.setDone(index, !wasDone);
+                break;
+            case PRIORITY:
+                tasks.setPriority(index, after);
+                break;
+            default:
+                break;
+            }
+        }
+
+        void revert(TaskList tasks) {
+            switch (kind) {
+            case ADD:
+                tasks.remove(index);
+                break;
+            case ADD_ALL:
+                for (int i = group.size() - 1; i >= 0; i--) {
+                    tasks.remove(index + i);
+                }
+                break;
+            case DELETE:
+                tasks.add(index, task);
+                break;
+            case STATUS:
+                tasks.setDone(index, wasDone);
+                break;
+            case PRIORITY:
+                tasks.setPriority(index, before);
+                break;
+            default:
+                break;
+            }
+        }
+
+        String describe() {
+            switch (kind) {
+            case ADD:
+                return "add " + task;
+            case ADD_ALL:
+                return "import of " + group.size() + " tasks";
+            case DELETE:
+                return "delete " + task;
+            case PRIORITY:
+                return "priority " + (after == null ? "none" : after.getName()) + " " + task;
+            default:
+                return (wasDone ? "unmark " : "mark ") + task;
+            }
+        }
+    }
+}
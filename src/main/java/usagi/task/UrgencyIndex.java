@@ -0,0 +1,123 @@
+package usagi.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * An index of the open tasks in a {@link TaskList}, ranked by urgency: higher priority first, then
+ * the nearest due date or start time, with todos after dated tasks of the same priority.
+ *
+ * <p>One-off tasks are kept in a balanced tree that is updated as tasks are added, removed, marked
+ * or reprioritized, so the k most urgent are found in O(k + log n) without sorting the list.
+ * Recurring series move as time passes, so, as in {@link DateIndex}, they are kept apart and ranked
+ * by their next occurrence when queried.</p>
+ */
+public class UrgencyIndex implements TaskListListener {
+
+    private static final Comparator<Entry> BY_URGENCY = Comparator.<Entry>comparingInt(entry -> entry.rank)
+            .thenComparing(entry -> entry.time, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final TreeSet<Entry> ranked = new TreeSet<>(BY_URGENCY);
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+    // Recurring series, with the sequence number that breaks ties between equally urgent tasks.
+    private final Map<Task, Long> series = new IdentityHashMap<>();
+    private long nextSequence;
+
+    /**
+     * Returns the number of open tasks in the index, counting each recurring series once.
+     */
+    public int size() {
+        return entries.size() + series.size();
+    }
+
+    /**
+     * Returns the most urgent open tasks. A recurring series is ranked, and returned, as its first
+     * occurrence on or after {@code today}.
+     *
+     * @param k Maximum number of tasks to return.
+     * @param today Date from which recurring series are ranked.
+     * @return Up to {@code k} tasks, most urgent first.
+     */
+    public List<Task> next(int k, LocalDate today) {
+        List<Entry> occurrences = new ArrayList<>(series.size());
+        for (Map.Entry<Task, Long> entry : series.entrySet()) {
+            Task task = entry.getKey();
+            LocalDateTime time = DateIndex.nextOccurrence(task, today.atStartOfDay());
+            occurrences.add(new Entry(task.occurrenceAt(time), time, entry.getValue()));
+        }
+        occurrences.sort(BY_URGENCY);
+
+        List<Task> result = new ArrayList<>(Math.min(k, size()));
+        Iterator<Entry> tree = ranked.iterator();
+        Entry fromTree = tree.hasNext() ? tree.next() : null;
+        int i = 0;
+        while (result.size() < k && (fromTree != null || i < occurrences.size())) {
+            boolean isTreeFirst = fromTree != null
+                    && (i == occurrences.size() || BY_URGENCY.compare(fromTree, occurrences.get(i)) < 0);
+            if (isTreeFirst) {
+                result.add(fromTree.task);
+                fromTree = tree.hasNext() ? tree.next() : null;
+            } else {
+                result.add(occurrences.get(i++).task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void onTaskAdded(int index, Task task) {
+        if (task.isDone()) {
+            return;
+        }
+        if (task.getRecurrence() != null) {
+            series.put(task, nextSequence++);
+            return;
+        }
+        Entry entry = new Entry(task, DateIndex.keyOf(task), nextSequence++);
+        entries.put(task, entry);
+        ranked.add(entry);
+    }
+
+    @Override
+    public void onTaskRemoved(int index, Task task) {
+        if (series.remove(task) != null) {
+            return;
+        }
+        Entry entry = entries.remove(task);
+        if (entry != null) {
+            ranked.remove(entry);
+        }
+    }
+
+    @Override
+    public void onTaskUpdated(int index, Task task) {
+        // The stored entry still holds the old priority, so it is found and removed before re-ranking.
+        onTaskRemoved(index, task);
+        onTaskAdded(index, task);
+    }
+
+    /**
+     * A task with the urgency it was ranked by, fixed when the entry is created.
+     */
+    private static final class Entry {
+        private final Task task;
+        private final int rank;
+        private final LocalDateTime time;
+        private final long sequence;
+
+        Entry(Task task, LocalDateTime time, long sequence) {
+            this.task = task;
+            this.rank = task.getPriority() == null ? Priority.values().length : task.getPriority().ordinal();
+            this.time = time;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package usagi.ui;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of rendered responses to read-only commands such as {@code list} and {@code find},
+ * so that repeating a command on an unchanged list costs a map lookup instead of a full render.
+ *
+ * <p>Every entry belongs to one version of the task list. As soon as a lookup or store is made
+ * with a newer version, all entries are dropped, so a response is never served after an add,
+ * delete, mark or unmark.</p>
+ */
+public class ResponseCache {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Map<String, Response> responses;
+    private long version = -1;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache holding responses to up to 16 different commands.
+     */
+    public ResponseCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache holding responses to up to {@code capacity} different commands,
+     * evicting the least recently used first.
+     *
+     * @param capacity Maximum number of cached responses.
+     */
+    public ResponseCache(int capacity) {
+        this.responses = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached response to a command, counting a hit or a miss.
+     *
+     * @param key Normalized command text.
+     * @param listVersion Current version of the task list.
+     * @return The cached response, or null if there is none for this version of the list.
+     */
+    public synchronized Response get(String key, long listVersion) {
+        invalidateIfChanged(listVersion);
+        Response response = responses.get(key);
+        if (response == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return response;
+    }
+
+    /**
+     * Caches the response to a command.
+     *
+     * @param key Normalized command text.
+     * @param listVersion Version of the task list the response was rendered from.
+     * @param output Text of the response.
+     * @param table Rows of the response, or null if it did not list any tasks.
+     */
+    public synchronized void put(String key, long listVersion, String output, TaskTable table) {
+        invalidateIfChanged(listVersion);
+        responses.put(key, new Response(output, table));
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Drops every cached response, e.g. when the cache is used for a different task list.
+     */
+    public synchronized void clear() {
+        responses.clear();
+        version = -1;
+    }
+
+    private void invalidateIfChanged(long listVersion) {
+        if (listVersion != version) {
+            responses.clear();
+            version = listVersion;
+        }
+    }
+
+    /**
+     * A rendered response: its text and, for commands that list tasks, its table rows.
+     */
+    public static class Response {
+        private final String output;
+        private final TaskTable table;
+
+        Response(String output, TaskTable table) {
+            this.output = output;
+            this.table = table;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public TaskTable getTable() {
+            return table;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package usagi.ui;
+
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Recurrence;
+import usagi.task.Task;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One row of a task table: a task broken into the fields shown as columns.
+ *
+ * <p>Rows keep dates as values rather than text, so that tables can sort by them, and only format
+ * them when {@link #getDateText()} is called, which a virtualized table does just for the rows on
+ * screen.</p>
+ */
+public class TaskRow {
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("MMM d yyyy");
+    private static final DateTimeFormatter DATE_TIME_FMT = DateTimeFormatter.ofPattern("MMM d yyyy HH:mm");
+
+    private final int number;
+    private final String type;
+    private final boolean isDone;
+    private final String description;
+    private final LocalDateTime date;
+    private final LocalDateTime end;
+    private final Recurrence recurrence;
+
+    private TaskRow(int number, String type, boolean isDone, String description, LocalDateTime date,
+            LocalDateTime end, Recurrence recurrence) {
+        this.number = number;
+        this.type = type;
+        this.isDone = isDone;
+        this.description = description;
+        this.date = date;
+        this.end = end;
+        this.recurrence = recurrence;
+    }
+
+    /**
+     * Creates the row for a task.
+     *
+     * @param number Number shown for the task, as in the text output.
+     * @param task Task to show.
+     * @return Row holding the task's fields.
+     */
+    public static TaskRow of(int number, Task task) {
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            return new TaskRow(number, "Deadline", task.isDone(), task.getDescription(),
+                    deadline.getDue().atStartOfDay(), null, task.getRecurrence());
+        }
+        if (task instanceof Event) {
+            Event event = (Event) task;
+            return new TaskRow(number, "Event", task.isDone(), task.getDescription(), event.getStart(),
+                    event.getEnd(), task.getRecurrence());
+        }
+        return new TaskRow(number, "Todo", task.isDone(), task.getDescription(), null, null, null);
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public boolean isDone() {
+        return isDone;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns the due date of a deadline or the start of an event, or null for a todo.
+     */
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the dates of the task as displayed, e.g. {@code Aug 6 2025 14:00 - Aug 6 2025 16:00, every week}.
+     */
+    public String getDateText() {
+        if (date == null) {
+            return "";
+        }
+        String text = end == null
+                ? DATE_FMT.format(date)
+                : DATE_TIME_FMT.format(date) + " - " + DATE_TIME_FMT.format(end);
+        return recurrence == null ? text : text + ", every " + recurrence.getName();
+    }
+}
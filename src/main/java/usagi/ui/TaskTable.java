@@ -0,0 +1,32 @@
+package usagi.ui;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list or search result as structured rows, for interfaces that show tasks in a table instead of text.
+ */
+public class TaskTable {
+
+    private final String heading;
+    private final List<TaskRow> rows;
+
+    /**
+     * Creates a table.
+     *
+     * @param heading Message shown above the rows.
+     * @param rows Rows in the order they were listed.
+     */
+    public TaskTable(String heading, List<TaskRow> rows) {
+        this.heading = heading;
+        this.rows = Collections.unmodifiableList(rows);
+    }
+
+    public String getHeading() {
+        return heading;
+    }
+
+    public List<TaskRow> getRows() {
+        return rows;
+    }
+}
@@ -1,8 +1,18 @@
 package usagi.ui;
 
+import usagi.task.DateIndex;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.SummaryCounters;
 import usagi.task.Task;
 import usagi.task.TaskList;
+import usagi.task.Todo;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -15,6 +25,7 @@ public class Ui {
     private static final String HORIZONTAL_LINE = "____________________________________________________________";
     private Scanner scanner;
     private String output;
+    private TaskTable table;
 
     /**
      * Creates a new Ui instance and initializes the input scanner.
@@ -69,6 +80,16 @@ public class Ui {
                 System.lineSeparator() +
                 "• list - Show all your tasks" +
                 System.lineSeparator() +
+                "• list --sort due / list --before <yyyy-MM-dd> - Show deadlines and events by date" +
+                System.lineSeparator() +
+                "• list #tag / list #work AND NOT #done - Show tasks by tag" +
+                System.lineSeparator() +
+                "• priority <number> <high|medium|low|none> - Set how urgent a task is" +
+                System.lineSeparator() +
+                "• next [count] - Show your most urgent open tasks" +
+                System.lineSeparator() +
+                "• summary - Count your tasks by type and status" +
+                System.lineSeparator() +
                 "• mark <number> - Mark a task as done" +
                 System.lineSeparator() +
                 "• unmark <number> - Mark a task as not done" +
@@ -77,6 +98,18 @@ public class Ui {
                 System.lineSeparator() +
                 "• find <keyword> - Search for tasks containing keyword" +
                 System.lineSeparator() +
+                "• find type:D done:false due<yyyy-MM-dd \"phrase\" word OR word - Search with a query" +
+                System.lineSeparator() +
+                "• undo / redo - Revert or re-apply your last change" +
+                System.lineSeparator() +
+                "• <command>; <command> or begin ... commit - Run several commands, all or none" +
+                System.lineSeparator() +
+                "• archive list / archive find <keyword> - Show tasks archived after being done a while" +
+                System.lineSeparator() +
+                "• import <file> / export <file> - Copy tasks from or to a .csv or .json file" +
+                System.lineSeparator() +
+                "• switch <name> - Use another task list, e.g. switch work" +
+                System.lineSeparator() +
                 "• bye - Exit the application" +
                 System.lineSeparator() +
                 HORIZONTAL_LINE;
@@ -131,16 +164,127 @@ public class Ui {
      * @param tasks The task list to display.
      */
     public void displayTaskList(TaskList tasks) {
-        this.output = HORIZONTAL_LINE + System.lineSeparator();
-        if (tasks.isEmpty()) {
-            this.output = output + "Your list is empty! Add some tasks first." + System.lineSeparator();
+        List<Task> view = tasks.displayTasks();
+        int[] numbers = new int[view.size()];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = i + 1;
+        }
+        displayTaskView(view, numbers, "Here are the tasks in your list:",
+                "Your list is empty! Add some tasks first.", "");
+    }
+
+    /**
+     * Displays deadlines and events ordered by due date or start time.
+     *
+     * @param tasks The task list the tasks belong to, which gives their numbers.
+     * @param datedTasks Deadlines and events, earliest first.
+     */
+    public void displayTasksByDate(TaskList tasks, List<Task> datedTasks) {
+        displayListView(tasks, datedTasks, "Here are your deadlines and events, soonest first:",
+                "You have no deadlines or events.");
+    }
+
+    /**
+     * Displays deadlines and events that are due or start before the given date.
+     *
+     * @param tasks The task list the tasks belong to, which gives their numbers.
+     * @param datedTasks Matching deadlines and events, earliest first.
+     * @param date The date the tasks fall before.
+     */
+    public void displayTasksBefore(TaskList tasks, List<Task> datedTasks, LocalDate date) {
+        String limit = hasSeriesAtLimit(datedTasks)
+                ? " (repeating tasks show their next " + DateIndex.MAX_OCCURRENCES + " occurrences at most)"
+                : "";
+        displayListView(tasks, datedTasks, "Here are your deadlines and events before " + date + limit + ":",
+                "You have no deadlines or events before " + date + ".");
+    }
+
+    /**
+     * Returns whether a view lists as many occurrences of some recurring series as it may.
+     */
+    private static boolean hasSeriesAtLimit(List<Task> view) {
+        Map<Task, Integer> counts = new IdentityHashMap<>();
+        for (Task task : view) {
+            Task series = task.getSeries();
+            if (series != null && counts.merge(series, 1, Integer::sum) >= DateIndex.MAX_OCCURRENCES) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Displays the tasks matching a tag filter.
+     *
+     * @param tasks The task list the tasks belong to, which gives their numbers.
+     * @param matchingTasks Matching tasks, in list order.
+     * @param filter The tag filter, as typed.
+     */
+    public void displayTasksTagged(TaskList tasks, List<Task> matchingTasks, String filter) {
+        displayListView(tasks, matchingTasks, "Here are the tasks matching " + filter + ":",
+                "No tasks match " + filter + ".");
+    }
+
+    /**
+     * Displays archived tasks, all of them or those matching a keyword.
+     *
+     * @param archivedTasks Archived tasks to show, oldest first.
+     * @param keyword The keyword searched for, or null if all archived tasks are shown.
+     */
+    public void displayArchivedTasks(List<Task> archivedTasks, String keyword) {
+        if (keyword == null) {
+            displayTaskView(archivedTasks, "Here are your archived tasks:", "Your archive is empty.");
+        } else {
+            displayTaskView(archivedTasks, "Here are the archived tasks matching " + keyword + ":",
+                    "No archived tasks found containing: " + keyword);
+        }
+    }
+
+    private void displayTaskView(List<Task> view, String heading, String emptyMessage) {
+        int[] numbers = new int[view.size()];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = i + 1;
+        }
+        displayTaskView(view, numbers, heading, emptyMessage, "");
+    }
+
+    /**
+     * Displays some tasks of a list, numbered by their position in the list so that the numbers
+     * shown can be used with mark, delete and other commands.
+     */
+    private void displayListView(TaskList tasks, List<Task> view, String heading, String emptyMessage) {
+        displayListView(tasks, view, heading, emptyMessage, "");
+    }
+
+    private void displayListView(TaskList tasks, List<Task> view, String heading, String emptyMessage,
+            String indent) {
+        int[] numbers = tasks.positionsOf(view);
+        for (int i = 0; i < numbers.length; i++) {
+            assert numbers[i] >= 0 : "Viewed task must be in the list";
+            numbers[i]++;
+        }
+        displayTaskView(view, numbers, heading, emptyMessage, indent);
+    }
+
+    /**
+     * Displays tasks under a heading with the given numbers, as text and as table rows.
+     */
+    private void displayTaskView(List<Task> view, int[] numbers, String heading, String emptyMessage,
+            String indent) {
+        StringBuilder builder = new StringBuilder(HORIZONTAL_LINE).append(System.lineSeparator());
+        if (view.isEmpty()) {
+            builder.append(emptyMessage).append(System.lineSeparator());
         } else {
-            this.output = output + "Here are the tasks in your list:" + System.lineSeparator();
-            for (int i = 0; i < tasks.size(); i++) {
-                this.output = output + (i + 1) + "." + tasks.get(i).toString() + System.lineSeparator();
+            builder.append(heading).append(System.lineSeparator());
+            List<TaskRow> rows = new ArrayList<>(view.size());
+            for (int i = 0; i < view.size(); i++) {
+                Task task = view.get(i);
+                builder.append(indent).append(numbers[i]).append(".").append(task).append(System.lineSeparator());
+                rows.add(TaskRow.of(numbers[i], task));
             }
+            this.table = new TaskTable(heading, rows);
         }
-        this.output = output + HORIZONTAL_LINE;
+        this.output = builder.append(HORIZONTAL_LINE).toString();
     }
 
     /**
@@ -209,23 +353,226 @@ public class Ui {
                 HORIZONTAL_LINE;
     }
 
+    /**
+     * Displays the outcome of importing tasks from a file.
+     *
+     * @param tasks The task list after the import.
+     * @param added Number of tasks added.
+     * @param duplicates Number of records skipped because the task already exists.
+     * @param invalid Number of records skipped because they could not be read as a task.
+     */
+    public void displayImported(TaskList tasks, int added, int duplicates, int invalid) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Imported " + added + " tasks (" + duplicates + " duplicates and "
+                + invalid + " invalid records skipped)." +
+                System.lineSeparator() +
+                "Now you have " + tasks.size() + " tasks in the list." +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays confirmation message when tasks have been exported to a file.
+     *
+     * @param count Number of tasks exported.
+     * @param fileName File the tasks were written to.
+     */
+    public void displayExported(int count, String fileName) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Exported " + count + " tasks to " + fileName + "." +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays confirmation message when a command has been undone.
+     *
+     * @param action Description of the command that was undone.
+     */
+    public void displayUndone(String action) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Okay, I've undone your last change:" +
+                System.lineSeparator() +
+                "  " + action +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays confirmation message when an undone command has been re-applied.
+     *
+     * @param action Description of the command that was redone.
+     */
+    public void displayRedone(String action) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Okay, I've redone this change:" +
+                System.lineSeparator() +
+                "  " + action +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays a reminder that a deadline is due or an event is starting.
+     *
+     * @param task The task that is due.
+     */
+    public void displayReminder(Task task) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Reminder! This task is due now:" +
+                System.lineSeparator() +
+                "  " + task.toString() +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays the most urgent open tasks.
+     *
+     * @param tasks The task list the tasks belong to, which gives their numbers.
+     * @param urgentTasks Open tasks, most urgent first.
+     */
+    public void displayNextTasks(TaskList tasks, List<Task> urgentTasks) {
+        displayListView(tasks, urgentTasks, "Here are your most urgent open tasks:",
+                "You have no open tasks. Well done!");
+    }
+
+    /**
+     * Displays confirmation that the priority of a task was set.
+     *
+     * @param task The task whose priority changed.
+     */
+    public void displayPriority(Task task) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                (task.getPriority() == null ? "Okay, this task no longer has a priority:"
+                        : "Okay, I've set the priority of this task to " + task.getPriority().getName() + ":") +
+                System.lineSeparator() +
+                "  " + task +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays the number of tasks of each type and status.
+     *
+     * @param counters Running counts of the task list.
+     * @param overdue Number of open deadlines that are overdue.
+     * @param eventsThisWeek Number of open events happening this week.
+     */
+    public void displaySummary(SummaryCounters counters, int overdue, int eventsThisWeek) {
+        int open = counters.getOpen(Todo.class) + counters.getOpen(Deadline.class) + counters.getOpen(Event.class);
+        int done = counters.getDone(Todo.class) + counters.getDone(Deadline.class) + counters.getDone(Event.class);
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Here is a summary of your tasks:" +
+                System.lineSeparator() +
+                "Todos: " + counters.getOpen(Todo.class) + " open, " + counters.getDone(Todo.class) + " done" +
+                System.lineSeparator() +
+                "Deadlines: " + counters.getOpen(Deadline.class) + " open, " + counters.getDone(Deadline.class)
+                + " done, " + overdue + " overdue" +
+                System.lineSeparator() +
+                "Events: " + counters.getOpen(Event.class) + " open, " + counters.getDone(Event.class)
+                + " done, " + eventsThisWeek + " this week" +
+                System.lineSeparator() +
+                "Total: " + open + " open, " + done + " done" +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays the combined responses of a batch of commands that all succeeded.
+     *
+     * @param outputs Response of each command, in order.
+     */
+    public void displayBatchResults(List<String> outputs) {
+        this.table = null;
+        if (outputs.isEmpty()) {
+            this.output = HORIZONTAL_LINE +
+                    System.lineSeparator() +
+                    "There were no commands to run." +
+                    System.lineSeparator() +
+                    HORIZONTAL_LINE;
+            return;
+        }
+        this.output = String.join(System.lineSeparator(), outputs);
+    }
+
+    /**
+     * Displays that commands were added to the open block.
+     *
+     * @param count Number of commands in the block so far.
+     */
+    public void displayBlockQueued(int count) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Block has " + count + (count == 1 ? " command" : " commands") + "." +
+                System.lineSeparator() +
+                "Type commit to run them all, or rollback to discard them." +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays that the open block was discarded without running its commands.
+     *
+     * @param count Number of commands discarded.
+     */
+    public void displayBlockDiscarded(int count) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Discarded " + count + (count == 1 ? " command" : " commands") + ". Nothing was changed." +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays that completed tasks were moved to the archive between commands, which renumbers
+     * the tasks after them.
+     *
+     * @param listName Name of the list the tasks were archived from.
+     * @param count Number of tasks archived.
+     */
+    public void displayArchivedInBackground(String listName, int count) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Moved " + count + (count == 1 ? " task" : " tasks") + " completed long ago from the "
+                + listName + " list to the archive." +
+                System.lineSeparator() +
+                "Task numbers may have changed, so please list your tasks again before using them." +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
+    /**
+     * Displays confirmation that another task list is now in use.
+     *
+     * @param name Name of the list now in use.
+     * @param size Number of tasks in that list.
+     */
+    public void displayListSwitched(String name, int size) {
+        this.output = HORIZONTAL_LINE +
+                System.lineSeparator() +
+                "Now using the " + name + " list, with " + size + (size == 1 ? " task." : " tasks.") +
+                System.lineSeparator() +
+                HORIZONTAL_LINE;
+    }
+
     /**
      * Displays search results for tasks containing the specified keyword.
      *
-     * @param matchingTasks TaskList containing tasks that match the search.
+     * @param tasks The task list that was searched, which gives the numbers of the matches.
+     * @param matchingTasks Tasks that match the search, in list order.
      * @param keyword The keyword that was searched for.
      */
-    public void displaySearchResults(TaskList matchingTasks, String keyword) {
-        this.output = HORIZONTAL_LINE + System.lineSeparator();
-        if (matchingTasks.isEmpty()) {
-            this.output = output + "No tasks found containing: " + keyword + System.lineSeparator();
-        } else {
-            this.output = output + "Here are the matching tasks in your list:" + System.lineSeparator();
-            for (int i = 0; i < matchingTasks.size(); i++) {
-                this.output = output + " " + (i + 1) + "." + matchingTasks.get(i).toString() + System.lineSeparator();
-            }
-        }
-        this.output = output + HORIZONTAL_LINE;
+    public void displaySearchResults(TaskList tasks, List<Task> matchingTasks, String keyword) {
+        displayListView(tasks, matchingTasks, "Here are the matching tasks in your list:",
+                "No tasks found containing: " + keyword, " ");
     }
 
     /**
@@ -236,4 +583,30 @@ public class Ui {
     public String returnOutput() {
         return output;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the tasks of the last list or search as table rows.
+     *
+     * @return The table, or null if no tasks have been listed since {@link #clearTaskTable()}.
+     */
+    public TaskTable getTaskTable() {
+        return table;
+    }
+
+    /**
+     * Forgets the table of the last list or search, before handling a new command.
+     */
+    public void clearTaskTable() {
+        this.table = null;
+    }
+
+    /**
+     * Shows a response rendered earlier, instead of rendering it again.
+     *
+     * @param response Cached response to show.
+     */
+    public void showCachedResponse(ResponseCache.Response response) {
+        this.output = response.getOutput();
+        this.table = response.getTable();
+    }
+}
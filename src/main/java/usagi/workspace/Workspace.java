@@ -0,0 +1,85 @@
+package usagi.workspace;
+
+import usagi.storage.TaskArchive;
+import usagi.storage.TaskStore;
+import usagi.task.TaskList;
+
+import java.io.Closeable;
+
+/**
+ * A named task list with its own task file, archive and storage.
+ * Its tasks are only held in memory while it is loaded by a {@link WorkspaceManager}.
+ */
+public class Workspace {
+
+    private final String name;
+    private final String filePath;
+    private final TaskArchive archive;
+    private TaskStore storage;
+    private TaskList tasks;
+    private Closeable watcher;
+
+    Workspace(String name, String filePath) {
+        this.name = name;
+        this.filePath = filePath;
+        this.archive = TaskArchive.forTaskFile(filePath);
+    }
+
+    /**
+     * Returns the name the list is switched to by.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the path of the list's task file.
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Returns the archive the list's completed tasks are moved into.
+     */
+    public TaskArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Returns the storage the list is loaded from and saved to, or null if it is not loaded.
+     */
+    public TaskStore getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns the tasks of the list, or null if it is not loaded.
+     */
+    public TaskList getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns whether the list is held in memory.
+     */
+    public boolean isLoaded() {
+        return tasks != null;
+    }
+
+    void attach(TaskStore storage, TaskList tasks, Closeable watcher) {
+        this.storage = storage;
+        this.tasks = tasks;
+        this.watcher = watcher;
+    }
+
+    Closeable getWatcher() {
+        return watcher;
+    }
+
+    void detach() {
+        storage = null;
+        tasks = null;
+        watcher = null;
+    }
+}
@@ -0,0 +1,203 @@
+package usagi.workspace;
+
+import usagi.storage.TaskStore;
+import usagi.task.TaskList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the named task lists of the application, loading each one the first time it is used.
+ *
+ * <p>The default list is the task file Usagi was started with; a list named {@code work} is kept
+ * in {@code work.txt} next to it. Loaded lists are remembered in least-recently-used order. When
+ * their tasks add up to more than the budget given by {@value #BUDGET_PROPERTY}, idle lists are
+ * saved and dropped from memory, least recently used first, until they fit. The list in use and
+ * the default list, which the replica follows, are never dropped.</p>
+ */
+public class WorkspaceManager {
+
+    /** System property holding the number of tasks that loaded lists may hold in total. */
+    public static final String BUDGET_PROPERTY = "usagi.workspaces.budget";
+
+    private static final int DEFAULT_BUDGET = 20000;
+
+    private final Path directory;
+    private final String extension;
+    private final Workspace defaultWorkspace;
+    private final int budget;
+    private final Consumer<Workspace> onExternalChange;
+    private final Map<String, Workspace> workspaces = new HashMap<>();
+    private final LinkedHashMap<String, Workspace> loaded = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates the lists kept next to the given task file, within the budget given by
+     * {@value #BUDGET_PROPERTY}.
+     *
+     * @param filePath Path of the default task file.
+     * @param onExternalChange Callback run on a background thread when another program edits the
+     *     files of a loaded list.
+     */
+    public WorkspaceManager(String filePath, Consumer<Workspace> onExternalChange) {
+        this(filePath, Integer.getInteger(BUDGET_PROPERTY, DEFAULT_BUDGET), onExternalChange);
+    }
+
+    /**
+     * Creates the lists kept next to the given task file.
+     *
+     * @param filePath Path of the default task file.
+     * @param budget Number of tasks that loaded lists may hold in total before idle ones are dropped.
+     * @param onExternalChange Callback run on a background thread when another program edits the
+     *     files of a loaded list.
+     */
+    public WorkspaceManager(String filePath, int budget, Consumer<Workspace> onExternalChange) {
+        Path taskFile = Paths.get(filePath);
+        String fileName = taskFile.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        this.directory = taskFile.toAbsolutePath().getParent();
+        this.extension = dot > 0 ? fileName.substring(dot) : "";
+        this.budget = budget;
+        this.onExternalChange = onExternalChange;
+        this.defaultWorkspace = new Workspace(dot > 0 ? fileName.substring(0, dot) : fileName, filePath);
+        workspaces.put(defaultWorkspace.getName(), defaultWorkspace);
+    }
+
+    /**
+     * Returns the list Usagi was started with.
+     */
+    public Workspace getDefault() {
+        return defaultWorkspace;
+    }
+
+    /**
+     * Loads the list Usagi was started with. If its tasks cannot be read, it starts empty.
+     *
+     * @param onError Callback receiving the error if the tasks cannot be read or its files cannot
+     *     be watched for edits made by other programs.
+     * @return The loaded default list.
+     */
+    public Workspace openDefault(Consumer<IOException> onError) {
+        try {
+            return open(defaultWorkspace.getName(), onError);
+        } catch (IOException e) {
+            onError.accept(e);
+            TaskStore storage = TaskStore.open(defaultWorkspace.getFilePath());
+            defaultWorkspace.attach(storage, new TaskList(), watch(storage, defaultWorkspace, onError));
+            loaded.put(defaultWorkspace.getName(), defaultWorkspace);
+            return defaultWorkspace;
+        }
+    }
+
+    /**
+     * Returns the named list, loading it if it is not in memory.
+     *
+     * @param name Name of the list, in lower case.
+     * @param onWatchError Callback receiving the error if the list is loaded now but its files
+     *     cannot be watched for edits made by other programs.
+     * @return The loaded list.
+     * @throws IOException If the list's tasks cannot be read.
+     */
+    public Workspace open(String name, Consumer<IOException> onWatchError) throws IOException {
+        Workspace workspace = workspaces.computeIfAbsent(name,
+                k -> new Workspace(k, directory.resolve(k + extension).toString()));
+        if (!workspace.isLoaded()) {
+            load(workspace, onWatchError);
+        }
+        // Reading an access-ordered map moves the list to the most recently used end.
+        loaded.get(name);
+        return workspace;
+    }
+
+    /**
+     * Returns the lists held in memory, least recently used first.
+     */
+    public List<Workspace> getLoaded() {
+        return new ArrayList<>(loaded.values());
+    }
+
+    /**
+     * Saves and drops idle lists, least recently used first, until the tasks of the loaded lists
+     * fit the budget. A list that cannot be saved stays loaded.
+     *
+     * @param active List in use, which is kept.
+     * @return Names of the lists dropped.
+     * @throws IOException If a list could not be saved; the other lists are still dropped.
+     */
+    public List<String> evictIdle(Workspace active) throws IOException {
+        int total = 0;
+        for (Workspace workspace : loaded.values()) {
+            total += workspace.getTasks().size();
+        }
+
+        List<String> evicted = new ArrayList<>();
+        IOException failure = null;
+        Iterator<Workspace> leastRecent = new ArrayList<>(loaded.values()).iterator();
+        while (total > budget && leastRecent.hasNext()) {
+            Workspace workspace = leastRecent.next();
+            if (workspace == active || workspace == defaultWorkspace) {
+                continue;
+            }
+            int size = workspace.getTasks().size();
+            try {
+                unload(workspace);
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+                continue;
+            }
+            total -= size;
+            evicted.add(workspace.getName());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return evicted;
+    }
+
+    private void load(Workspace workspace, Consumer<IOException> onWatchError) throws IOException {
+        TaskStore storage = TaskStore.open(workspace.getFilePath());
+        TaskList tasks;
+        try {
+            tasks = storage.load();
+        } catch (IOException e) {
+            storage.close();
+            throw e;
+        }
+        workspace.attach(storage, tasks, watch(storage, workspace, onWatchError));
+        loaded.put(workspace.getName(), workspace);
+    }
+
+    /**
+     * Watches a list's files so that edits made by other programs are merged in as they happen.
+     * A list that cannot be watched still works, but only picks up such edits when next loaded.
+     */
+    private Closeable watch(TaskStore storage, Workspace workspace, Consumer<IOException> onError) {
+        try {
+            return storage.watch(() -> onExternalChange.accept(workspace));
+        } catch (IOException e) {
+            onError.accept(e);
+            return () -> { };
+        }
+    }
+
+    /**
+     * Saves a list and its indexes, then releases its files and drops its tasks from memory.
+     */
+    private void unload(Workspace workspace) throws IOException {
+        TaskStore storage = workspace.getStorage();
+        storage.save(workspace.getTasks());
+        storage.saveIndexes(workspace.getTasks());
+        workspace.getWatcher().close();
+        storage.close();
+        workspace.detach();
+        loaded.remove(workspace.getName());
+    }
+}
@@ -0,0 +1,97 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import usagi.archive.Archiver;
+import usagi.exception.UsagiException;
+import usagi.parser.Parser;
+import usagi.storage.TaskArchive;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+import usagi.ui.Ui;
+
+/**
+ * JUnit tests for archiving completed tasks.
+ */
+public class ArchiverTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 30);
+    private static final Clock CLOCK = Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(),
+            ZoneId.systemDefault());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void archive_tasksDoneLongAgo_movedToArchive() throws IOException {
+        TaskArchive archive = new TaskArchive(tempDir.resolve("archive.gz"));
+        Archiver archiver = new Archiver(archive, 30, CLOCK);
+        TaskList tasks = new TaskList();
+        tasks.add(doneOn("old report", TODAY.minusDays(31)));
+        tasks.add(new Todo("still open"));
+        tasks.add(doneOn("recent report", TODAY.minusDays(30)));
+        tasks.add(doneOn("ancient report", TODAY.minusDays(400)));
+
+        assertEquals(2, archiver.archive(tasks));
+
+        assertEquals(2, tasks.size());
+        assertEquals("still open", tasks.get(0).getDescription());
+        assertEquals("recent report", tasks.get(1).getDescription());
+        assertEquals(List.of("old report", "ancient report"), descriptionsIn(archive));
+        assertEquals(0, archiver.archive(tasks));
+    }
+
+    @Test
+    public void append_afterTornFrame_earlierTasksKept() throws IOException {
+        Path file = tempDir.resolve("archive.gz");
+        TaskArchive archive = new TaskArchive(file);
+        archive.append(List.of(new Todo("first")));
+        Files.write(file, new byte[] {0, 0, 1, 0, 31, -117}, StandardOpenOption.APPEND);
+
+        assertEquals(List.of("first"), descriptionsIn(archive));
+
+        archive.append(List.of(new Todo("second")));
+        assertEquals(List.of("first", "second"), descriptionsIn(archive));
+    }
+
+    @Test
+    public void archiveFind_keyword_matchingArchivedTasksShown() throws IOException, UsagiException {
+        TaskArchive archive = new TaskArchive(tempDir.resolve("archive.gz"));
+        archive.append(List.of(new Todo("file taxes"), new Todo("book flights")));
+        Ui ui = new Ui();
+
+        Parser.interpretCommand("archive find TAXES", ui, new TaskList(), archive);
+
+        assertTrue(ui.returnOutput().contains("file taxes"));
+        assertFalse(ui.returnOutput().contains("book flights"));
+    }
+
+    private static Task doneOn(String description, LocalDate date) {
+        Todo todo = new Todo(description);
+        todo.markAsDone(date);
+        return todo;
+    }
+
+    private static List<String> descriptionsIn(TaskArchive archive) throws IOException {
+        try (Stream<Task> archived = archive.stream()) {
+            return archived.map(Task::getDescription).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import usagi.audit.AuditLog;
+import usagi.audit.AuditRecord;
+
+/**
+ * JUnit tests for the audit log of handled commands.
+ */
+public class AuditLogTest {
+
+    private static final Instant TIME = Instant.parse("2025-06-01T09:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void flush_successAndError_writesOneJsonLineEachInOrder() throws IOException {
+        Path file = tempDir.resolve("tasks-audit.log");
+        AuditLog log = new AuditLog(file, 1024 * 1024, 5);
+
+        log.record(new AuditRecord(TIME, "alice", "todo say \"hi\"", true, null, 12_345, 1, "[T][ ] say \"hi\""));
+        log.record(new AuditRecord(TIME, "alice", "mark 9", false, "Invalid task number: 9", 2_000, 0, null));
+        log.flush();
+
+        assertEquals(List.of("{\"time\":\"2025-06-01T09:00:00Z\",\"user\":\"alice\","
+                + "\"command\":\"todo say \\\"hi\\\"\",\"outcome\":\"ok\","
+                + "\"latencyMicros\":12,\"changes\":1,\"task\":\"[T][ ] say \\\"hi\\\"\"}",
+                "{\"time\":\"2025-06-01T09:00:00Z\",\"user\":\"alice\",\"command\":\"mark 9\",\"outcome\":\"error\","
+                + "\"error\":\"Invalid task number: 9\",\"latencyMicros\":2,\"changes\":0}"),
+                Files.readAllLines(file));
+    }
+
+    @Test
+    public void flush_pastSizeLimit_rotatesAndKeepsNewestFiles() throws IOException {
+        Path file = tempDir.resolve("tasks-audit.log");
+        AuditLog log = new AuditLog(file, 200, 2);
+
+        for (int i = 0; i < 10; i++) {
+            log.record(new AuditRecord(TIME, "alice", "todo task " + i, true, null, 0, 1, null));
+            log.flush();
+        }
+        log.close();
+
+        assertTrue(Files.readString(file).contains("todo task 9"));
+        assertTrue(Files.size(file) <= 200);
+        assertTrue(Files.exists(file.resolveSibling("tasks-audit.log.2")));
+        assertFalse(Files.exists(file.resolveSibling("tasks-audit.log.3")));
+    }
+
+    @Test
+    public void record_writerBehind_dropsAndCountsOverflow() throws IOException {
+        Path file = tempDir.resolve("tasks-audit.log");
+        AuditLog log = new AuditLog(file, 1024 * 1024, 5);
+
+        int accepted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (log.record(new AuditRecord(TIME, "alice", "list", true, null, 0, 0, null))) {
+                accepted++;
+            }
+        }
+        log.flush();
+
+        assertEquals(10_000 - accepted, log.getDropped());
+        assertEquals(accepted, Files.readAllLines(file).size());
+        assertTrue(log.record(new AuditRecord(TIME, "alice", "list", true, null, 0, 0, null)));
+    }
+
+    @Test
+    public void toJson_unknownUser_writesJsonNull() {
+        AuditRecord record = new AuditRecord(TIME, null, "list", true, null, 0, 0, null);
+
+        assertTrue(record.toJson().contains("\"user\":null,"));
+    }
+
+    @Test
+    public void flush_backgroundWriterFailed_failureRethrownOnce() throws IOException, InterruptedException {
+        Path blocker = Files.writeString(tempDir.resolve("not-a-directory"), "");
+        AuditLog log = new AuditLog(blocker.resolve("tasks-audit.log"), 1024 * 1024, 5);
+        log.start();
+
+        log.record(new AuditRecord(TIME, "alice", "list", true, null, 0, 0, null));
+        Thread.sleep(100);
+
+        assertThrows(IOException.class, log::flush);
+        log.flush();
+    }
+}
@@ -0,0 +1,122 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import usagi.exception.UsagiException;
+import usagi.parser.CommandLexer;
+import usagi.parser.Parser;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+import usagi.ui.Ui;
+
+/**
+ * JUnit tests for the CommandLexer class.
+ */
+public class CommandLexerTest {
+
+    private static final String EVENT = "event team meeting /from 2025-09-25T10:00 /to 2025-09-25T11:00";
+    private static final int WARMUP_ROUNDS = 50_000;
+    private static final int MEASURED_ROUNDS = 10_000;
+
+    @Test
+    public void scan_eventCommand_fieldsFound() {
+        CommandLexer lexer = new CommandLexer().scan(EVENT);
+
+        assertEquals(5, lexer.firstSpace());
+        assertEquals(CommandLexer.NOT_FOUND, lexer.byIndex());
+        assertEquals("team meeting", lexer.text(6, lexer.fromIndex()));
+        assertEquals("2025-09-25T10:00", lexer.text(lexer.fromIndex() + 5, lexer.toIndex()));
+        assertEquals("2025-09-25T11:00", lexer.text(lexer.toIndex() + 3, lexer.length()));
+    }
+
+    @Test
+    public void scan_toBeforeFrom_ignored() {
+        CommandLexer lexer = new CommandLexer().scan("event go /to town /from 1 /to 2");
+
+        assertEquals("1", lexer.text(lexer.fromIndex() + 5, lexer.toIndex()));
+    }
+
+    @Test
+    public void parseInt_range_parsedWithoutSubstring() {
+        CommandLexer lexer = new CommandLexer().scan("mark 12");
+
+        assertEquals(12, lexer.parseInt(lexer.firstSpace() + 1, lexer.length()));
+    }
+
+    @Test
+    public void interpretCommand_markAndUnmark_allocationBounded() throws UsagiException {
+        // The response text is rebuilt for every command; nothing else should be allocated.
+        long perCommand = allocatedPerCommand("mark 1", "unmark 1");
+
+        assertTrue(perCommand <= 1024, "bytes allocated per command: " + perCommand);
+    }
+
+    @Test
+    public void interpretCommand_eventAddedAndDeleted_allocationBounded() throws UsagiException {
+        // Each event also allocates the task, its stored fields and its index entries.
+        long perCommand = allocatedPerCommand(EVENT, "delete 2");
+
+        assertTrue(perCommand <= 4096, "bytes allocated per command: " + perCommand);
+    }
+
+    @Test
+    public void text_storedFields_onlyFieldStringsAllocated() {
+        CommandLexer lexer = new CommandLexer();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            extractFields(lexer);
+        }
+
+        long before = allocatedBytes();
+        int checksum = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            checksum += extractFields(lexer);
+        }
+        long perCommand = (allocatedBytes() - before) / MEASURED_ROUNDS;
+
+        // Three strings of at most 16 characters each, with their backing arrays.
+        assertTrue(checksum > 0);
+        assertTrue(perCommand <= 3 * 64, "bytes allocated per command: " + perCommand);
+    }
+
+    /**
+     * Returns the bytes allocated, on average, by each command of a pair that leaves the list as it
+     * was, once the JIT has warmed up.
+     */
+    private static long allocatedPerCommand(String command, String undoingCommand) throws UsagiException {
+        Ui ui = new Ui();
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            Parser.interpretCommand(command, ui, tasks);
+            Parser.interpretCommand(undoingCommand, ui, tasks);
+        }
+
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            Parser.interpretCommand(command, ui, tasks);
+            Parser.interpretCommand(undoingCommand, ui, tasks);
+        }
+        long perCommand = (allocatedBytes() - before) / (2L * MEASURED_ROUNDS);
+
+        assertEquals(1, tasks.size());
+        return perCommand;
+    }
+
+    private static int extractFields(CommandLexer lexer) {
+        lexer.scan(EVENT);
+        return lexer.text(6, lexer.fromIndex()).length()
+                + lexer.text(lexer.fromIndex() + 5, lexer.toIndex()).length()
+                + lexer.text(lexer.toIndex() + 3, lexer.length()).length();
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
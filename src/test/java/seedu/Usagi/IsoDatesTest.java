@@ -0,0 +1,51 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.IsoDates;
+
+/**
+ * JUnit tests for the IsoDates class.
+ */
+public class IsoDatesTest {
+
+    @Test
+    public void parseDateTime_withAndWithoutSeconds_parsed() {
+        assertEquals(LocalDateTime.of(2025, 9, 25, 10, 0), IsoDates.parseDateTime("2025-09-25T10:00"));
+        assertEquals(LocalDateTime.of(2025, 9, 25, 10, 0, 30), IsoDates.parseDateTime("2025-09-25T10:00:30"));
+    }
+
+    @Test
+    public void parse_inputsOutsideFastPath_sameAsFormatter() {
+        assertEquals(LocalDateTime.parse("2025-09-25t10:00:00.5", DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                IsoDates.parseDateTime("2025-09-25t10:00:00.5"));
+        assertEquals(LocalDate.of(2024, 2, 29), IsoDates.parseDate("2024-02-29"));
+    }
+
+    @Test
+    public void parseDate_invalidDate_sameMessageAsFormatter() {
+        DateTimeParseException expected = assertThrows(DateTimeParseException.class,
+                () -> LocalDate.parse("2025-02-29", DateTimeFormatter.ISO_LOCAL_DATE));
+        DateTimeParseException actual = assertThrows(DateTimeParseException.class,
+                () -> IsoDates.parseDate("2025-02-29"));
+
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    public void toFileString_fastFormat_matchesIsoFormatter() {
+        assertEquals("D | 0 | return book | 2025-09-20", new Deadline("return book", "2025-09-20").toFileString());
+        assertEquals("E | 0 | meeting | 2025-09-25T10:00:00 | 2025-09-25T11:00:30",
+                new Event("meeting", "2025-09-25T10:00", "2025-09-25T11:00:30").toFileString());
+    }
+}
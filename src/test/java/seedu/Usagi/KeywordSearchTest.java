@@ -0,0 +1,95 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.KeywordSearch;
+import usagi.task.Priority;
+import usagi.task.Recurrence;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+
+/**
+ * JUnit tests for case-insensitive substring search over tasks.
+ */
+public class KeywordSearchTest {
+
+    @Test
+    public void matches_keywordAnywhereInDisplayedText_ignoresCase() {
+        Task task = new Deadline("Return BOOK", "2025-06-06");
+
+        assertTrue(new KeywordSearch("book").matches(task));
+        assertTrue(new KeywordSearch("N bo").matches(task));
+        assertTrue(new KeywordSearch("jun 6").matches(task));
+        assertTrue(new KeywordSearch("").matches(task));
+        assertFalse(new KeywordSearch("books").matches(task));
+        assertFalse(new KeywordSearch("return book (by: jun 6 2025) and more").matches(task));
+        // 'a' and '\u0161' share a low byte, so they share a shift.
+        assertTrue(new KeywordSearch("\u0161a").matches(new Todo("pa\u0161a")));
+        assertFalse(new KeywordSearch("a\u0161a\u0161").matches(new Todo("pa\u0161a a\u0161a")));
+    }
+
+    @Test
+    public void matches_statusAndPriorityChanged_searchKeyUpdated() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        KeywordSearch search = new KeywordSearch("[x] read book (priority: high)");
+        assertFalse(search.matches(tasks.get(0)));
+
+        tasks.setDone(0, true);
+        tasks.setPriority(0, Priority.HIGH);
+
+        assertTrue(search.matches(tasks.get(0)));
+    }
+
+    @Test
+    public void search_listAboveParallelThreshold_matchesInListOrder() {
+        List<Task> tasks = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < KeywordSearch.PARALLEL_THRESHOLD * 3 + 17; i++) {
+            String description = (i % 7 == 0 ? "Water plants " : "read book ") + i;
+            tasks.add(new Todo(description));
+            if (i % 7 == 0) {
+                expected.add(description);
+            }
+        }
+
+        List<Task> matches = new KeywordSearch("WATER").search(tasks);
+
+        assertEquals(expected, matches.stream().map(Task::getDescription).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void search_taskList_sameMatchesAsFullScan() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("return notebook", "2025-09-21"));
+        tasks.add(new Event("book club", "2025-06-01T19:00", "2025-06-01T21:00", Recurrence.WEEK));
+        tasks.add(new Todo("sept. plans, 2025"));
+        tasks.add(new Todo("bye bye"));
+        tasks.setDone(0, true);
+        tasks.setPriority(4, Priority.HIGH);
+        // Postings are only used when they name a small part of the list.
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Todo("water plants " + i));
+        }
+
+        for (String keyword : new String[] {"book", "OOK", "k c", "sep", "by", "2025", "wee", "high", "x]",
+                "[t]", "plans,", "nothing", "."}) {
+            assertEquals(new KeywordSearch(keyword).search(tasks.displayTasks()),
+                    new KeywordSearch(keyword).search(tasks), keyword);
+        }
+        assertEquals(3, tasks.getSearchIndex().containing("book").size());
+        assertEquals(null, tasks.getSearchIndex().containing("2025"));
+    }
+}
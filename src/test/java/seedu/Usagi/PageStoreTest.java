@@ -0,0 +1,191 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import usagi.exception.UsagiException;
+import usagi.parser.Parser;
+import usagi.storage.PageStore;
+import usagi.storage.Storage;
+import usagi.storage.TaskStore;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Priority;
+import usagi.task.Recurrence;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+import usagi.ui.Ui;
+
+/**
+ * JUnit tests for the page-file storage engine.
+ */
+public class PageStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void saveAndLoad_mixedTasks_dataPreserved() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("return book", "2025-06-06", Recurrence.WEEK));
+        tasks.add(new Event("project meeting", "2025-08-06T14:00", "2025-08-06T16:00"));
+        tasks.setDone(0, true);
+
+        try (PageStore store = new PageStore(filePath)) {
+            store.save(tasks);
+        }
+
+        try (PageStore store = new PageStore(filePath)) {
+            assertEquals(linesOf(tasks), linesOf(store.load()));
+        }
+    }
+
+    @Test
+    public void save_randomChangesWithSmallCache_matchesListAfterReopen() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        Random random = new Random(37);
+        List<String> expected;
+
+        try (PageStore store = new PageStore(filePath, 8)) {
+            TaskList tasks = store.load();
+            for (int i = 0; i < 3000; i++) {
+                tasks.add(new Todo("task " + i + " " + "x".repeat(1 + random.nextInt(120))));
+            }
+            store.save(tasks);
+
+            for (int step = 0; step < 4000; step++) {
+                int choice = random.nextInt(4);
+                if (choice == 0 && !tasks.isEmpty()) {
+                    tasks.remove(random.nextInt(tasks.size()));
+                } else if (choice == 1) {
+                    tasks.add(random.nextInt(tasks.size() + 1), new Todo("inserted " + step));
+                } else if (!tasks.isEmpty()) {
+                    tasks.setDone(random.nextInt(tasks.size()), random.nextBoolean());
+                }
+                if (step % 97 == 0) {
+                    store.save(tasks);
+                }
+            }
+            store.save(tasks);
+            expected = linesOf(tasks);
+        }
+
+        try (PageStore store = new PageStore(filePath, 8)) {
+            assertEquals(expected, linesOf(store.load()));
+        }
+    }
+
+    @Test
+    public void save_oneTaskMarkedInLargeList_writesFewPages() throws IOException {
+        PageStore store = new PageStore(tempDir.resolve("tasks.txt").toString());
+        TaskList tasks = store.load();
+        for (int i = 0; i < 5000; i++) {
+            tasks.add(new Todo("task number " + i));
+        }
+        store.save(tasks);
+        assertTrue(store.getPageCount() > 100);
+
+        tasks.setDone(2500, true);
+        store.save(tasks);
+
+        assertTrue(store.getLastPagesWritten() <= 2);
+        store.close();
+    }
+
+    @Test
+    public void load_existingTaskFile_copiedIntoPageFile() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        Files.writeString(Path.of(filePath), "T | 1 | read book\nT | 0 | exercise");
+
+        try (PageStore store = new PageStore(filePath)) {
+            assertEquals(2, store.load().size());
+        }
+        Files.delete(Path.of(filePath));
+
+        try (PageStore store = new PageStore(filePath)) {
+            TaskList loaded = store.load();
+            assertEquals(2, loaded.size());
+            assertEquals("[X]", loaded.get(0).getStatusIcon());
+        }
+    }
+
+    @Test
+    public void open_storageProperty_selectsEngine() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        try {
+            System.setProperty(TaskStore.ENGINE_PROPERTY, "pages");
+            assertTrue(TaskStore.open(filePath) instanceof PageStore);
+            System.clearProperty(TaskStore.ENGINE_PROPERTY);
+            assertTrue(TaskStore.open(filePath) instanceof Storage);
+        } finally {
+            System.clearProperty(TaskStore.ENGINE_PROPERTY);
+        }
+    }
+
+
+    @Test
+    public void save_descriptionTooLongThenNormalAdd_laterChangesSavedAndReloaded()
+            throws IOException, UsagiException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        Ui ui = new Ui();
+
+        try (PageStore store = new PageStore(filePath)) {
+            TaskList tasks = store.load();
+            // Longer than a page record can hold, so it could never have been saved.
+            String tooLong = "x".repeat(3000);
+            assertThrows(UsagiException.class, () -> Parser.interpretCommand("todo " + tooLong, ui, tasks));
+            assertEquals(0, tasks.size());
+            store.save(tasks);
+
+            Parser.interpretCommand("todo buy milk", ui, tasks);
+            store.save(tasks);
+        }
+
+        try (PageStore store = new PageStore(filePath)) {
+            TaskList reloaded = store.load();
+            assertEquals(1, reloaded.size());
+            assertEquals("buy milk", reloaded.get(0).getDescription());
+        }
+    }
+
+    @Test
+    public void save_longestDescriptionWithEveryField_fitsOneRecord() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        TaskList tasks = new TaskList();
+        // Three bytes per character in UTF-8, the most a single character takes in a description.
+        tasks.add(new Event("\u8a9e".repeat(Task.MAX_DESCRIPTION_LENGTH), "2025-08-06T14:00", "2025-08-06T16:00",
+                Recurrence.MONTH));
+        tasks.setPriority(0, Priority.MEDIUM);
+        tasks.setDone(0, true);
+
+        try (PageStore store = new PageStore(filePath)) {
+            store.save(tasks);
+        }
+
+        try (PageStore store = new PageStore(filePath)) {
+            assertEquals(linesOf(tasks), linesOf(store.load()));
+        }
+    }
+
+    private static List<String> linesOf(TaskList tasks) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            lines.add(tasks.get(i).toFileString());
+        }
+        return lines;
+    }
+}
@@ -1,6 +1,7 @@
 package seedu.Usagi;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -61,4 +62,50 @@ public class ParserTest {
             Parser.interpretCommand("mark 5", ui, tasks);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void interpretCommand_undoDelete_taskRestoredInPlace() throws UsagiException {
+        tasks.add(new Todo("first"));
+        tasks.add(new Todo("second"));
+        tasks.add(new Todo("third"));
+
+        Parser.interpretCommand("delete 2", ui, tasks);
+        Parser.interpretCommand("undo", ui, tasks);
+
+        assertEquals(3, tasks.size());
+        assertTrue(tasks.get(1).getFullDescription().contains("second"));
+    }
+
+    @Test
+    public void interpretCommand_undoThenRedoMark_statusReapplied() throws UsagiException {
+        Parser.interpretCommand("todo read book", ui, tasks);
+        Parser.interpretCommand("mark 1", ui, tasks);
+
+        Parser.interpretCommand("undo", ui, tasks);
+        assertEquals("[ ]", tasks.get(0).getStatusIcon());
+
+        Parser.interpretCommand("redo", ui, tasks);
+        assertEquals("[X]", tasks.get(0).getStatusIcon());
+    }
+
+    @Test
+    public void interpretCommand_undoWithEmptyHistory_throwsException() {
+        assertThrows(UsagiException.class, () -> {
+            Parser.interpretCommand("undo", ui, tasks);
+        });
+    }
+
+    @Test
+    public void interpretCommand_listBefore_onlyEarlierTasksInDateOrder() throws UsagiException {
+        Parser.interpretCommand("deadline later /by 2025-10-05", ui, tasks);
+        Parser.interpretCommand("todo undated", ui, tasks);
+        Parser.interpretCommand("event sooner /from 2025-09-20T10:00 /to 2025-09-20T11:00", ui, tasks);
+
+        Parser.interpretCommand("list --before 2025-09-30", ui, tasks);
+        String output = ui.returnOutput();
+
+        assertTrue(output.contains("3.[E][ ] sooner"));
+        assertFalse(output.contains("later"));
+        assertFalse(output.contains("undated"));
+    }
+}
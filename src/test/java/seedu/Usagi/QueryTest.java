@@ -0,0 +1,118 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import usagi.exception.InvalidFormatException;
+import usagi.exception.UsagiException;
+import usagi.query.Query;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+
+/**
+ * JUnit tests for the Query class.
+ */
+public class QueryTest {
+
+    private TaskList tasks;
+
+    @BeforeEach
+    public void setUp() {
+        tasks = new TaskList();
+        tasks.add(new Deadline("return book", "2025-09-20"));
+        tasks.add(new Todo("read book"));
+        tasks.add(new Event("team meeting", "2025-09-25T10:00", "2025-09-25T11:00"));
+        tasks.add(new Deadline("submit notebook", "2025-10-05"));
+        tasks.setDone(1, true);
+    }
+
+    @Test
+    public void isQuery_plainKeyword_false() {
+        assertFalse(Query.isQuery("book"));
+        assertTrue(Query.isQuery("type:D"));
+        assertTrue(Query.isQuery("book OR meeting"));
+        assertTrue(Query.isQuery("(-done:true)"));
+    }
+
+    @Test
+    public void isQuery_lowerCaseWordsAndPunctuation_false() {
+        assertFalse(Query.isQuery("not done"));
+        assertFalse(Query.isQuery("rock and roll"));
+        assertFalse(Query.isQuery("10:30"));
+        assertFalse(Query.isQuery("\"quoted\" (text) <b>"));
+        assertFalse(Query.isQuery("todo:later"));
+    }
+
+    @Test
+    public void execute_compoundQuery_matchesInListOrder() throws UsagiException {
+        List<Task> matches = Query.parse("type:D done:false due<2025-10-01 \"book\" OR meeting").execute(tasks);
+
+        assertEquals(2, matches.size());
+        assertTrue(matches.get(0).getDescription().equals("return book"));
+        assertTrue(matches.get(1).getDescription().equals("team meeting"));
+    }
+
+    @Test
+    public void execute_bareWord_matchesSubstringLikePlainFind() throws UsagiException {
+        assertEquals(3, Query.parse("book AND NOT done:true OR read").execute(tasks).size());
+        assertEquals(3, Query.parse("book").execute(tasks).size());
+        assertEquals(3, Query.parse("\"book\"").execute(tasks).size());
+        assertEquals("submit notebook", Query.parse("type:D notebook").execute(tasks).get(0).getDescription());
+    }
+
+    @Test
+    public void execute_lowerCaseOperator_matchedAsWord() throws UsagiException {
+        tasks.add(new Todo("rock and roll"));
+
+        List<Task> matches = Query.parse("type:T and").execute(tasks);
+
+        assertEquals(1, matches.size());
+        assertEquals("rock and roll", matches.get(0).getDescription());
+    }
+
+    @Test
+    public void execute_insertedTask_keepsListOrder() throws UsagiException {
+        tasks.add(0, new Todo("borrow book"));
+
+        List<Task> matches = Query.parse("book -done:true").execute(tasks);
+
+        assertEquals("borrow book", matches.get(0).getDescription());
+        assertEquals("return book", matches.get(1).getDescription());
+    }
+
+    @Test
+    public void execute_wordsOnlyInLargeList_sameMatchesAsScanning() throws UsagiException {
+        // Enough other tasks that the word index names only a small part of the list.
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Todo("water plants " + i));
+        }
+
+        assertEquals(List.of("return book", "read book", "team meeting", "submit notebook"),
+                descriptions(Query.parse("\"book\" OR meeting").execute(tasks)));
+        assertEquals(List.of("team meeting", "submit notebook"),
+                descriptions(Query.parse("notebook OR \"M MEET\"").execute(tasks)));
+        assertEquals(List.of("return book", "submit notebook"),
+                descriptions(Query.parse("ook AND NOT done:true").execute(tasks)));
+        assertEquals(List.of("return book"), descriptions(Query.parse("book AND return").execute(tasks)));
+    }
+
+    @Test
+    public void parse_unknownType_throwsException() {
+        assertThrows(InvalidFormatException.class, () -> Query.parse("type:X"));
+    }
+
+    private static List<String> descriptions(List<Task> matches) {
+        return matches.stream().map(Task::getDescription).collect(Collectors.toList());
+    }
+}
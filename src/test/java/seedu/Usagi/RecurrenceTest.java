@@ -0,0 +1,113 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import usagi.exception.InvalidFormatException;
+import usagi.exception.UsagiException;
+import usagi.parser.Parser;
+import usagi.query.Query;
+import usagi.task.DateIndex;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Recurrence;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.ui.Ui;
+
+/**
+ * JUnit tests for recurring deadlines and events.
+ */
+public class RecurrenceTest {
+
+    private TaskList tasks;
+
+    @BeforeEach
+    public void setUp() {
+        tasks = new TaskList();
+    }
+
+    @Test
+    public void firstOnOrAfter_monthlyOnThe31st_returnsToThe31st() {
+        LocalDateTime anchor = LocalDateTime.of(2025, 1, 31, 9, 0);
+
+        assertEquals(LocalDateTime.of(2025, 2, 28, 9, 0),
+                Recurrence.MONTH.firstOnOrAfter(anchor, LocalDateTime.of(2025, 2, 1, 0, 0)));
+        assertEquals(LocalDateTime.of(2025, 3, 31, 9, 0),
+                Recurrence.MONTH.firstOnOrAfter(anchor, LocalDateTime.of(2025, 3, 1, 0, 0)));
+    }
+
+    @Test
+    public void interpretCommand_everyWeek_oneTaskStored() throws UsagiException {
+        Parser.interpretCommand("deadline timesheet /by 2025-09-05 /every week", new Ui(), tasks);
+
+        assertEquals(1, tasks.size());
+        assertEquals(Recurrence.WEEK, tasks.get(0).getRecurrence());
+        assertTrue(tasks.get(0).getFullDescription().contains("(by: Sep 5 2025, every week)"));
+    }
+
+    @Test
+    public void interpretCommand_unknownRule_throwsException() {
+        assertThrows(InvalidFormatException.class, () ->
+                Parser.interpretCommand("event gym /from 2025-09-01T18:00 /to 2025-09-01T19:00 /every year",
+                        new Ui(), tasks));
+    }
+
+    @Test
+    public void before_recurringEvent_occurrencesExpandedFromToday() {
+        tasks.add(new Event("standup", "2025-09-01T09:00", "2025-09-01T09:15", Recurrence.DAY));
+        tasks.add(new Deadline("report", "2025-09-03"));
+
+        List<Task> view = tasks.getDateIndex().before(LocalDate.of(2025, 9, 5), LocalDate.of(2025, 9, 2));
+
+        assertEquals(4, view.size());
+        assertEquals(LocalDateTime.of(2025, 9, 2, 9, 0), ((Event) view.get(0)).getStart());
+        assertEquals("report", view.get(1).getDescription());
+        assertEquals(LocalDateTime.of(2025, 9, 4, 9, 15), ((Event) view.get(3)).getEnd());
+        assertEquals(2, tasks.getDateIndex().size());
+    }
+
+    @Test
+    public void query_dueRange_matchesSeriesWithOccurrenceInRange() throws UsagiException {
+        tasks.add(new Deadline("timesheet", "2025-09-05", Recurrence.WEEK));
+
+        assertEquals(1, Query.parse("due>=2025-12-01 due<2025-12-06").execute(tasks).size());
+        assertEquals(0, Query.parse("due>=2025-12-06 due<2025-12-12").execute(tasks).size());
+    }
+
+    @Test
+    public void before_doneSeries_listedOnceAtFirstOccurrence() {
+        tasks.add(new Deadline("timesheet", "2025-09-05", Recurrence.WEEK));
+        tasks.setDone(0, true);
+
+        List<Task> view = tasks.getDateIndex().before(LocalDate.of(2025, 12, 1), LocalDate.of(2025, 10, 1));
+
+        assertEquals(1, view.size());
+        assertTrue(view.get(0) == tasks.get(0));
+    }
+
+    @Test
+    public void before_dailySeriesFarAhead_occurrencesCappedAndNoted() throws UsagiException {
+        tasks.add(new Deadline("water plants", "2025-09-01", Recurrence.DAY));
+        tasks.add(new Deadline("report", "2025-09-03"));
+
+        List<Task> view = tasks.getDateIndex().before(LocalDate.of(9999, 12, 31), LocalDate.of(2025, 9, 2));
+
+        assertEquals(DateIndex.MAX_OCCURRENCES + 1, view.size());
+        assertEquals(LocalDate.of(2025, 12, 10), ((Deadline) view.get(view.size() - 1)).getDue());
+        Ui ui = new Ui();
+        Parser.interpretCommand("list --before 9999-12-31", ui, tasks);
+        assertTrue(ui.returnOutput().contains("repeating tasks show their next 100 occurrences at most"));
+        Parser.interpretCommand("list --before 2025-09-05", ui, tasks);
+        assertFalse(ui.returnOutput().contains("at most"));
+    }
+}
@@ -0,0 +1,105 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import usagi.reminder.ReminderService;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Task;
+import usagi.task.TaskList;
+
+/**
+ * JUnit tests for the ReminderService class.
+ */
+public class ReminderServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 9, 0);
+
+    private ReminderService reminders;
+    private TaskList tasks;
+    private List<Task> fired;
+    private CountDownLatch latch;
+
+    @BeforeEach
+    public void setUp() {
+        // A clock that reads half a second before START, so reminders for START are due almost immediately.
+        ZoneId zone = ZoneId.systemDefault();
+        Duration offset = Duration.between(LocalDateTime.now(zone), START).minusMillis(500);
+        reminders = new ReminderService(Clock.offset(Clock.system(zone), offset));
+        tasks = new TaskList();
+        fired = new CopyOnWriteArrayList<>();
+        latch = new CountDownLatch(1);
+        reminders.setListener(task -> {
+            fired.add(task);
+            latch.countDown();
+        });
+        reminders.watch(tasks);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        reminders.shutdown();
+    }
+
+    @Test
+    public void onTaskAdded_eventStarting_reminderFired() throws InterruptedException {
+        Event event = new Event("standup", START.toString(), START.plusHours(1).toString());
+        tasks.add(event);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, fired.size());
+        assertEquals(event, fired.get(0));
+    }
+
+    @Test
+    public void onTaskUpdated_eventMarkedDone_reminderCancelled() throws InterruptedException {
+        tasks.add(new Event("standup", START.toString(), START.plusHours(1).toString()));
+        tasks.setDone(0, true);
+
+        assertFalse(latch.await(1500, TimeUnit.MILLISECONDS));
+        assertTrue(fired.isEmpty());
+    }
+
+    @Test
+    public void watch_deadlineDueLaterToday_reminderFired() throws InterruptedException {
+        TaskList loaded = new TaskList();
+        loaded.add(new Deadline("return book", START.toLocalDate().minusDays(1).toString()));
+        loaded.add(new Deadline("submit report", START.toLocalDate().toString()));
+
+        reminders.watch(loaded);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, fired.size());
+        assertEquals("submit report", fired.get(0).getDescription());
+    }
+
+    @Test
+    public void watch_deadlineAlreadyReminded_notRemindedAgain() throws InterruptedException {
+        tasks.add(new Deadline("submit report", START.toLocalDate().toString()));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        reminders.unwatch(tasks);
+        reminders.watch(tasks);
+        tasks.setDone(0, true);
+        tasks.setDone(0, false);
+
+        Thread.sleep(500);
+        assertEquals(1, fired.size());
+    }
+}
@@ -0,0 +1,82 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import usagi.replication.Follower;
+import usagi.replication.Replicator;
+import usagi.storage.ReplicationLog;
+import usagi.storage.TaskStore;
+import usagi.task.Deadline;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+
+/**
+ * JUnit tests for shipping task list changes to a follower directory.
+ */
+public class ReplicationTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void poll_changesShippedAfterSnapshot_followerMatchesPrimary() throws IOException {
+        TaskList primary = new TaskList();
+        primary.add(new Todo("read book"));
+        Replicator replicator = new Replicator(new ReplicationLog(tempDir));
+        replicator.start(primary);
+        Follower follower = new Follower(tempDir);
+
+        assertEquals(2, follower.poll());
+        primary.add(new Deadline("return book", "2025-06-06"));
+        primary.add(0, new Todo("buy milk"));
+        primary.setDone(1, true);
+        primary.remove(0);
+        replicator.ship();
+        long snapshotBytes = replicator.getBytesShipped();
+        primary.setDone(1, true);
+        replicator.ship();
+
+        assertEquals(5, follower.poll());
+        assertEquals(lines(primary), lines(follower.getTasks()));
+        assertTrue(replicator.getBytesShipped() - snapshotBytes < 100);
+    }
+
+    @Test
+    public void promote_afterRestartAndTornRecord_taskFileHoldsPrimaryList() throws IOException {
+        TaskList primary = new TaskList();
+        Replicator replicator = new Replicator(new ReplicationLog(tempDir));
+        replicator.start(primary);
+        primary.add(new Todo("read book"));
+        replicator.ship();
+        Follower follower = new Follower(tempDir);
+        follower.poll();
+        follower.close();
+
+        primary.add(new Todo("return book"));
+        replicator.ship();
+        Files.write(tempDir.resolve(ReplicationLog.FILE_NAME), "ADD 2 3 T | 0 | hal".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        Path taskFile = new Follower(tempDir).promote();
+
+        try (TaskStore store = TaskStore.open(taskFile.toString())) {
+            assertEquals(lines(primary), lines(store.load()));
+        }
+    }
+
+    private static List<String> lines(TaskList tasks) {
+        return tasks.displayTasks().stream().map(Task::toFileString).collect(Collectors.toList());
+    }
+}
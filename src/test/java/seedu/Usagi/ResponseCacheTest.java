@@ -0,0 +1,45 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import usagi.parser.Parser;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+import usagi.ui.ResponseCache;
+
+/**
+ * JUnit tests for the cache of responses to read-only commands.
+ */
+public class ResponseCacheTest {
+
+    @Test
+    public void get_afterMutation_missUntilRenderedAgain() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        ResponseCache cache = new ResponseCache();
+
+        assertNull(cache.get("list", tasks.getVersion()));
+        cache.put("list", tasks.getVersion(), "1.[T][ ] read book", null);
+        assertSame("1.[T][ ] read book", cache.get("list", tasks.getVersion()).getOutput());
+
+        tasks.setDone(0, true);
+
+        assertNull(cache.get("list", tasks.getVersion()));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void getResponseCacheKey_readOnlyCommands_normalized() {
+        assertEquals("list", Parser.getResponseCacheKey("LIST"));
+        assertEquals("list #work", Parser.getResponseCacheKey("list   #work  "));
+        assertEquals("find book", Parser.getResponseCacheKey("find book "));
+        assertNull(Parser.getResponseCacheKey("list --sort due"));
+        assertNull(Parser.getResponseCacheKey("mark 1"));
+        assertNull(Parser.getResponseCacheKey("todo find book"));
+    }
+}
@@ -1,17 +1,25 @@
 package seedu.Usagi;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import usagi.storage.Storage;
+import usagi.task.KeywordSearch;
+import usagi.task.Task;
 import usagi.task.TaskList;
 import usagi.task.Todo;
 
@@ -65,6 +73,219 @@ public class StorageTest {
         assertTrue(loadedTasks.get(0).getStatusIcon().equals("[X]"));
     }
 
+    @Test
+    public void load_recurringTask_storedAsOneRecord() throws IOException {
+        createTestFile("D | 0 | timesheet | 2025-09-05 | every=week\nE | 0 | standup | 2025-09-01T09:00 | "
+                + "2025-09-01T09:15 | every=day");
+
+        TaskList loadedTasks = storage.load();
+
+        assertEquals(2, loadedTasks.size());
+        assertEquals("D | 0 | timesheet | 2025-09-05 | every=week", loadedTasks.get(0).toFileString());
+        assertTrue(loadedTasks.get(1).getFullDescription().contains("every day"));
+    }
+
+    @Test
+    public void load_doneTasks_completionDateKept() throws IOException {
+        createTestFile("T | 1 | read book | done=2025-03-04\nT | 1 | exercise");
+
+        TaskList loadedTasks = storage.load();
+
+        assertEquals(LocalDate.of(2025, 3, 4), loadedTasks.get(0).getDoneOn());
+        assertEquals("T | 1 | read book | done=2025-03-04", loadedTasks.get(0).toFileString());
+        assertEquals(LocalDate.now(), loadedTasks.get(1).getDoneOn());
+    }
+
+    @Test
+    public void load_doneTaskWithoutDate_assignedDateSavedAtOnce() throws IOException {
+        storage = new Storage(testFilePath, 2);
+        TaskList tasks = storage.load();
+        for (int i = 1; i <= 3; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks);
+        Path firstSegment = tempDir.resolve("test_tasks-segments").resolve("segment-000000.txt");
+        Files.writeString(firstSegment, "T | 1 | task 1\nT | 0 | task 2\n");
+
+        new Storage(testFilePath, 2).load();
+
+        assertTrue(Files.readString(firstSegment).startsWith("T | 1 | task 1 | done=" + LocalDate.now()));
+    }
+
+    @Test
+    public void save_markedTask_onlyDirtySegmentRewritten() throws IOException {
+        storage = new Storage(testFilePath, 2);
+        TaskList tasks = storage.load();
+        for (int i = 1; i <= 5; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks);
+
+        // Tamper with the first segment; an untouched segment must not be rewritten on the next save.
+        Path segmentDir = tempDir.resolve("test_tasks-segments");
+        Path firstSegment = segmentDir.resolve("segment-000000.txt");
+        Files.writeString(firstSegment, "T | 0 | edited elsewhere\nT | 0 | task 2\n");
+
+        tasks.setDone(4, true);
+        storage.save(tasks);
+
+        TaskList loadedTasks = new Storage(testFilePath, 2).load();
+        assertEquals(5, loadedTasks.size());
+        assertTrue(loadedTasks.get(0).getFullDescription().contains("edited elsewhere"));
+        assertTrue(loadedTasks.get(4).getStatusIcon().equals("[X]"));
+    }
+
+    @Test
+    public void save_deleteEmptiesSegment_segmentFileRemoved() throws IOException {
+        storage = new Storage(testFilePath, 2);
+        TaskList tasks = storage.load();
+        for (int i = 1; i <= 3; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks);
+
+        tasks.remove(2);
+        storage.save(tasks);
+
+        Path segmentDir = tempDir.resolve("test_tasks-segments");
+        assertTrue(Files.notExists(segmentDir.resolve("segment-000001.txt")));
+        TaskList loadedTasks = new Storage(testFilePath, 2).load();
+        assertEquals(2, loadedTasks.size());
+    }
+
+    @Test
+    public void save_crashBeforeManifestWhileSplitting_savedTasksKept() throws IOException {
+        storage = new Storage(testFilePath, 2);
+        TaskList tasks = storage.load();
+        tasks.add(new Todo("task 1"));
+        tasks.add(new Todo("task 2"));
+        storage.save(tasks);
+
+        // Inserting into the full segment splits it; a directory in the way makes the manifest write fail.
+        tasks.add(1, new Todo("task 1.5"));
+        Path blocked = Files.createDirectories(tempDir.resolve("test_tasks.txt.tmp"));
+        Files.writeString(blocked.resolve("keep.txt"), "not a manifest");
+        assertThrows(IOException.class, () -> storage.save(tasks));
+
+        TaskList loadedTasks = new Storage(testFilePath, 2).load();
+        assertEquals(2, loadedTasks.size());
+        assertTrue(loadedTasks.get(0).getFullDescription().contains("task 1"));
+        assertTrue(loadedTasks.get(1).getFullDescription().contains("task 2"));
+
+        Files.delete(blocked.resolve("keep.txt"));
+        Files.delete(blocked);
+        storage.save(tasks);
+        loadedTasks = new Storage(testFilePath, 2).load();
+        assertEquals(3, loadedTasks.size());
+        assertTrue(loadedTasks.get(1).getFullDescription().contains("task 1.5"));
+        assertTrue(loadedTasks.get(2).getFullDescription().contains("task 2"));
+    }
+
+    @Test
+    public void reload_segmentEditedExternally_onlyChangedTasksApplied() throws IOException {
+        storage = new Storage(testFilePath, 2);
+        TaskList tasks = storage.load();
+        for (int i = 1; i <= 4; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks);
+        Task untouched = tasks.get(0);
+
+        Path secondSegment = tempDir.resolve("test_tasks-segments").resolve("segment-000001.txt");
+        Files.writeString(secondSegment, "T | 1 | task 3\nT | 0 | task 3.5\nT | 0 | task 4\n");
+
+        assertTrue(storage.hasExternalChanges());
+        assertEquals(2, storage.reload(tasks));
+        assertEquals(5, tasks.size());
+        assertSame(untouched, tasks.get(0));
+        assertTrue(tasks.get(2).isDone());
+        assertTrue(tasks.get(3).getFullDescription().contains("task 3.5"));
+        assertFalse(storage.hasExternalChanges());
+    }
+
+    @Test
+    public void reload_ownSave_noChangesDetected() throws IOException {
+        TaskList tasks = storage.load();
+        tasks.add(new Todo("task"));
+        storage.save(tasks);
+
+        assertFalse(storage.hasExternalChanges());
+        assertEquals(0, storage.reload(tasks));
+    }
+
+    @Test
+    public void load_indexSaved_searchUsesSavedPostingsAndFollowsChanges() throws IOException {
+        storage.save(new TaskList(manyTasks()));
+        storage.saveIndexes(storage.load());
+        assertTrue(Files.exists(tempDir.resolve("test_tasks-index.bin")));
+
+        TaskList tasks = new Storage(testFilePath).load();
+        assertEquals(1000, tasks.getSearchIndex().withToken("book").size());
+        Task removed = tasks.remove(0);
+        tasks.add(new Todo("book club"));
+
+        assertEquals(1000, tasks.getSearchIndex().withToken("book").size());
+        assertFalse(tasks.getSearchIndex().withToken("book").contains(removed));
+        assertTrue(tasks.getSearchIndex().withToken("club").contains(tasks.get(tasks.size() - 1)));
+    }
+
+    @Test
+    public void load_indexSaved_findNarrowedBySavedPostings() throws IOException {
+        ArrayList<Task> saved = manyTasks();
+        saved.add(new Todo("read magazine"));
+        storage.save(new TaskList(saved));
+        storage.saveIndexes(storage.load());
+
+        TaskList tasks = new Storage(testFilePath).load();
+        assertEquals(1, tasks.getSearchIndex().containing("agazi").size());
+        tasks.remove(0);
+        tasks.add(new Todo("notebook 12"));
+        tasks.add(new Todo("magazine club"));
+
+        assertEquals(2, tasks.getSearchIndex().containing("magazine").size());
+        for (String keyword : new String[] {"agazi", "MAGAZINE C", "ebook", "ook", "plants 4999", "[t]"}) {
+            assertEquals(new KeywordSearch(keyword).search(tasks.displayTasks()),
+                    new KeywordSearch(keyword).search(tasks), keyword);
+        }
+    }
+
+    @Test
+    public void saveIndexes_indexCannotBeWritten_failureReportedToCaller() throws IOException {
+        storage.save(new TaskList(manyTasks()));
+        Path blocked = Files.createDirectories(tempDir.resolve("test_tasks-index.bin"));
+        Files.writeString(blocked.resolve("keep.txt"), "not an index");
+
+        Storage reopened = new Storage(testFilePath);
+        TaskList tasks = reopened.load();
+
+        assertThrows(IOException.class, () -> reopened.saveIndexes(tasks));
+    }
+
+    @Test
+    public void load_tasksChangedAfterIndexSaved_staleIndexIgnored() throws IOException {
+        storage.save(new TaskList(manyTasks()));
+        TaskList tasks = storage.load();
+        storage.saveIndexes(tasks);
+        tasks.remove(0);
+        tasks.add(0, new Todo("read magazine"));
+        storage.save(tasks);
+
+        Storage reopened = new Storage(testFilePath);
+        TaskList reloaded = reopened.load();
+        reopened.saveIndexes(reloaded);
+
+        assertEquals(1, reloaded.getSearchIndex().withToken("magazine").size());
+        assertEquals(999, reloaded.getSearchIndex().withToken("book").size());
+    }
+
+    private static ArrayList<Task> manyTasks() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            tasks.add(new Todo(i % 5 == 0 ? "read book " + i : "water plants " + i));
+        }
+        return tasks;
+    }
+
     private void createTestFile(String content) throws IOException {
         FileWriter writer = new FileWriter(testFilePath);
         writer.write(content);
@@ -0,0 +1,59 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Recurrence;
+import usagi.task.SummaryCounters;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+
+/**
+ * JUnit tests for the running task counts behind the summary command.
+ */
+public class SummaryCountersTest {
+
+    @Test
+    public void counters_addMarkRemove_countsByTypeAndStatus() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Todo("water plants"));
+        tasks.add(new Deadline("return book", "2025-06-06"));
+        tasks.add(new Event("party", "2025-06-07T18:00", "2025-06-07T22:00"));
+        tasks.setDone(0, true);
+        tasks.setDone(0, true);
+        tasks.setDone(2, true);
+        tasks.setDone(2, false);
+        tasks.remove(1);
+
+        SummaryCounters counters = tasks.getCounters();
+        assertEquals(0, counters.getOpen(Todo.class));
+        assertEquals(1, counters.getDone(Todo.class));
+        assertEquals(1, counters.getOpen(Deadline.class));
+        assertEquals(0, counters.getDone(Deadline.class));
+        assertEquals(1, counters.getOpen(Event.class));
+    }
+
+    @Test
+    public void getOverdue_dateMovesAndDeadlinesChange_countsOpenOneOffDeadlinesDueBefore() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Deadline("pay rent", "2025-06-01"));
+        tasks.add(new Deadline("file taxes", "2025-06-10"));
+        tasks.add(new Deadline("water plants", "2025-05-01", Recurrence.WEEK));
+        SummaryCounters counters = tasks.getCounters();
+
+        assertEquals(1, counters.getOverdue(LocalDate.of(2025, 6, 5)));
+        tasks.add(new Deadline("renew passport", "2025-06-02"));
+        tasks.setDone(0, true);
+        assertEquals(1, counters.getOverdue(LocalDate.of(2025, 6, 5)));
+        assertEquals(2, counters.getOverdue(LocalDate.of(2025, 6, 11)));
+        tasks.remove(1);
+        assertEquals(1, counters.getOverdue(LocalDate.of(2025, 6, 11)));
+        assertEquals(0, counters.getOverdue(LocalDate.of(2025, 6, 1)));
+    }
+}
@@ -0,0 +1,78 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import usagi.exception.InvalidFormatException;
+import usagi.query.TagFilter;
+import usagi.task.TagIndex;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+
+/**
+ * JUnit tests for the TagFilter and TagIndex classes.
+ */
+public class TagFilterTest {
+
+    private TaskList tasks;
+
+    @BeforeEach
+    public void setUp() {
+        tasks = new TaskList();
+        tasks.add(new Todo("fix bug #work #urgent"));
+        tasks.add(new Todo("buy milk #home"));
+        tasks.add(new Todo("write report #Work"));
+        tasks.add(new Todo("email about issue#5"));
+        tasks.setDone(2, true);
+    }
+
+    @Test
+    public void tagsOf_description_onlyWordsStartingWithHash() {
+        assertEquals(List.of("work", "urgent"), List.copyOf(TagIndex.tagsOf("fix bug #work #urgent #work")));
+        assertTrue(TagIndex.tagsOf("email about issue#5").isEmpty());
+    }
+
+    @Test
+    public void execute_tagAndNotDone_openWorkTasks() throws InvalidFormatException {
+        List<Task> matches = TagFilter.parse("#work AND NOT #done").execute(tasks);
+
+        assertEquals(1, matches.size());
+        assertEquals("fix bug #work #urgent", matches.get(0).getDescription());
+    }
+
+    @Test
+    public void execute_orWithParentheses_matchesInListOrder() throws InvalidFormatException {
+        tasks.add(0, new Todo("water plants #home"));
+
+        List<Task> matches = TagFilter.parse("(#home OR #urgent)").execute(tasks);
+
+        assertEquals(3, matches.size());
+        assertEquals("water plants #home", matches.get(0).getDescription());
+        assertEquals("fix bug #work #urgent", matches.get(1).getDescription());
+    }
+
+    @Test
+    public void execute_removedTaskSlotReused_bitmapsStayCorrect() throws InvalidFormatException {
+        tasks.remove(0);
+        tasks.add(new Todo("plan sprint #work"));
+
+        List<Task> matches = TagFilter.parse("#work").execute(tasks);
+
+        assertEquals(2, matches.size());
+        assertEquals("write report #Work", matches.get(0).getDescription());
+        assertEquals(0, TagFilter.parse("#urgent").execute(tasks).size());
+    }
+
+    @Test
+    public void parse_missingTag_throwsException() {
+        assertThrows(InvalidFormatException.class, () -> TagFilter.parse("#work AND"));
+        assertThrows(InvalidFormatException.class, () -> TagFilter.parse("work"));
+    }
+}
@@ -0,0 +1,147 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import usagi.storage.TaskExchange;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.TaskChange;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+
+/**
+ * JUnit tests for the TaskExchange import and export methods.
+ */
+public class TaskExchangeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void exportThenImport_csv_tasksPreserved() throws IOException {
+        assertRoundTrip(tempDir.resolve("tasks.csv"));
+    }
+
+    @Test
+    public void exportThenImport_json_tasksPreserved() throws IOException {
+        assertRoundTrip(tempDir.resolve("tasks.json"));
+    }
+
+    @Test
+    public void importTasks_existingTasks_duplicatesSkipped() throws IOException {
+        TaskList tasks = createSampleTasks();
+        Path file = tempDir.resolve("tasks.csv");
+        TaskExchange.exportTasks(tasks, file);
+
+        TaskExchange.ImportResult result = TaskExchange.importTasks(tasks, file);
+
+        assertEquals(0, result.getAdded());
+        assertEquals(3, result.getDuplicates());
+        assertEquals(3, tasks.size());
+    }
+
+    @Test
+    public void importTasks_repeatsInFile_skippedAsDuplicates() throws IOException {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("read book", "2025-09-09"));
+        Path csv = tempDir.resolve("tasks.csv");
+        Files.writeString(csv, "type,done,description,due\nT,false,read book,\nD,false,read book,2025-09-10\n"
+                + "T,false,!!!,\nT,false,Read Book,\nT,false,!!!,\nD,false,read book,2025-09-10\n",
+                StandardCharsets.UTF_8);
+
+        TaskExchange.ImportResult result = TaskExchange.importTasks(tasks, csv);
+
+        assertEquals(3, result.getAdded());
+        assertEquals(3, result.getDuplicates());
+        assertEquals(5, tasks.size());
+        assertEquals("!!!", tasks.get(3).getDescription());
+        assertEquals("Read Book", tasks.get(4).getDescription());
+    }
+
+    @Test
+    public void importTasks_descriptionWithLineBreakOrPipe_recordSkipped() throws IOException {
+        Path csv = tempDir.resolve("tasks.csv");
+        Files.writeString(csv, "type,done,description\nT,false,\"two\nlines\"\nT,false,a | b\nT,false,fine\n",
+                StandardCharsets.UTF_8);
+        Path json = tempDir.resolve("tasks.json");
+        Files.writeString(json, "[{\"type\": \"T\", \"description\": \"two\\nlines\"}]", StandardCharsets.UTF_8);
+        TaskList tasks = new TaskList();
+
+        TaskExchange.ImportResult result = TaskExchange.importTasks(tasks, csv);
+
+        assertEquals(1, result.getAdded());
+        assertEquals(2, result.getInvalid());
+        assertEquals(1, TaskExchange.importTasks(tasks, json).getInvalid());
+        assertEquals("T | 0 | fine", tasks.get(0).toFileString());
+    }
+
+    @Test
+    public void importTasks_fileMalformedAfterSomeRecords_nothingAdded() throws IOException {
+        Path file = tempDir.resolve("tasks.json");
+        Files.writeString(file, "[{\"type\": \"T\", \"description\": \"a\"}, {\"type\": ", StandardCharsets.UTF_8);
+        TaskList tasks = new TaskList();
+        List<TaskChange> delivered = new ArrayList<>();
+        tasks.addChangeListener(delivered::addAll);
+
+        assertThrows(IOException.class, () -> TaskExchange.importTasks(tasks, file));
+
+        assertEquals(0, tasks.size());
+        assertTrue(delivered.isEmpty());
+        assertFalse(tasks.getHistory().canUndo());
+    }
+
+    @Test
+    public void importTasks_thenUndo_wholeImportUndoneInOneStep() throws IOException {
+        Path file = tempDir.resolve("tasks.csv");
+        TaskExchange.exportTasks(createSampleTasks(), file);
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+
+        TaskExchange.importTasks(tasks, file);
+        tasks.getHistory().undo(tasks);
+
+        assertEquals(1, tasks.size());
+        assertFalse(tasks.getHistory().canUndo());
+        tasks.getHistory().redo(tasks);
+        assertEquals(4, tasks.size());
+        assertEquals("conference", tasks.get(3).getDescription());
+    }
+
+    private void assertRoundTrip(Path file) throws IOException {
+        TaskList original = createSampleTasks();
+        assertEquals(3, TaskExchange.exportTasks(original, file));
+
+        TaskList imported = new TaskList();
+        TaskExchange.ImportResult result = TaskExchange.importTasks(imported, file);
+
+        assertEquals(3, result.getAdded());
+        for (int i = 0; i < original.size(); i++) {
+            assertEquals(original.get(i).toFileString(), imported.get(i).toFileString());
+        }
+        assertTrue(imported.get(0).isDone());
+    }
+
+    private TaskList createSampleTasks() {
+        TaskList tasks = new TaskList();
+        Todo todo = new Todo("buy \"fresh\" milk, eggs");
+        todo.markAsDone();
+        tasks.add(todo);
+        tasks.add(new Deadline("eat cake", "2025-09-09"));
+        tasks.add(new Event("conference", "2025-09-09T12:00", "2025-09-09T14:00"));
+        return tasks;
+    }
+}
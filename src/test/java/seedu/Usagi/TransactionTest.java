@@ -0,0 +1,162 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import usagi.app.Usagi;
+import usagi.parser.Parser;
+import usagi.task.Priority;
+import usagi.task.Task;
+import usagi.task.TaskChange;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+import usagi.task.Transaction;
+
+/**
+ * JUnit tests for rolling back groups of changes to a task list.
+ */
+public class TransactionTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void rollback_mixedChanges_listAndHistoryRestored() {
+        TaskList tasks = new TaskList();
+        Task read = new Todo("read book");
+        read.markAsDone(LocalDate.of(2025, 6, 1));
+        tasks.add(read);
+        tasks.add(new Todo("return book"));
+        tasks.getHistory().recordAdd(1, tasks.get(1));
+
+        Transaction transaction = tasks.beginTransaction();
+        tasks.setDone(0, false);
+        tasks.remove(1);
+        tasks.add(new Todo("buy milk"));
+        tasks.getHistory().recordAdd(1, tasks.get(1));
+        transaction.rollback();
+
+        assertEquals(2, tasks.size());
+        assertEquals("return book", tasks.get(1).getDescription());
+        assertEquals(LocalDate.of(2025, 6, 1), tasks.get(0).getDoneOn());
+        assertEquals(1, tasks.getSearchIndex().withToken("return").size());
+        assertEquals("add " + tasks.get(1), tasks.getHistory().undo(tasks));
+        assertFalse(tasks.getHistory().canUndo());
+    }
+
+    @Test
+    public void changeListener_transactionCommittedOrRolledBack_oneBatchOrNone() {
+        TaskList tasks = new TaskList();
+        List<List<TaskChange>> batches = new ArrayList<>();
+        tasks.addChangeListener(batches::add);
+
+        tasks.add(new Todo("read book"));
+        Transaction committed = tasks.beginTransaction();
+        tasks.add(0, new Todo("buy milk"));
+        tasks.setDone(1, true);
+        tasks.setPriority(0, Priority.HIGH);
+        tasks.remove(1);
+        assertEquals(1, batches.size());
+        committed.commit();
+        Transaction rolledBack = tasks.beginTransaction();
+        tasks.remove(0);
+        rolledBack.rollback();
+
+        assertEquals(2, batches.size());
+        assertEquals(TaskChange.Kind.ADDED, batches.get(0).get(0).getKind());
+        assertEquals("read book", batches.get(0).get(0).getTask().getDescription());
+        assertEquals(List.of(TaskChange.Kind.ADDED, TaskChange.Kind.STATUS_CHANGED,
+                TaskChange.Kind.PRIORITY_CHANGED, TaskChange.Kind.REMOVED),
+                batches.get(1).stream().map(TaskChange::getKind).collect(Collectors.toList()));
+        assertEquals(List.of(2, 2, 2, 1),
+                batches.get(1).stream().map(TaskChange::getSize).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void splitBatch_semicolonsAndLines_trimmedCommands() {
+        assertEquals(List.of("begin", "todo a", "mark 1", "commit"),
+                Parser.splitBatch("begin; todo a ;\n mark 1\r\ncommit;"));
+        assertTrue(Parser.isCommitCommand("COMMIT"));
+    }
+
+    @Test
+    public void getResponse_batchWithFailingCommand_listAndFileUnchanged() {
+        Path file = tempDir.resolve("tasks.txt");
+        Usagi usagi = new Usagi(file.toString());
+        usagi.getResponse("todo read book");
+        long written = usagi.getBytesWritten();
+
+        String response = usagi.getResponse("todo a; mark 9");
+
+        assertTrue(response.startsWith("Nothing was changed, because command 2 (mark 9) failed."));
+        assertEquals(written, usagi.getBytesWritten());
+        assertFalse(usagi.getResponse("list").contains("2."));
+        assertFalse(new Usagi(file.toString()).getResponse("list").contains("2."));
+    }
+
+    @Test
+    public void getResponse_blockOverSeveralInputs_savedOnceOnCommit() {
+        Path file = tempDir.resolve("tasks.txt");
+        Usagi usagi = new Usagi(file.toString());
+        usagi.getResponse("todo read book");
+        long written = usagi.getBytesWritten();
+
+        usagi.getResponse("begin");
+        usagi.getResponse("todo buy milk");
+        usagi.getResponse("todo water plants; mark 1");
+        assertEquals(written, usagi.getBytesWritten());
+        usagi.getResponse("commit");
+
+        long committed = usagi.getBytesWritten();
+        assertTrue(committed > written);
+        usagi.getResponse("list");
+        assertEquals(committed, usagi.getBytesWritten());
+        String reloaded = new Usagi(file.toString()).getResponse("list");
+        assertTrue(reloaded.contains("1.[T][X] read book"));
+        assertTrue(reloaded.contains("3.[T][ ] water plants"));
+    }
+
+    @Test
+    public void getResponse_rollback_bufferedCommandsDiscarded() {
+        Usagi usagi = new Usagi(tempDir.resolve("tasks.txt").toString());
+        usagi.getResponse("todo read book");
+        long written = usagi.getBytesWritten();
+
+        usagi.getResponse("begin");
+        usagi.getResponse("todo buy milk");
+        usagi.getResponse("delete 1");
+        usagi.getResponse("rollback");
+
+        String list = usagi.getResponse("list");
+        assertTrue(list.contains("read book"));
+        assertFalse(list.contains("buy milk"));
+        assertEquals(written, usagi.getBytesWritten());
+        assertTrue(usagi.getResponse("commit").contains("There is no open block."));
+    }
+
+    @Test
+    public void getResponse_byeInsideBlock_refusedAndBlockKept() {
+        Usagi usagi = new Usagi(tempDir.resolve("tasks.txt").toString());
+
+        usagi.getResponse("begin");
+        usagi.getResponse("todo buy milk");
+        String refused = usagi.getResponse("bye");
+
+        assertTrue(refused.contains("Please type commit or rollback before exiting."));
+        assertFalse(usagi.isExiting());
+        usagi.getResponse("commit");
+        assertTrue(usagi.getResponse("list").contains("buy milk"));
+        usagi.getResponse("bye");
+        assertTrue(usagi.isExiting());
+    }
+}
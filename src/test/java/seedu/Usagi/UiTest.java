@@ -0,0 +1,89 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import usagi.exception.UsagiException;
+import usagi.parser.Parser;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Recurrence;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+import usagi.ui.TaskRow;
+import usagi.ui.TaskTable;
+import usagi.ui.Ui;
+
+/**
+ * JUnit tests for the structured rows produced alongside list output.
+ */
+public class UiTest {
+
+    private static final String LINE = "_".repeat(60);
+
+    @Test
+    public void displayTaskList_mixedTasks_textAndRowsMatch() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("return book", "2025-06-06", Recurrence.WEEK));
+        tasks.add(new Event("project meeting", "2025-08-06T14:00", "2025-08-06T16:00"));
+        tasks.setDone(0, true);
+        Ui ui = new Ui();
+
+        ui.displayTaskList(tasks);
+
+        String nl = System.lineSeparator();
+        assertEquals(LINE + nl + "Here are the tasks in your list:" + nl + "1." + tasks.get(0) + nl
+                + "2." + tasks.get(1) + nl + "3." + tasks.get(2) + nl + LINE, ui.returnOutput());
+
+        List<TaskRow> rows = ui.getTaskTable().getRows();
+        assertEquals(3, rows.size());
+        assertEquals("Todo", rows.get(0).getType());
+        assertTrue(rows.get(0).isDone());
+        assertEquals("", rows.get(0).getDateText());
+        assertEquals("Jun 6 2025, every week", rows.get(1).getDateText());
+        assertEquals(LocalDateTime.of(2025, 8, 6, 14, 0), rows.get(2).getDate());
+        assertEquals("Aug 6 2025 14:00 - Aug 6 2025 16:00", rows.get(2).getDateText());
+    }
+
+    @Test
+    public void displaySearchResults_noMatches_noTable() {
+        Ui ui = new Ui();
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        ui.displaySearchResults(tasks, tasks.displayTasks(), "book");
+        TaskTable table = ui.getTaskTable();
+        assertEquals(1, table.getRows().size());
+
+        ui.clearTaskTable();
+        ui.displaySearchResults(tasks, List.of(), "cake");
+
+        assertNull(ui.getTaskTable());
+    }
+
+    @Test
+    public void interpretCommand_filteredViews_numberedByListPosition() throws UsagiException {
+        TaskList tasks = new TaskList();
+        Ui ui = new Ui();
+        Parser.interpretCommand("todo water plants", ui, tasks);
+        Parser.interpretCommand("todo read book #club", ui, tasks);
+        Parser.interpretCommand("deadline return book /by 2025-06-06 /every week", ui, tasks);
+
+        Parser.interpretCommand("find book", ui, tasks);
+        assertEquals(2, ui.getTaskTable().getRows().get(0).getNumber());
+        assertEquals(3, ui.getTaskTable().getRows().get(1).getNumber());
+        assertTrue(ui.returnOutput().contains(" 3." + tasks.get(2)));
+
+        Parser.interpretCommand("list #club", ui, tasks);
+        assertEquals(2, ui.getTaskTable().getRows().get(0).getNumber());
+
+        Parser.interpretCommand("list --sort due", ui, tasks);
+        assertEquals(3, ui.getTaskTable().getRows().get(0).getNumber());
+    }
+}
@@ -0,0 +1,65 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import usagi.exception.UsagiException;
+import usagi.parser.Parser;
+import usagi.task.Deadline;
+import usagi.task.Event;
+import usagi.task.Priority;
+import usagi.task.Recurrence;
+import usagi.task.Task;
+import usagi.task.TaskList;
+import usagi.task.Todo;
+import usagi.ui.Ui;
+
+/**
+ * JUnit tests for ranking open tasks by priority and date.
+ */
+public class UrgencyIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    @Test
+    public void next_mixedPrioritiesAndDates_rankedByPriorityThenDate() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("water plants"));
+        tasks.add(new Deadline("file taxes", "2025-06-30"));
+        tasks.add(new Deadline("pay rent", "2025-06-03"));
+        tasks.add(new Event("standup", "2025-05-05T09:00", "2025-05-05T09:15", Recurrence.WEEK));
+        tasks.add(new Todo("call mum"));
+        tasks.setPriority(0, Priority.HIGH);
+        tasks.setPriority(1, Priority.HIGH);
+        tasks.setPriority(3, Priority.MEDIUM);
+        tasks.setPriority(2, Priority.MEDIUM);
+        tasks.setDone(4, true);
+
+        List<Task> next = tasks.getUrgencyIndex().next(10, TODAY);
+
+        assertEquals(List.of("file taxes", "water plants", "standup", "pay rent"),
+                next.stream().map(Task::getDescription).collect(Collectors.toList()));
+        assertEquals(LocalDate.of(2025, 6, 2), ((Event) next.get(2)).getStart().toLocalDate());
+        assertEquals(2, tasks.getUrgencyIndex().next(2, TODAY).size());
+    }
+
+    @Test
+    public void priorityCommand_undone_rankRestored() throws UsagiException {
+        TaskList tasks = new TaskList();
+        Ui ui = new Ui();
+        Parser.interpretCommand("todo read book", ui, tasks);
+        Parser.interpretCommand("deadline return book /by 2025-06-06", ui, tasks);
+        Parser.interpretCommand("priority 1 high", ui, tasks);
+        assertEquals("read book", tasks.getUrgencyIndex().next(1, TODAY).get(0).getDescription());
+        assertEquals("T | 0 | read book | priority=high", tasks.get(0).toFileString());
+
+        Parser.interpretCommand("undo", ui, tasks);
+
+        assertEquals("return book", tasks.getUrgencyIndex().next(1, TODAY).get(0).getDescription());
+    }
+}
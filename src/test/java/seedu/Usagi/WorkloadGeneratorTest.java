@@ -0,0 +1,77 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import usagi.bench.WorkloadGenerator;
+import usagi.bench.WorkloadGenerator.Command;
+import usagi.bench.WorkloadGenerator.CommandKind;
+import usagi.exception.UsagiException;
+import usagi.parser.Parser;
+import usagi.task.TaskList;
+import usagi.ui.Ui;
+
+/**
+ * JUnit tests for the workload generator.
+ */
+public class WorkloadGeneratorTest {
+
+    private static final LocalDate BASE_DATE = LocalDate.of(2025, 6, 1);
+    private static final int[] TASK_MIX = {60, 25, 15};
+    private static final int[] COMMAND_MIX = {10, 10, 30, 25, 25};
+
+    @Test
+    public void trace_replayedAgainstEmptyList_everyCommandSucceeds() throws UsagiException {
+        List<Command> trace = new WorkloadGenerator(7, BASE_DATE).trace(0, 2000, TASK_MIX, COMMAND_MIX);
+        TaskList tasks = new TaskList();
+        Ui ui = new Ui();
+
+        int expectedSize = 0;
+        for (Command command : trace) {
+            Parser.interpretCommand(command.getText(), ui, tasks);
+            if (command.getKind() == CommandKind.ADD) {
+                expectedSize++;
+            } else if (command.getKind() == CommandKind.DELETE) {
+                expectedSize--;
+            }
+        }
+
+        assertEquals(expectedSize, tasks.size());
+    }
+
+    @Test
+    public void dataset_sameSeed_sameLinesAndRequestedSize() {
+        List<String> first = new WorkloadGenerator(11, BASE_DATE).dataset(500, TASK_MIX, 0.3);
+        List<String> second = new WorkloadGenerator(11, BASE_DATE).dataset(500, TASK_MIX, 0.3);
+
+        assertEquals(first, second);
+        assertEquals(500, first.size());
+        assertEquals(500, first.stream().map(line -> line.split(" \\| ")[2]).collect(Collectors.toSet()).size());
+        assertTrue(first.stream().anyMatch(line -> line.startsWith("E | ")));
+    }
+
+    @Test
+    public void trace_allWeightsZero_rejectedBeforeGenerating() {
+        WorkloadGenerator generator = new WorkloadGenerator(7, BASE_DATE);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                generator.trace(0, 10, TASK_MIX, new int[] {0, 0, 0, 0, 0}));
+
+        assertEquals("At least one weight must be positive: command mix", e.getMessage());
+    }
+
+    @Test
+    public void parseMix_allWeightsZero_rejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                WorkloadGenerator.parseMix("0:0:0", 3));
+
+        assertEquals("At least one weight must be positive: 0:0:0", e.getMessage());
+    }
+}
@@ -0,0 +1,150 @@
+package seedu.Usagi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import usagi.app.Usagi;
+import usagi.task.Task;
+import usagi.task.Todo;
+import usagi.workspace.Workspace;
+import usagi.workspace.WorkspaceManager;
+
+/**
+ * JUnit tests for loading named task lists on first use and dropping idle ones from memory.
+ */
+public class WorkspaceManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void open_listNotUsedBefore_loadedOnceNextToDefaultFile() throws IOException {
+        WorkspaceManager workspaces = new WorkspaceManager(tempDir.resolve("tasks.txt").toString(), 100, w -> { });
+        Workspace defaultList = workspaces.openDefault(e -> { });
+
+        Workspace work = workspaces.open("work", e -> { });
+
+        assertEquals("tasks", defaultList.getName());
+        assertEquals(tempDir.resolve("work.txt").toString(), work.getFilePath());
+        assertTrue(work.isLoaded());
+        assertSame(work.getTasks(), workspaces.open("work", e -> { }).getTasks());
+        assertSame(defaultList, workspaces.open("tasks", e -> { }));
+        assertEquals(List.of("work", "tasks"), names(workspaces.getLoaded()));
+    }
+
+    @Test
+    public void evictIdle_overBudget_leastRecentlyUsedSavedAndDropped() throws IOException {
+        WorkspaceManager workspaces = new WorkspaceManager(tempDir.resolve("tasks.txt").toString(), 2, w -> { });
+        workspaces.openDefault(e -> { });
+        workspaces.open("home", e -> { }).getTasks().add(new Todo("water plants"));
+        workspaces.open("work", e -> { }).getTasks().add(new Todo("file report"));
+        Workspace errands = workspaces.open("errands", e -> { });
+        errands.getTasks().add(new Todo("buy milk"));
+        workspaces.open("work", e -> { });
+
+        assertEquals(List.of("home"), workspaces.evictIdle(errands));
+
+        assertEquals(List.of("tasks", "errands", "work"), names(workspaces.getLoaded()));
+        assertEquals("water plants", workspaces.open("home", e -> { }).getTasks().get(0).getDescription());
+    }
+
+    @Test
+    public void evictIdle_activeAndDefaultListsOverBudget_bothKept() throws IOException {
+        WorkspaceManager workspaces = new WorkspaceManager(tempDir.resolve("tasks.txt").toString(), 0, w -> { });
+        Workspace defaultList = workspaces.openDefault(e -> { });
+        defaultList.getTasks().add(new Todo("read book"));
+        Workspace work = workspaces.open("work", e -> { });
+        work.getTasks().add(new Todo("file report"));
+
+        assertTrue(workspaces.evictIdle(work).isEmpty());
+
+        assertTrue(defaultList.isLoaded());
+        assertTrue(work.isLoaded());
+        workspaces.open("tasks", e -> { });
+        assertEquals(List.of("work"), workspaces.evictIdle(defaultList));
+        assertFalse(work.isLoaded());
+    }
+
+    @Test
+    public void getResponse_switch_remindersFollowNewList() throws InterruptedException {
+        Usagi usagi = new Usagi(tempDir.resolve("tasks.txt").toString());
+        List<Task> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        usagi.setReminderListener(task -> {
+            fired.add(task);
+            latch.countDown();
+        });
+        LocalDateTime start = LocalDateTime.now().plusSeconds(2).truncatedTo(ChronoUnit.SECONDS);
+        String times = " /from " + start + " /to " + start.plusHours(1);
+
+        usagi.getResponse("event home call" + times);
+        usagi.getResponse("switch work");
+        usagi.getResponse("event standup" + times);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(List.of("standup"), fired.stream().map(Task::getDescription).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void getResponse_switch_auditCountsChangesToNewList() throws IOException {
+        Usagi usagi = new Usagi(tempDir.resolve("tasks.txt").toString());
+
+        usagi.getResponse("switch work");
+        usagi.getResponse("todo file report");
+        usagi.getAuditLog().flush();
+
+        List<String> records = Files.readAllLines(tempDir.resolve("tasks-audit.log"));
+        assertEquals(2, records.size());
+        assertTrue(records.get(1).contains("\"changes\":1,"));
+    }
+
+    @Test
+    public void getResponse_switch_cachedResponsesOfOldListDropped() throws IOException {
+        Files.writeString(tempDir.resolve("tasks.txt"), "T | 0 | water plants" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("work.txt"), "T | 0 | file report" + System.lineSeparator());
+        Usagi usagi = new Usagi(tempDir.resolve("tasks.txt").toString());
+
+        assertTrue(usagi.getResponse("list").contains("water plants"));
+        usagi.getResponse("switch work");
+        String work = usagi.getResponse("list");
+
+        assertTrue(work.contains("file report"));
+        assertFalse(work.contains("water plants"));
+        assertEquals(0, usagi.getResponseCache().getHits());
+    }
+
+    @Test
+    public void getResponse_switchInsideBlock_refusedAndListKept() {
+        Usagi usagi = new Usagi(tempDir.resolve("tasks.txt").toString());
+
+        usagi.getResponse("begin");
+        String refused = usagi.getResponse("switch work");
+        usagi.getResponse("todo water plants");
+        usagi.getResponse("commit");
+
+        assertTrue(refused.contains("Please type commit or rollback before switching lists."));
+        assertFalse(Files.exists(tempDir.resolve("work.txt")));
+        assertTrue(usagi.getResponse("list").contains("water plants"));
+    }
+
+    private static List<String> names(List<Workspace> workspaces) {
+        return workspaces.stream().map(Workspace::getName).collect(Collectors.toList());
+    }
+}